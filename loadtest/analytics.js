@@ -0,0 +1,29 @@
+// Latency check for the click analytics endpoint over a one-year range.
+//
+// Create a link, record some clicks, then:
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e CODE=abc123 loadtest/analytics.js
+//
+// The run fails if p99 exceeds 5 ms. FROM and TO override the range (ISO dates).
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const CODE = __ENV.CODE || '1';
+const TO = __ENV.TO || new Date().toISOString().slice(0, 10);
+const FROM = __ENV.FROM || new Date(Date.now() - 365 * 86400000).toISOString().slice(0, 10);
+
+export const options = {
+    vus: Number(__ENV.VUS || 50),
+    duration: __ENV.DURATION || '60s',
+    thresholds: {
+        checks: ['rate>0.99'],
+        http_req_duration: ['p(99)<5'],
+    },
+};
+
+export default function () {
+    const res = http.get(`${BASE_URL}/api/links/${CODE}/analytics?from=${FROM}&to=${TO}`,
+        { tags: { name: 'analytics' } });
+    check(res, { 'is 200': (r) => r.status === 200 });
+}
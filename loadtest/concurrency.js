@@ -0,0 +1,45 @@
+// Concurrency ramp for comparing platform and virtual request threads on the servlet stack.
+//
+// Virtual threads only help while requests block, so make redirects wait on I/O: disable the
+// local cache and add latency in front of Redis, e.g. on Linux
+//
+//   sudo tc qdisc add dev lo root netem delay 5ms       # remove with: tc qdisc del dev lo root
+//
+// then run the ramp once per mode on the same machine and compare http_reqs/s and the
+// http_req_duration percentiles at each stage:
+//
+//   java -jar app.jar --shortme.cache.local.maximum-size=0 --spring.threads.virtual.enabled=false
+//   k6 run -e CODES=1,2,3 loadtest/concurrency.js
+//   java -jar app.jar --shortme.cache.local.maximum-size=0 --spring.threads.virtual.enabled=true
+//   k6 run -e CODES=1,2,3 loadtest/concurrency.js
+//
+// With platform threads, throughput stops growing once concurrency passes server.tomcat.threads.max
+// (200 by default) and latency grows instead; with virtual threads it keeps scaling until Redis,
+// the Hikari pool or the CPU becomes the limit. Watch shortme.virtualthreads.pinned while it runs.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const CODES = (__ENV.CODES || '1').split(',');
+const STAGE = __ENV.STAGE || '30s';
+
+export const options = {
+    discardResponseBodies: true,
+    scenarios: {
+        ramp: {
+            executor: 'ramping-vus',
+            startVUs: 50,
+            stages: [100, 200, 400, 800, 1600, 3200].flatMap((target) => [
+                { duration: '5s', target },
+                { duration: STAGE, target },
+            ]),
+            gracefulRampDown: '5s',
+        },
+    },
+};
+
+export default function () {
+    const code = CODES[Math.floor(Math.random() * CODES.length)];
+    const res = http.get(`${BASE_URL}/${code}`, { redirects: 0, tags: { name: 'redirect' } });
+    check(res, { 'is 302': (r) => r.status === 302 });
+}
@@ -0,0 +1,30 @@
+// Redirect load test for comparing the servlet and reactive redirect paths.
+//
+// Start the app with shortme.reactive.enabled=true, create some links, then run the same
+// scenario against each port and compare the http_req_duration percentiles and http_reqs rate:
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e CODES=1,2,3 loadtest/redirect.js   # MVC
+//   k6 run -e BASE_URL=http://localhost:8081 -e CODES=1,2,3 loadtest/redirect.js   # reactive
+//
+// VUS sets the number of concurrent connections (default 2000, well above the Tomcat pool of
+// 200), DURATION the length of the run. Redirects are not followed.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const CODES = (__ENV.CODES || '1').split(',');
+
+export const options = {
+    vus: Number(__ENV.VUS || 2000),
+    duration: __ENV.DURATION || '60s',
+    discardResponseBodies: true,
+    thresholds: {
+        checks: ['rate>0.99'],
+    },
+};
+
+export default function () {
+    const code = CODES[Math.floor(Math.random() * CODES.length)];
+    const res = http.get(`${BASE_URL}/${code}`, { redirects: 0, tags: { name: 'redirect' } });
+    check(res, { 'is 302': (r) => r.status === 302 });
+}
@@ -0,0 +1,75 @@
+package com.sanuth.shortme.benchmark;
+
+import com.sanuth.shortme.util.Base62Encoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class Base62Benchmark {
+
+    private static final int SIZE = 1024;
+
+    private final long[] ids = new long[SIZE];
+    private final String[] codes = new String[SIZE];
+    private final StringBuilder[] builders = new StringBuilder[SIZE];
+    private final ByteBuffer buffer = ByteBuffer.allocate(Base62Encoder.MAX_LENGTH);
+    private int index;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < SIZE; i++) {
+            // Ids of a table with up to a few billion rows, 1 to 6 characters
+            ids[i] = random.nextLong(1, 56_800_235_584L);
+            codes[i] = Base62Encoder.encode(ids[i]);
+            builders[i] = new StringBuilder(codes[i]);
+        }
+    }
+
+    @Benchmark
+    public String encode() {
+        return Base62Encoder.encode(ids[next()]);
+    }
+
+    @Benchmark
+    public String encodeFixedWidth() {
+        return Base62Encoder.encode(ids[next()], 7);
+    }
+
+    @Benchmark
+    public int encodeToBuffer() {
+        buffer.clear();
+        return Base62Encoder.encodeTo(ids[next()], buffer);
+    }
+
+    @Benchmark
+    public long decode() {
+        return Base62Encoder.decode(codes[next()]);
+    }
+
+    @Benchmark
+    public long decodeCharSequence() {
+        return Base62Encoder.decode(builders[next()]);
+    }
+
+    private int next() {
+        return index = (index + 1) & (SIZE - 1);
+    }
+}
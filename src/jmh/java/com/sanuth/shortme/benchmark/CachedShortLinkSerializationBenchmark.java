@@ -0,0 +1,73 @@
+package com.sanuth.shortme.benchmark;
+
+import com.sanuth.shortme.model.cache.CachedShortLink;
+import com.sanuth.shortme.model.db.LinkStatus;
+import com.sanuth.shortme.util.ShortLinkCacheCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.core.convert.MappingRedisConverter;
+import org.springframework.data.redis.core.convert.RedisData;
+import org.springframework.data.redis.core.mapping.RedisMappingContext;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the two cache backends' value mapping: the compact single-string codec against the
+ * {@code @RedisHash} field mapping used by the hash backend. Network cost is not included.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class CachedShortLinkSerializationBenchmark {
+
+    private CachedShortLink link;
+    private String encoded;
+    private MappingRedisConverter converter;
+    private RedisData hashed;
+
+    @Setup
+    public void setUp() {
+        link = new CachedShortLink(123_456_789L, "8M0kX", "https://www.example.com/products/shoes?size=42&color=black",
+                Instant.parse("2026-01-01T00:00:00Z"), Instant.parse("2027-01-01T00:00:00Z"), LinkStatus.ACTIVE);
+        encoded = ShortLinkCacheCodec.encode(link);
+
+        converter = new MappingRedisConverter(new RedisMappingContext());
+        converter.afterPropertiesSet();
+        hashed = new RedisData();
+        converter.write(link, hashed);
+    }
+
+    @Benchmark
+    public String compactEncode() {
+        return ShortLinkCacheCodec.encode(link);
+    }
+
+    @Benchmark
+    public CachedShortLink compactDecode() {
+        return ShortLinkCacheCodec.decode("8M0kX", encoded);
+    }
+
+    @Benchmark
+    public RedisData hashWrite() {
+        RedisData data = new RedisData();
+        converter.write(link, data);
+        return data;
+    }
+
+    @Benchmark
+    public CachedShortLink hashRead() {
+        return converter.read(CachedShortLink.class, hashed);
+    }
+}
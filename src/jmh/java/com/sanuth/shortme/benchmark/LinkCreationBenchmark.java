@@ -0,0 +1,100 @@
+package com.sanuth.shortme.benchmark;
+
+import com.sanuth.shortme.ShortmeApplication;
+import com.sanuth.shortme.model.dto.CreateShortLinkRequest;
+import com.sanuth.shortme.model.dto.ShortLinkResponse;
+import com.sanuth.shortme.repository.LinkRepository;
+import com.sanuth.shortme.service.LinkService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link LinkService#createShortLink} with and without {@code shortme.links.dedup.enabled}, for
+ * clients that keep re-shortening a working set of {@code distinctUrls} long URLs. Creation time
+ * comes from JMH; table growth is printed at the end of the trial as rows per create call. Same
+ * setup as {@link RedirectBenchmark}: H2 in PostgreSQL mode, Redis from {@code -Dredis.host}.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LinkCreationBenchmark {
+
+    @Param({"false", "true"})
+    public boolean dedup;
+
+    @Param({"1000"})
+    public int distinctUrls;
+
+    private ConfigurableApplicationContext context;
+    private LinkService linkService;
+    private LinkRepository linkRepository;
+    private String[] urls;
+    private final AtomicLong creates = new AtomicLong();
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+
+        int next(int bound) {
+            return random.nextInt(bound);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShortmeApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:creation-bench-" + dedup + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.data.redis.host=" + System.getProperty("redis.host", "localhost"),
+                        "--shortme.links.dedup.enabled=" + dedup,
+                        "--logging.level.root=WARN");
+        linkService = context.getBean(LinkService.class);
+        linkRepository = context.getBean(LinkRepository.class);
+
+        // Long enough that comparing raw URLs in a btree would be costly, like real tracking links
+        urls = new String[distinctUrls];
+        for (int i = 0; i < distinctUrls; i++) {
+            urls[i] = "https://shop.example.com/catalog/item/" + i + "?utm_source=newsletter&utm_medium=email"
+                    + "&utm_campaign=spring-sale&ref=" + "x".repeat(300);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        long rows = linkRepository.count();
+        System.out.printf("%ndedup=%s: %d rows after %d create calls (%.3f rows per call)%n",
+                dedup, rows, creates.get(), (double) rows / Math.max(1, creates.get()));
+        context.close();
+    }
+
+    @Benchmark
+    public ShortLinkResponse createRepeatedUrl(Cursor cursor) {
+        creates.incrementAndGet();
+        return linkService.createShortLink(new CreateShortLinkRequest(urls[cursor.next(distinctUrls)], null, null));
+    }
+}
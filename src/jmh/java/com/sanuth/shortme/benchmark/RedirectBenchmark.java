@@ -0,0 +1,108 @@
+package com.sanuth.shortme.benchmark;
+
+import com.sanuth.shortme.ShortmeApplication;
+import com.sanuth.shortme.controller.RedirectController;
+import com.sanuth.shortme.model.dto.CreateShortLinkRequest;
+import com.sanuth.shortme.service.LinkService;
+import com.sanuth.shortme.service.LocalLinkCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link RedirectController#redirect} against the full application context: local
+ * Redis ({@code -Dredis.host}, default localhost) and an in-memory H2 database in PostgreSQL mode
+ * standing in for Postgres. Without a reachable Redis the numbers describe the degraded path.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RedirectBenchmark {
+
+    private static final int LINKS = 10_000;
+
+    @Param({"compact", "hash"})
+    public String cacheBackend;
+
+    private ConfigurableApplicationContext context;
+    private RedirectController redirectController;
+    private String[] codes;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private final SplittableRandom random = new SplittableRandom();
+        private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+        int next(int bound) {
+            return random.nextInt(bound);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        // Command-line arguments, so they take precedence over application.properties
+        context = new SpringApplicationBuilder(ShortmeApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(
+                        "--spring.datasource.url=jdbc:h2:mem:redirect-bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.format_sql=false",
+                        "--spring.data.redis.host=" + System.getProperty("redis.host", "localhost"),
+                        "--shortme.cache.backend=" + cacheBackend,
+                        "--logging.level.root=WARN");
+        redirectController = context.getBean(RedirectController.class);
+
+        // The local cache tier only serves entries once the invalidation subscription is live
+        LocalLinkCache localLinkCache = context.getBean(LocalLinkCache.class);
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!localLinkCache.isSubscribed() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        LinkService linkService = context.getBean(LinkService.class);
+        codes = new String[LINKS];
+        for (int i = 0; i < LINKS; i++) {
+            codes[i] = linkService.createShortLink(
+                    new CreateShortLinkRequest("https://example.com/page/" + i, null, null)).getShortCode();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<Void> redirectExisting(Cursor cursor) {
+        return redirectController.redirect(codes[cursor.next(LINKS)], cursor.request);
+    }
+
+    @Benchmark
+    public ResponseEntity<Void> redirectUnknown(Cursor cursor) {
+        return redirectController.redirect("zz" + cursor.next(1_000_000), cursor.request);
+    }
+}
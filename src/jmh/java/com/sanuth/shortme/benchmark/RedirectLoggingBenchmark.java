@@ -0,0 +1,96 @@
+package com.sanuth.shortme.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.sanuth.shortme.service.RedirectAccessLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Logging cost per redirect. {@code infoPerRedirect} is what {@code LinkService.getTarget} used
+ * to do, two INFO statements formatted with Boot's console pattern; {@code sampledAccessLog} is
+ * {@link RedirectAccessLog} at the given sample rate. Output goes to a discarding stream so the
+ * numbers are formatting and appender cost, not terminal speed. Run with {@code -prof gc}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RedirectLoggingBenchmark {
+
+    private static final String CODE = "aZ3kP9q";
+    private static final URI TARGET = URI.create("https://example.com/some/fairly/long/landing-page?utm_source=bench");
+    private static final String PATTERN =
+            "%d{yyyy-MM-dd'T'HH:mm:ss.SSSXXX} %5p %pid --- [%15.15t] %-40.40logger{39} : %m%n";
+
+    @Param({"0.01", "1.0"})
+    public double sampleRate;
+
+    private Logger serviceLog;
+    private RedirectAccessLog accessLog;
+    private OutputStreamAppender<ILoggingEvent> appender;
+
+    @Setup
+    public void setUp() {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.reset();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(PATTERN);
+        encoder.start();
+
+        appender = new OutputStreamAppender<>();
+        appender.setContext(context);
+        appender.setEncoder(encoder);
+        appender.setOutputStream(OutputStream.nullOutputStream());
+        appender.start();
+
+        Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+        root.setLevel(Level.INFO);
+        root.addAppender(appender);
+
+        serviceLog = context.getLogger("com.sanuth.shortme.service.LinkService");
+        // No rate limit, so the sample rate alone decides what is written
+        accessLog = new RedirectAccessLog(sampleRate, 1_000_000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        appender.stop();
+    }
+
+    @Benchmark
+    public void infoPerRedirect() {
+        serviceLog.info("Looking up target URL for short code: {}", CODE);
+        serviceLog.info("Found target URL: {} for short code: {}", TARGET, CODE);
+    }
+
+    @Benchmark
+    public void sampledAccessLog() {
+        accessLog.record(CODE, "hit", 42_000);
+    }
+}
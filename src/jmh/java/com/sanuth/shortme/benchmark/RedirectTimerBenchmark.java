@@ -0,0 +1,77 @@
+package com.sanuth.shortme.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost the {@code shortme.redirect} timer adds to every redirect: recording into a histogram
+ * timer registered up front, as {@code LinkService} does, against looking the timer up by name
+ * and tag on each call. Run with {@code -prof gc}; the pre-registered path should not allocate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RedirectTimerBenchmark {
+
+    @Param({"prometheus", "simple"})
+    public String registryType;
+
+    private MeterRegistry registry;
+    private Timer timer;
+
+    @Setup
+    public void setUp() {
+        registry = "prometheus".equals(registryType)
+                ? new PrometheusMeterRegistry(PrometheusConfig.DEFAULT)
+                : new SimpleMeterRegistry();
+        timer = histogramTimer(registry);
+    }
+
+    private static Timer histogramTimer(MeterRegistry registry) {
+        return Timer.builder("shortme.redirect")
+                .tag("outcome", "hit")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(2))
+                .register(registry);
+    }
+
+    @Benchmark
+    public long baseline() {
+        return System.nanoTime() - System.nanoTime();
+    }
+
+    @Benchmark
+    public void recordPreRegistered() {
+        long start = System.nanoTime();
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @Benchmark
+    public void recordLookedUp() {
+        long start = System.nanoTime();
+        histogramTimer(registry).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,100 @@
+package com.sanuth.shortme.benchmark;
+
+import com.sanuth.shortme.service.FeistelShortCodeGenerator;
+import com.sanuth.shortme.service.SequentialShortCodeGenerator;
+import com.sanuth.shortme.service.ShortCodeGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Code generation cost and concurrent insert throughput into a table with a unique
+ * {@code short_code} index, sequential codes against Feistel-permuted ones. H2 stands in for
+ * Postgres, so the insert numbers show the trend rather than production throughput.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShortCodeGeneratorBenchmark {
+
+    @Param({"sequential", "feistel"})
+    public String generator;
+
+    private ShortCodeGenerator codeGenerator;
+    private JdbcDataSource dataSource;
+    private Connection keepAlive;
+    private final AtomicLong ids = new AtomicLong(1_000_000);
+
+    @State(Scope.Thread)
+    public static class Inserter {
+        private Connection connection;
+        private PreparedStatement insert;
+
+        @Setup(Level.Trial)
+        public void open(ShortCodeGeneratorBenchmark benchmark) throws SQLException {
+            connection = benchmark.dataSource.getConnection();
+            insert = connection.prepareStatement("insert into short_link (id, short_code) values (?, ?)");
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        codeGenerator = "feistel".equals(generator)
+                ? new FeistelShortCodeGenerator(0x5eed_cafe_f00dL, 40, 4, new SimpleMeterRegistry())
+                : new SequentialShortCodeGenerator(0);
+
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:codes-" + generator + ";MODE=PostgreSQL");
+        keepAlive = dataSource.getConnection();
+        try (Statement statement = keepAlive.createStatement()) {
+            statement.execute("create table short_link (id bigint primary key, short_code varchar(16) not null unique)");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+
+    @Benchmark
+    public String generate() {
+        return codeGenerator.generate(ids.incrementAndGet());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int insert(Inserter inserter) throws SQLException {
+        long id = ids.incrementAndGet();
+        inserter.insert.setLong(1, id);
+        inserter.insert.setString(2, codeGenerator.generate(id));
+        return inserter.insert.executeUpdate();
+    }
+}
@@ -0,0 +1,87 @@
+package com.sanuth.shortme.benchmark;
+
+import com.sanuth.shortme.util.UrlNormalizer;
+import com.sanuth.shortme.validation.HttpUrlValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * URL checks per create request: {@code previous} is the {@code @Pattern} regex on the request
+ * followed by the former {@code LinkService.validateUrl} (prefix checks, split, {@code new URI}),
+ * kept here as the baseline; {@code normalize} is {@code @HttpUrl} followed by
+ * {@link UrlNormalizer}. Run with {@code -prof gc} to compare allocation.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class UrlValidationBenchmark {
+
+    private static final Pattern HTTP_URL = Pattern.compile("^https?://.*");
+
+    @Param({
+            "https://example.com",
+            "https://Shop.Example.com:443/products/shoes?size=42&color=black",
+            "https://www.example.com/a/rather/long/path/with/many/segments/and/a/query?utm_source=newsletter&utm_medium=email&utm_campaign=spring_sale_2026"
+    })
+    public String url;
+
+    private final HttpUrlValidator httpUrlValidator = new HttpUrlValidator();
+
+    @Benchmark
+    public String previous() {
+        if (!HTTP_URL.matcher(url).matches()) {
+            throw new IllegalArgumentException("URL must start with http:// or https://");
+        }
+        return previousValidateUrl(url);
+    }
+
+    @Benchmark
+    public String normalize() {
+        if (!httpUrlValidator.isValid(url, null)) {
+            throw new IllegalArgumentException("URL must start with http:// or https://");
+        }
+        return UrlNormalizer.normalize(url);
+    }
+
+    private static String previousValidateUrl(String url) {
+        if (url == null || url.trim().isEmpty()) {
+            throw new IllegalArgumentException("URL cannot be empty");
+        }
+        if (url.length() > 2048) {
+            throw new IllegalArgumentException("URL too long (max 2048 characters)");
+        }
+        if (!url.startsWith("http://") && !url.startsWith("https://")) {
+            url = "https://" + url;
+        }
+        String withoutScheme = url.startsWith("https://") ? url.substring(8) : url.substring(7);
+        if (withoutScheme.startsWith("http://") || withoutScheme.startsWith("https://")) {
+            throw new IllegalArgumentException("Invalid URL: double protocol prefix");
+        }
+        String host = withoutScheme.split("/")[0];
+        if (!host.contains(".")) {
+            throw new IllegalArgumentException("Invalid URL: missing domain");
+        }
+        try {
+            new URI(url);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid URL format");
+        }
+        return url;
+    }
+}
@@ -0,0 +1,117 @@
+package com.sanuth.shortme.config;
+
+import com.sanuth.shortme.controller.ReactiveRedirectHandler;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.time.Duration;
+
+/**
+ * Optional non-blocking redirect server. It runs Reactor Netty on its own port next to the
+ * servlet container, with a small event-loop pool, and serves only {@code GET /{code}}; the API
+ * and everything else stay on MVC. Cache misses go to Postgres through an R2DBC pool that shares
+ * the JDBC credentials.
+ */
+@Configuration
+@ConditionalOnProperty(name = "shortme.reactive.enabled", havingValue = "true")
+public class ReactiveRedirectConfig {
+
+    // Deliberately not a bean: a ConnectionFactory bean makes Boot back off from the JDBC DataSource
+    private ConnectionPool connectionPool;
+
+    @Bean
+    public DatabaseClient redirectDatabaseClient(@Value("${shortme.reactive.r2dbc.url}") String url,
+                                                 @Value("${spring.datasource.username}") String username,
+                                                 @Value("${spring.datasource.password}") String password,
+                                                 @Value("${shortme.reactive.r2dbc.pool-size:10}") int poolSize) {
+        ConnectionFactoryOptions options = ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build();
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(ConnectionFactories.get(options))
+                .initialSize(0)
+                .maxSize(poolSize)
+                .maxIdleTime(Duration.ofMinutes(10))
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    @Bean
+    public ReactiveRedirectServer reactiveRedirectServer(ReactiveRedirectHandler handler,
+                                                         @Value("${shortme.reactive.port:8081}") int port,
+                                                         @Value("${shortme.reactive.event-loop-threads:0}") int eventLoopThreads) {
+        int threads = eventLoopThreads > 0 ? eventLoopThreads : Runtime.getRuntime().availableProcessors();
+        return new ReactiveRedirectServer(handler, port, threads);
+    }
+
+    public static class ReactiveRedirectServer implements SmartLifecycle {
+        private static final Logger log = LoggerFactory.getLogger(ReactiveRedirectServer.class);
+
+        private final ReactiveRedirectHandler handler;
+        private final int port;
+        private final int eventLoopThreads;
+
+        private LoopResources loopResources;
+        private volatile DisposableServer server;
+
+        ReactiveRedirectServer(ReactiveRedirectHandler handler, int port, int eventLoopThreads) {
+            this.handler = handler;
+            this.port = port;
+            this.eventLoopThreads = eventLoopThreads;
+        }
+
+        @Override
+        public void start() {
+            loopResources = LoopResources.create("redirect-loop", eventLoopThreads, true);
+            ReactorHttpHandlerAdapter adapter =
+                    new ReactorHttpHandlerAdapter(RouterFunctions.toHttpHandler(handler.routes()));
+            server = HttpServer.create()
+                    .port(port)
+                    .runOn(loopResources)
+                    .handle(adapter)
+                    .bindNow();
+            log.info("Reactive redirect server listening on port {} with {} event-loop threads",
+                    server.port(), eventLoopThreads);
+        }
+
+        @Override
+        public void stop() {
+            DisposableServer current = server;
+            server = null;
+            if (current != null) {
+                current.disposeNow(Duration.ofSeconds(10));
+            }
+            if (loopResources != null) {
+                loopResources.disposeLater().block(Duration.ofSeconds(10));
+            }
+        }
+
+        @Override
+        public boolean isRunning() {
+            return server != null;
+        }
+    }
+}
@@ -1,14 +1,25 @@
 package com.sanuth.shortme.config;
 
+import com.sanuth.shortme.service.LocalLinkCache;
+import com.sanuth.shortme.service.ShortCodeFilter;
+import io.lettuce.core.metrics.MicrometerCommandLatencyRecorder;
+import io.lettuce.core.metrics.MicrometerOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceClientConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.repository.configuration.EnableRedisRepositories;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.util.List;
+
 @Configuration
 @EnableRedisRepositories(basePackages = "com.sanuth.shortme.repository")
 public class RedisConfig {
@@ -22,6 +33,21 @@ public class RedisConfig {
     @Value("${spring.data.redis.password:}")
     private String redisPassword;
 
+    private final MeterRegistry meterRegistry;
+
+    public RedisConfig(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // Times every Redis command as lettuce.command.completion and .firstresponse, tagged by command type
+    @Bean(destroyMethod = "shutdown")
+    public ClientResources lettuceClientResources() {
+        MicrometerOptions options = MicrometerOptions.builder().histogram(true).build();
+        return ClientResources.builder()
+                .commandLatencyRecorder(new MicrometerCommandLatencyRecorder(meterRegistry, options))
+                .build();
+    }
+
     @Bean
     public LettuceConnectionFactory redisConnectionFactory() {
         RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration();
@@ -32,7 +58,10 @@ public class RedisConfig {
             configuration.setPassword(redisPassword);
         }
 
-        return new LettuceConnectionFactory(configuration);
+        LettuceClientConfiguration clientConfiguration = LettuceClientConfiguration.builder()
+                .clientResources(lettuceClientResources())
+                .build();
+        return new LettuceConnectionFactory(configuration, clientConfiguration);
     }
 
     @Bean
@@ -50,4 +79,20 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+
+    // Delivers cache invalidations and link creations to every node so local L1 and negative
+    // entries are dropped cluster-wide and every node's short code filter learns new codes.
+    // Started by CacheInvalidationSubscriber so an unreachable Redis does not block startup.
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(LocalLinkCache localLinkCache,
+                                                                       ShortCodeFilter shortCodeFilter) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory());
+        container.addMessageListener(localLinkCache, List.of(
+                new ChannelTopic(LocalLinkCache.INVALIDATION_CHANNEL),
+                new ChannelTopic(LocalLinkCache.CREATED_CHANNEL)));
+        container.addMessageListener(shortCodeFilter, new ChannelTopic(LocalLinkCache.CREATED_CHANNEL));
+        container.setAutoStartup(false);
+        return container;
+    }
 }
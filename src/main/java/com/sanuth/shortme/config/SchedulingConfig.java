@@ -0,0 +1,14 @@
+package com.sanuth.shortme.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the periodic background jobs (expiry sweep, click rollup, trending refresh, click spool
+ * replay and click stream polling) on Spring's task scheduler, sized with
+ * {@code spring.task.scheduling.pool.size}. Each job checks its own {@code enabled} flag.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,66 @@
+package com.sanuth.shortme.config;
+
+import io.lettuce.core.RedisClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Configuration;
+
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+/**
+ * Checks, when {@code spring.threads.virtual.enabled} is set, that the drivers on the blocking
+ * request path do not pin virtual threads. On JDK 21 a virtual thread that blocks inside a
+ * {@code synchronized} block keeps its carrier thread, and older pgjdbc and Lettuce releases
+ * guard their socket I/O that way. With a handful of carriers, a few slow queries would then
+ * stall every request, so startup fails instead.
+ *
+ * <p>Pinning from anywhere else is reported by
+ * {@link com.sanuth.shortme.service.VirtualThreadPinningMonitor}.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    // First releases that replaced synchronized with j.u.c locks around blocking I/O
+    static final int[] MIN_PGJDBC = {42, 6};
+    static final int[] MIN_LETTUCE = {6, 3};
+
+    public VirtualThreadConfig() {
+        try {
+            Driver pgjdbc = DriverManager.getDriver("jdbc:postgresql://localhost/postgres");
+            requireAtLeast("pgjdbc", new int[] {pgjdbc.getMajorVersion(), pgjdbc.getMinorVersion()}, MIN_PGJDBC);
+        } catch (SQLException e) {
+            log.warn("pgjdbc is not registered, cannot verify it is safe for virtual threads");
+        }
+
+        String lettuceVersion = RedisClient.class.getPackage().getImplementationVersion();
+        if (lettuceVersion == null) {
+            log.warn("Could not determine the Lettuce version, cannot verify it is safe for virtual threads");
+        } else {
+            requireAtLeast("Lettuce", parseMajorMinor(lettuceVersion), MIN_LETTUCE);
+        }
+        log.info("Virtual threads enabled for request handling");
+    }
+
+    static int[] parseMajorMinor(String version) {
+        String[] parts = version.split("[.\\-/]");
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Unrecognised version: " + version);
+        }
+        return new int[] {Integer.parseInt(parts[0]), Integer.parseInt(parts[1])};
+    }
+
+    static void requireAtLeast(String library, int[] actual, int[] minimum) {
+        boolean supported = actual[0] > minimum[0] || (actual[0] == minimum[0] && actual[1] >= minimum[1]);
+        if (!supported) {
+            throw new IllegalStateException(library + " " + actual[0] + "." + actual[1]
+                    + " pins virtual threads on blocking I/O; " + minimum[0] + "." + minimum[1]
+                    + " or newer is required with spring.threads.virtual.enabled=true");
+        }
+    }
+}
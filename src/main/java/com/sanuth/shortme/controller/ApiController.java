@@ -1,22 +1,60 @@
 package com.sanuth.shortme.controller;
 
 import com.sanuth.shortme.model.dto.ApiResponse;
+import com.sanuth.shortme.model.dto.BulkCreateResult;
 import com.sanuth.shortme.model.dto.CreateShortLinkRequest;
+import com.sanuth.shortme.model.dto.LinkAnalyticsResponse;
+import com.sanuth.shortme.model.dto.LinkImportResult;
 import com.sanuth.shortme.model.dto.ShortLinkResponse;
+import com.sanuth.shortme.model.dto.TrendingLink;
+import com.sanuth.shortme.service.LinkAnalyticsService;
 import com.sanuth.shortme.service.LinkService;
+import com.sanuth.shortme.service.LinkTransferService;
+import com.sanuth.shortme.service.TrendingService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 @RestController
 @RequestMapping("api/links")
 public class ApiController {
 
     private final LinkService linkService;
+    private final LinkTransferService linkTransferService;
+    private final LinkAnalyticsService linkAnalyticsService;
+    private final TrendingService trendingService;
+    private final ObjectReader requestReader;
+    private final int bulkMaxItems;
+    private final long exportTimeoutMs;
 
-    public ApiController(LinkService linkService) {
+    public ApiController(LinkService linkService, LinkTransferService linkTransferService,
+                         LinkAnalyticsService linkAnalyticsService, TrendingService trendingService,
+                         ObjectMapper objectMapper,
+                         @Value("${shortme.links.bulk.max-items:10000}") int bulkMaxItems,
+                         @Value("${shortme.links.transfer.export-timeout-ms:-1}") long exportTimeoutMs) {
         this.linkService = linkService;
+        this.linkTransferService = linkTransferService;
+        this.linkAnalyticsService = linkAnalyticsService;
+        this.trendingService = trendingService;
+        this.requestReader = objectMapper.readerFor(CreateShortLinkRequest.class);
+        this.bulkMaxItems = bulkMaxItems;
+        this.exportTimeoutMs = exportTimeoutMs;
     }
 
     @GetMapping
@@ -32,6 +70,76 @@ public class ApiController {
                 .body(ApiResponse.success("Short link created successfully", response));
     }
 
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<List<BulkCreateResult>>> createBulk(
+            @RequestBody List<CreateShortLinkRequest> requests) {
+        return bulkResponse(linkService.createShortLinks(requests));
+    }
+
+    // One CreateShortLinkRequest per line, parsed incrementally; reading stops one item past the limit
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ApiResponse<List<BulkCreateResult>>> createBulkNdjson(InputStream body) {
+        List<CreateShortLinkRequest> requests = new ArrayList<>();
+        try (MappingIterator<CreateShortLinkRequest> items = requestReader.readValues(body)) {
+            while (items.hasNextValue()) {
+                if (requests.size() == bulkMaxItems) {
+                    throw new IllegalArgumentException("Too many links in one request (max " + bulkMaxItems + ")");
+                }
+                requests.add(items.nextValue());
+            }
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Malformed NDJSON at item " + (requests.size() + 1));
+        }
+        return bulkResponse(linkService.createShortLinks(requests));
+    }
+
+    private ResponseEntity<ApiResponse<List<BulkCreateResult>>> bulkResponse(List<BulkCreateResult> results) {
+        long created = results.stream().filter(BulkCreateResult::isSuccess).count();
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(ApiResponse.success("Created " + created + " of " + results.size() + " short links", results));
+    }
+
+    // Whole link table as NDJSON, written from a database cursor on an async thread
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(HttpServletRequest request) {
+        // Overrides spring.mvc.async.request-timeout for this request only, before the body starts async handling
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeoutMs);
+        StreamingResponseBody body = linkTransferService::exportLinks;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header("Content-Disposition", "attachment; filename=\"shortlinks.ndjson\"")
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ApiResponse<LinkImportResult>> importLinks(
+            InputStream body,
+            @RequestParam(defaultValue = "false") boolean warmCache) {
+        LinkImportResult result = linkTransferService.importLinks(body, warmCache);
+        return ResponseEntity.status(HttpStatus.OK)
+                .body(ApiResponse.success("Imported " + result.getImported() + " short links", result));
+    }
+
+    @GetMapping("/{code}/analytics")
+    public ResponseEntity<ApiResponse<LinkAnalyticsResponse>> analytics(
+            @PathVariable String code,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return linkAnalyticsService.getAnalytics(code, from, to)
+                .map(analytics -> ResponseEntity.ok(ApiResponse.success(analytics)))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(ApiResponse.error("Short link not found")));
+    }
+
+    // Served from the in-memory leaderboard, refreshed every few seconds
+    @GetMapping("/trending")
+    public ResponseEntity<ApiResponse<List<TrendingLink>>> trending(
+            @RequestParam(defaultValue = "1h") String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        List<TrendingLink> links = trendingService.getTrending(TrendingService.Window.fromLabel(window), limit);
+        return ResponseEntity.ok(ApiResponse.success(links));
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<ShortLinkResponse>> getById(@PathVariable Long id) {
         // TODO: Implement get by ID logic
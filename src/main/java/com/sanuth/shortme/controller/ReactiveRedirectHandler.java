@@ -0,0 +1,51 @@
+package com.sanuth.shortme.controller;
+
+import com.sanuth.shortme.service.ClickRecorder;
+import com.sanuth.shortme.service.ReactiveLinkResolver;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+
+/**
+ * Functional {@code GET /{code}} route served by the reactive redirect server. Unknown codes get
+ * a 404 rather than the MVC redirect to {@code /error}, since that path would route back here.
+ */
+@Component
+@ConditionalOnProperty(name = "shortme.reactive.enabled", havingValue = "true")
+public class ReactiveRedirectHandler {
+
+    private final ReactiveLinkResolver linkResolver;
+    private final ClickRecorder clickRecorder;
+
+    public ReactiveRedirectHandler(ReactiveLinkResolver linkResolver, ClickRecorder clickRecorder) {
+        this.linkResolver = linkResolver;
+        this.clickRecorder = clickRecorder;
+    }
+
+    public RouterFunction<ServerResponse> routes() {
+        return RouterFunctions.route(GET("/{code}"), this::redirect);
+    }
+
+    public Mono<ServerResponse> redirect(ServerRequest request) {
+        String code = request.pathVariable("code");
+        return linkResolver.resolve(code)
+                .flatMap(longUrl -> {
+                    // Only enqueues; an event loop must never wait for queue space
+                    String clientAddress = request.remoteAddress()
+                            .map(address -> address.getAddress() != null ? address.getAddress().getHostAddress() : null)
+                            .orElse(null);
+                    clickRecorder.recordWithoutBlocking(code, clientAddress, request.headers()::firstHeader);
+                    return ServerResponse.status(HttpStatus.FOUND).location(URI.create(longUrl)).build();
+                })
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+}
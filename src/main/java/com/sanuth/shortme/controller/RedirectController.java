@@ -1,7 +1,8 @@
 package com.sanuth.shortme.controller;
 
+import com.sanuth.shortme.service.ClickRecorder;
 import com.sanuth.shortme.service.LinkService;
-import com.sanuth.shortme.service.RedisService;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,19 +15,19 @@ import java.net.URI;
 public class RedirectController {
 
     private final LinkService linkService;
-    private final RedisService redisService;
+    private final ClickRecorder clickRecorder;
 
-    public RedirectController(LinkService linkService, RedisService redisService) {
+    public RedirectController(LinkService linkService, ClickRecorder clickRecorder) {
         this.linkService = linkService;
-        this.redisService = redisService;
+        this.clickRecorder = clickRecorder;
     }
 
     @GetMapping("/{code}")
-    public ResponseEntity<Void> redirect(@PathVariable String code) {
+    public ResponseEntity<Void> redirect(@PathVariable String code, HttpServletRequest request) {
         URI target = linkService.getTarget(code);
 
         if (!target.getPath().equals("/error")) {
-            redisService.incrementClick(code);
+            clickRecorder.record(code, request.getRemoteAddr(), request::getHeader);
         }
 
         return ResponseEntity.status(HttpStatus.FOUND).location(target).build();
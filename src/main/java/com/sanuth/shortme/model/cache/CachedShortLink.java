@@ -4,7 +4,6 @@ import com.sanuth.shortme.model.db.LinkStatus;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.redis.core.RedisHash;
 import org.springframework.data.redis.core.TimeToLive;
-import org.springframework.data.redis.core.index.Indexed;
 
 import java.time.Instant;
 
@@ -14,14 +13,15 @@ public class CachedShortLink {
     @Id
     private String shortCode;
 
-    @Indexed
     private String longUrl;
-
     private Long id;
     private Instant createdAt;
     private Instant expiresAt;
     private LinkStatus status;
+    // Per-link override of shortme.cache.ttl-seconds, null for the default
+    private Long cacheTtlSeconds;
 
+    // Effective TTL when written; when read back from Redis, the seconds remaining
     @TimeToLive
     private Long ttl;
 
@@ -30,13 +30,28 @@ public class CachedShortLink {
 
     public CachedShortLink(Long id, String shortCode, String longUrl, Instant createdAt,
                           Instant expiresAt, LinkStatus status) {
+        this(id, shortCode, longUrl, createdAt, expiresAt, status, null);
+    }
+
+    public CachedShortLink(Long id, String shortCode, String longUrl, Instant createdAt,
+                          Instant expiresAt, LinkStatus status, Long cacheTtlSeconds) {
         this.id = id;
         this.shortCode = shortCode;
         this.longUrl = longUrl;
         this.createdAt = createdAt;
         this.expiresAt = expiresAt;
         this.status = status;
-        this.ttl = 3600L; // 1 hour default TTL
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    /** Whether a redirect may be served: the link is active and has not passed its expiry. */
+    public boolean isRedirectable(Instant now) {
+        return hasActiveStatus() && (expiresAt == null || now.isBefore(expiresAt));
+    }
+
+    // Entries cached before status was tracked have none and count as active
+    public boolean hasActiveStatus() {
+        return status == null || status == LinkStatus.ACTIVE;
     }
 
     public String getShortCode() {
@@ -87,6 +102,14 @@ public class CachedShortLink {
         this.status = status;
     }
 
+    public Long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public void setCacheTtlSeconds(Long cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
     public Long getTtl() {
         return ttl;
     }
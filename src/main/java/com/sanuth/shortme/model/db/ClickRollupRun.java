@@ -0,0 +1,41 @@
+package com.sanuth.shortme.model.db;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+/**
+ * Marks a day whose Redis click counters were added to {@link MonthlyClicks}. Inserted in the
+ * same transaction as the monthly rows, so a day is rolled up exactly once across all nodes.
+ */
+@Entity
+public class ClickRollupRun {
+
+    @Id
+    private LocalDate clickDay;
+
+    private Instant rolledUpAt;
+    private int codes;
+    private long clicks;
+
+    public ClickRollupRun() {
+    }
+
+    public LocalDate getClickDay() {
+        return clickDay;
+    }
+
+    public Instant getRolledUpAt() {
+        return rolledUpAt;
+    }
+
+    public int getCodes() {
+        return codes;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+}
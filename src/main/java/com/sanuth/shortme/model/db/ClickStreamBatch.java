@@ -0,0 +1,31 @@
+package com.sanuth.shortme.model.db;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Id of a click batch already added to {@link HourlyClicks}. Inserted in the same transaction as
+ * the hourly rows, so a batch delivered again after a crash or a claim is not counted twice.
+ * Rows are deleted once older than any batch that could still be redelivered.
+ */
+@Entity
+@Table(indexes = @Index(name = "idx_click_stream_batch_processed_at", columnList = "processedAt"))
+public class ClickStreamBatch {
+
+    @Id
+    private String batchId;
+
+    private Instant processedAt;
+
+    public ClickStreamBatch() {
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public Instant getProcessedAt() {
+        return processedAt;
+    }
+}
@@ -0,0 +1,76 @@
+package com.sanuth.shortme.model.db;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * Clicks on one link in one hour, built from the Redis click stream by {@code ClickStreamConsumer}.
+ * Unlike the Redis counters these rows do not expire and survive a Redis flush.
+ */
+@Entity
+@IdClass(HourlyClicks.Key.class)
+// Hibernate orders the primary key columns by name; per-link range reads need the code first, and
+// ClickRollupService sums a whole day across links by hour
+@Table(indexes = {
+        @Index(name = "idx_hourly_clicks_code_hour", columnList = "shortCode, hourStart", unique = true),
+        @Index(name = "idx_hourly_clicks_hour", columnList = "hourStart")
+})
+public class HourlyClicks {
+
+    @Id
+    private String shortCode;
+
+    // Start of the hour the clicks were flushed in
+    @Id
+    private LocalDateTime hourStart;
+
+    private long clicks;
+
+    public HourlyClicks() {
+    }
+
+    public HourlyClicks(String shortCode, LocalDateTime hourStart, long clicks) {
+        this.shortCode = shortCode;
+        this.hourStart = hourStart;
+        this.clicks = clicks;
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public LocalDateTime getHourStart() {
+        return hourStart;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    public static class Key implements Serializable {
+        private String shortCode;
+        private LocalDateTime hourStart;
+
+        public Key() {
+        }
+
+        public Key(String shortCode, LocalDateTime hourStart) {
+            this.shortCode = shortCode;
+            this.hourStart = hourStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(shortCode, key.shortCode)
+                    && Objects.equals(hourStart, key.hourStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shortCode, hourStart);
+        }
+    }
+}
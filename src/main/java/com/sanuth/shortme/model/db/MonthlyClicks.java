@@ -0,0 +1,72 @@
+package com.sanuth.shortme.model.db;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+/**
+ * Clicks on one link in one calendar month, compacted from the Redis day counters by
+ * {@code ClickRollupService} before they expire. Rows only ever grow, one rollup per day.
+ */
+@Entity
+@IdClass(MonthlyClicks.Key.class)
+// Hibernate orders the primary key columns by name; per-link range reads need the code first
+@Table(indexes = @Index(name = "idx_monthly_clicks_code_month", columnList = "shortCode, monthStart", unique = true))
+public class MonthlyClicks {
+
+    @Id
+    private String shortCode;
+
+    // First day of the month
+    @Id
+    private LocalDate monthStart;
+
+    private long clicks;
+
+    public MonthlyClicks() {
+    }
+
+    public MonthlyClicks(String shortCode, LocalDate monthStart, long clicks) {
+        this.shortCode = shortCode;
+        this.monthStart = monthStart;
+        this.clicks = clicks;
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public LocalDate getMonthStart() {
+        return monthStart;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    public static class Key implements Serializable {
+        private String shortCode;
+        private LocalDate monthStart;
+
+        public Key() {
+        }
+
+        public Key(String shortCode, LocalDate monthStart) {
+            this.shortCode = shortCode;
+            this.monthStart = monthStart;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(shortCode, key.shortCode)
+                    && Objects.equals(monthStart, key.monthStart);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shortCode, monthStart);
+        }
+    }
+}
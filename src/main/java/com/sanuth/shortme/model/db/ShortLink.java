@@ -1,39 +1,65 @@
 package com.sanuth.shortme.model.db;
 
 import com.sanuth.shortme.model.dto.CreateShortLinkRequest;
+import com.sanuth.shortme.util.UrlHash;
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 
 import java.time.Instant;
 
 
 @Entity
-public class ShortLink {
-
+// Lets LinkExpirySweeper find due links without scanning the table; the hash index serves dedup lookups
+// and the insertedAt index the short code filter's catch-up of recent rows
+@Table(indexes = {
+        @Index(name = "idx_short_link_status_expires_at", columnList = "status, expiresAt"),
+        @Index(name = "idx_short_link_long_url_hash", columnList = "longUrlHash"),
+        @Index(name = "idx_short_link_inserted_at", columnList = "insertedAt")
+})
+public class ShortLink implements Persistable<Long> {
+
+    // Assigned by ShortLinkIdAllocator before the insert, so the short code is known up front
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private long id;
 
     @Column(unique = true)
     private String shortCode;
+    // Matches the 2048 characters LinkService accepts; never indexed, lookups go through longUrlHash
+    @Column(length = 2048)
     private String longUrl;
+    // Kept in step with longUrl by its setter, for every row, so dedup can be enabled later
+    @Column(length = UrlHash.LENGTH)
+    private byte[] longUrlHash;
     private Instant createdAt;
+    // Set by the database whoever writes the row, unlike createdAt, which imports carry over from the source
+    @Column(insertable = false, updatable = false,
+            columnDefinition = "timestamp(6) with time zone default current_timestamp not null")
+    private Instant insertedAt;
     private Instant expiresAt;
 
     @Enumerated(EnumType.STRING)
     private  LinkStatus status;
 
+    // Overrides shortme.cache.ttl-seconds for this link when set
+    private Long cacheTtlSeconds;
+
+    @Transient
+    private boolean isNew = true;
+
     // Static factory method to create ShortLink from request
     public static ShortLink create(CreateShortLinkRequest request) {
         ShortLink shortLink = new ShortLink();
         shortLink.setLongUrl(request.getLongUrl());
         shortLink.setShortCode(request.getCustomShortCode());
         shortLink.setExpiresAt(request.getExpiresAt());
+        shortLink.setCacheTtlSeconds(request.getCacheTtlSeconds());
         shortLink.setCreatedAt(Instant.now());
         shortLink.setStatus(LinkStatus.ACTIVE);
         return shortLink;
     }
 
-    public long getId() {
+    @Override
+    public Long getId() {
         return id;
     }
 
@@ -55,6 +81,11 @@ public class ShortLink {
 
     public void setLongUrl(String longUrl) {
         this.longUrl = longUrl;
+        this.longUrlHash = UrlHash.of(longUrl);
+    }
+
+    public byte[] getLongUrlHash() {
+        return longUrlHash;
     }
 
     public Instant getCreatedAt() {
@@ -80,4 +111,24 @@ public class ShortLink {
     public void setStatus(LinkStatus status) {
         this.status = status;
     }
+
+    public Long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public void setCacheTtlSeconds(Long cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+
+    // Ids are pre-assigned, so Spring Data cannot infer newness from a null id
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markNotNew() {
+        this.isNew = false;
+    }
 }
@@ -0,0 +1,62 @@
+package com.sanuth.shortme.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkCreateResult {
+
+    private int index;
+    private boolean success;
+    private ShortLinkResponse data;
+    private String error;
+
+    public BulkCreateResult() {
+    }
+
+    public BulkCreateResult(int index, boolean success, ShortLinkResponse data, String error) {
+        this.index = index;
+        this.success = success;
+        this.data = data;
+        this.error = error;
+    }
+
+    public static BulkCreateResult success(int index, ShortLinkResponse data) {
+        return new BulkCreateResult(index, true, data, null);
+    }
+
+    public static BulkCreateResult failure(int index, String error) {
+        return new BulkCreateResult(index, false, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public ShortLinkResponse getData() {
+        return data;
+    }
+
+    public void setData(ShortLinkResponse data) {
+        this.data = data;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -1,8 +1,11 @@
 package com.sanuth.shortme.model.dto;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.sanuth.shortme.validation.HttpUrl;
+import com.sanuth.shortme.validation.ShortCodeChars;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.NotBlank;
-import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 
 import java.time.Instant;
@@ -10,16 +13,20 @@ import java.time.Instant;
 public class CreateShortLinkRequest {
 
     @NotBlank(message = "Long URL is required")
-    @Pattern(regexp = "^https?://.*", message = "URL must start with http:// or https://")
+    @HttpUrl
     private String longUrl;
 
     @Size(min = 3, max = 20, message = "Custom short code must be between 3 and 20 characters if provided")
-    @Pattern(regexp = "^[a-zA-Z0-9-_]+$", message = "Short code can only contain alphanumeric characters, hyphens, and underscores")
+    @ShortCodeChars
     private String customShortCode; // Optional
 
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss'Z'", timezone = "UTC")
     private Instant expiresAt; // Optional
 
+    @Positive(message = "Cache TTL must be positive")
+    @Max(value = 2_592_000, message = "Cache TTL must be at most 30 days")
+    private Long cacheTtlSeconds; // Optional, defaults to shortme.cache.ttl-seconds
+
     public CreateShortLinkRequest() {
     }
 
@@ -52,4 +59,12 @@ public class CreateShortLinkRequest {
     public void setExpiresAt(Instant expiresAt) {
         this.expiresAt = expiresAt;
     }
+
+    public Long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public void setCacheTtlSeconds(Long cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
 }
@@ -0,0 +1,149 @@
+package com.sanuth.shortme.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Click analytics for one link over {@code [from, to]}. {@code daily} only covers the part of the
+ * range still held in Redis and {@code hourly} the last 48 hours of it; {@code monthly} covers every
+ * month the range touches, with whole-month counts.
+ *
+ * <p>Unique visitors, referrers and countries cover the same days as {@code daily}. Visitor counts
+ * are HyperLogLog estimates, within about 1%.
+ */
+public class LinkAnalyticsResponse {
+
+    private String shortCode;
+    private LocalDate from;
+    private LocalDate to;
+    private long total;
+    private List<ClickCount> daily;
+    private List<ClickCount> hourly;
+    private List<ClickCount> monthly;
+    private long uniqueVisitors;
+    private List<RankedCount> topReferrers;
+    private List<RankedCount> topCountries;
+
+    public LinkAnalyticsResponse() {
+    }
+
+    public LinkAnalyticsResponse(String shortCode, LocalDate from, LocalDate to, long total,
+                                 List<ClickCount> daily, List<ClickCount> hourly, List<ClickCount> monthly) {
+        this.shortCode = shortCode;
+        this.from = from;
+        this.to = to;
+        this.total = total;
+        this.daily = daily;
+        this.hourly = hourly;
+        this.monthly = monthly;
+    }
+
+    public LinkAnalyticsResponse(String shortCode, LocalDate from, LocalDate to, long total,
+                                 List<ClickCount> daily, List<ClickCount> hourly, List<ClickCount> monthly,
+                                 long uniqueVisitors, List<RankedCount> topReferrers, List<RankedCount> topCountries) {
+        this(shortCode, from, to, total, daily, hourly, monthly);
+        this.uniqueVisitors = uniqueVisitors;
+        this.topReferrers = topReferrers;
+        this.topCountries = topCountries;
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public List<ClickCount> getDaily() {
+        return daily;
+    }
+
+    public List<ClickCount> getHourly() {
+        return hourly;
+    }
+
+    public List<ClickCount> getMonthly() {
+        return monthly;
+    }
+
+    public long getUniqueVisitors() {
+        return uniqueVisitors;
+    }
+
+    public List<RankedCount> getTopReferrers() {
+        return topReferrers;
+    }
+
+    public List<RankedCount> getTopCountries() {
+        return topCountries;
+    }
+
+    /**
+     * Clicks in one period, labelled {@code 2026-02-05T13}, {@code 2026-02-05} or {@code 2026-02}.
+     * Daily counts also carry the unique visitors of the day.
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public static class ClickCount {
+        private String period;
+        private long clicks;
+        private Long uniqueVisitors;
+
+        public ClickCount() {
+        }
+
+        public ClickCount(String period, long clicks) {
+            this.period = period;
+            this.clicks = clicks;
+        }
+
+        public ClickCount(String period, long clicks, long uniqueVisitors) {
+            this(period, clicks);
+            this.uniqueVisitors = uniqueVisitors;
+        }
+
+        public String getPeriod() {
+            return period;
+        }
+
+        public long getClicks() {
+            return clicks;
+        }
+
+        public Long getUniqueVisitors() {
+            return uniqueVisitors;
+        }
+    }
+
+    /** Clicks from one referrer host or country. */
+    public static class RankedCount {
+        private String name;
+        private long clicks;
+
+        public RankedCount() {
+        }
+
+        public RankedCount(String name, long clicks) {
+            this.name = name;
+            this.clicks = clicks;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getClicks() {
+            return clicks;
+        }
+    }
+}
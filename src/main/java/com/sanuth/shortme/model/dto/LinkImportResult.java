@@ -0,0 +1,61 @@
+package com.sanuth.shortme.model.dto;
+
+public class LinkImportResult {
+
+    private long imported;
+    private long skipped;
+    private long rejected;
+    private long elapsedMs;
+    private long linksPerSecond;
+
+    public LinkImportResult() {
+    }
+
+    public LinkImportResult(long imported, long skipped, long rejected, long elapsedMs) {
+        this.imported = imported;
+        this.skipped = skipped;
+        this.rejected = rejected;
+        this.elapsedMs = elapsedMs;
+        this.linksPerSecond = elapsedMs > 0 ? imported * 1000 / elapsedMs : imported;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public void setImported(long imported) {
+        this.imported = imported;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public void setSkipped(long skipped) {
+        this.skipped = skipped;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public long getLinksPerSecond() {
+        return linksPerSecond;
+    }
+
+    public void setLinksPerSecond(long linksPerSecond) {
+        this.linksPerSecond = linksPerSecond;
+    }
+}
@@ -0,0 +1,102 @@
+package com.sanuth.shortme.model.dto;
+
+import com.sanuth.shortme.model.db.LinkStatus;
+import com.sanuth.shortme.model.db.ShortLink;
+
+import java.time.Instant;
+
+/**
+ * One line of a link export/import. Carries the id as well as the code so a restore
+ * keeps generated codes and ids consistent.
+ */
+public class ShortLinkRecord {
+
+    private long id;
+    private String shortCode;
+    private String longUrl;
+    private Instant createdAt;
+    private Instant expiresAt;
+    private LinkStatus status;
+    private Long cacheTtlSeconds;
+
+    public ShortLinkRecord() {
+    }
+
+    public ShortLinkRecord(ShortLink shortLink) {
+        this.id = shortLink.getId();
+        this.shortCode = shortLink.getShortCode();
+        this.longUrl = shortLink.getLongUrl();
+        this.createdAt = shortLink.getCreatedAt();
+        this.expiresAt = shortLink.getExpiresAt();
+        this.status = shortLink.getStatus();
+        this.cacheTtlSeconds = shortLink.getCacheTtlSeconds();
+    }
+
+    public ShortLink toShortLink() {
+        ShortLink shortLink = new ShortLink();
+        shortLink.setId(id);
+        shortLink.setShortCode(shortCode);
+        shortLink.setLongUrl(longUrl);
+        shortLink.setCreatedAt(createdAt != null ? createdAt : Instant.now());
+        shortLink.setExpiresAt(expiresAt);
+        shortLink.setStatus(status != null ? status : LinkStatus.ACTIVE);
+        shortLink.setCacheTtlSeconds(cacheTtlSeconds);
+        return shortLink;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public void setShortCode(String shortCode) {
+        this.shortCode = shortCode;
+    }
+
+    public String getLongUrl() {
+        return longUrl;
+    }
+
+    public void setLongUrl(String longUrl) {
+        this.longUrl = longUrl;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public LinkStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(LinkStatus status) {
+        this.status = status;
+    }
+
+    public Long getCacheTtlSeconds() {
+        return cacheTtlSeconds;
+    }
+
+    public void setCacheTtlSeconds(Long cacheTtlSeconds) {
+        this.cacheTtlSeconds = cacheTtlSeconds;
+    }
+}
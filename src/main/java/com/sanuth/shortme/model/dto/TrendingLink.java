@@ -0,0 +1,32 @@
+package com.sanuth.shortme.model.dto;
+
+/** One entry of a trending leaderboard: a short code and its clicks within the window. */
+public class TrendingLink {
+
+    private String shortCode;
+    private long clicks;
+
+    public TrendingLink() {
+    }
+
+    public TrendingLink(String shortCode, long clicks) {
+        this.shortCode = shortCode;
+        this.clicks = clicks;
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public void setShortCode(String shortCode) {
+        this.shortCode = shortCode;
+    }
+
+    public long getClicks() {
+        return clicks;
+    }
+
+    public void setClicks(long clicks) {
+        this.clicks = clicks;
+    }
+}
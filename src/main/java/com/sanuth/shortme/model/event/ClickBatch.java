@@ -0,0 +1,43 @@
+package com.sanuth.shortme.model.event;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * Clicks per code flushed in one hour, as appended to the click stream. The id is assigned once
+ * when the batch is created and survives spooling and redelivery, so the consumer can tell a
+ * batch it already counted from a new one.
+ */
+public class ClickBatch {
+
+    private final String batchId;
+    private final LocalDateTime hour;
+    private final Map<String, Long> clicks;
+
+    public ClickBatch(String batchId, LocalDateTime hour, Map<String, Long> clicks) {
+        this.batchId = batchId;
+        this.hour = hour;
+        this.clicks = clicks;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    // Start of the hour the clicks were flushed in
+    public LocalDateTime getHour() {
+        return hour;
+    }
+
+    public Map<String, Long> getClicks() {
+        return clicks;
+    }
+
+    public long totalClicks() {
+        long total = 0;
+        for (long count : clicks.values()) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,33 @@
+package com.sanuth.shortme.model.event;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Attribution of one code's clicks in a flush: the distinct visitor fingerprints, and clicks
+ * per referrer host and per country.
+ */
+public class ClickBreakdown {
+
+    private final Set<Long> visitors = new HashSet<>();
+    private final Map<String, Long> referrers = new HashMap<>();
+    private final Map<String, Long> countries = new HashMap<>();
+
+    public Set<Long> getVisitors() {
+        return visitors;
+    }
+
+    public Map<String, Long> getReferrers() {
+        return referrers;
+    }
+
+    public Map<String, Long> getCountries() {
+        return countries;
+    }
+
+    public boolean isEmpty() {
+        return visitors.isEmpty() && referrers.isEmpty() && countries.isEmpty();
+    }
+}
@@ -0,0 +1,59 @@
+package com.sanuth.shortme.model.event;
+
+import com.sanuth.shortme.util.ClickAttribution;
+
+/**
+ * One recorded redirect. {@code weight} is greater than one when the event stands in for
+ * several clicks that were sampled away under load. Visitor fingerprint, referrer host and
+ * country are optional, see {@link ClickAttribution}.
+ */
+public class ClickEvent {
+
+    private final String shortCode;
+    private final long timestamp;
+    private final long weight;
+    private final long visitorHash;
+    private final String referrer;
+    private final String country;
+
+    public ClickEvent(String shortCode, long timestamp, long weight) {
+        this(shortCode, timestamp, weight, ClickAttribution.NO_VISITOR, null, null);
+    }
+
+    public ClickEvent(String shortCode, long timestamp, long weight, long visitorHash, String referrer, String country) {
+        this.shortCode = shortCode;
+        this.timestamp = timestamp;
+        this.weight = weight;
+        this.visitorHash = visitorHash;
+        this.referrer = referrer;
+        this.country = country;
+    }
+
+    public String getShortCode() {
+        return shortCode;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getVisitorHash() {
+        return visitorHash;
+    }
+
+    public String getReferrer() {
+        return referrer;
+    }
+
+    public String getCountry() {
+        return country;
+    }
+
+    public boolean hasAttribution() {
+        return visitorHash != ClickAttribution.NO_VISITOR || referrer != null || country != null;
+    }
+}
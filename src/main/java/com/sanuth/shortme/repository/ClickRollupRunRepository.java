@@ -0,0 +1,17 @@
+package com.sanuth.shortme.repository;
+
+import com.sanuth.shortme.model.db.ClickRollupRun;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ClickRollupRunRepository extends JpaRepository<ClickRollupRun, LocalDate> {
+
+    @Query("select r.clickDay from ClickRollupRun r where r.clickDay between :from and :to")
+    List<LocalDate> findRolledUpDays(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
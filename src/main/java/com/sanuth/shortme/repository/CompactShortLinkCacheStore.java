@@ -0,0 +1,114 @@
+package com.sanuth.shortme.repository;
+
+import com.sanuth.shortme.model.cache.CachedShortLink;
+import com.sanuth.shortme.util.ShortLinkCacheCodec;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Stores each link as one string key holding a {@link ShortLinkCacheCodec} value.
+ * A save is a single SET with expiry and a lookup is a GET and TTL in one pipeline.
+ */
+@Component
+@ConditionalOnProperty(name = "shortme.cache.backend", havingValue = "compact")
+public class CompactShortLinkCacheStore implements ShortLinkCacheStore {
+
+    public static final String KEY_PREFIX = "sl:";
+
+    private final RedisTemplate<String, String> stringRedisTemplate;
+
+    public CompactShortLinkCacheStore(RedisTemplate<String, String> stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public void save(CachedShortLink cached) {
+        write(stringRedisTemplate, cached);
+    }
+
+    // One pipeline for the whole collection
+    @Override
+    public void saveAll(Collection<CachedShortLink> cached) {
+        if (cached.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (CachedShortLink link : cached) {
+                    write(ops, link);
+                }
+                return null;
+            }
+        });
+    }
+
+    private static void write(RedisOperations<String, String> ops, CachedShortLink cached) {
+        String key = KEY_PREFIX + cached.getShortCode();
+        String value = ShortLinkCacheCodec.encode(cached);
+        if (cached.getTtl() != null && cached.getTtl() > 0) {
+            ops.opsForValue().set(key, value, Duration.ofSeconds(cached.getTtl()));
+        } else {
+            ops.opsForValue().set(key, value);
+        }
+    }
+
+    @Override
+    public Optional<CachedShortLink> findById(String shortCode) {
+        String key = KEY_PREFIX + shortCode;
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForValue().get(key);
+                ops.getExpire(key);
+                return null;
+            }
+        });
+        if (!(results.get(0) instanceof String value)) {
+            return Optional.empty();
+        }
+        CachedShortLink cached = ShortLinkCacheCodec.decode(shortCode, value);
+        // Negative means no expiry (-1) or already gone (-2)
+        if (results.get(1) instanceof Long ttl && ttl >= 0) {
+            cached.setTtl(ttl);
+        }
+        return Optional.of(cached);
+    }
+
+    @Override
+    public void expire(String shortCode, Duration ttl) {
+        stringRedisTemplate.expire(KEY_PREFIX + shortCode, ttl);
+    }
+
+    @Override
+    public void deleteById(String shortCode) {
+        stringRedisTemplate.delete(KEY_PREFIX + shortCode);
+    }
+
+    // A single multi-key DEL
+    @Override
+    public void deleteAll(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+        stringRedisTemplate.delete(shortCodes.stream().map(code -> KEY_PREFIX + code).toList());
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return "PONG".equals(stringRedisTemplate.execute(connection -> connection.ping(), true));
+    }
+}
@@ -0,0 +1,79 @@
+package com.sanuth.shortme.repository;
+
+import com.sanuth.shortme.model.cache.CachedShortLink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Stores each link as a {@code @RedisHash} through {@link CachedShortLinkRepository}.
+ * Every save writes the hash, adds the code to the {@code shortlinks} keyspace set and writes a
+ * phantom TTL key. No property is {@code @Indexed}, so no secondary index sets are written.
+ * Lookups read the remaining TTL back into the {@code @TimeToLive} property.
+ *
+ * <p>Deploys from before the {@code longUrl} index was dropped left {@code shortlinks:longUrl:*}
+ * sets and per-code {@code shortlinks:*:idx} sets behind. Nothing reads or cleans them up any
+ * more; they are orphaned and can be deleted by hand.
+ */
+@Component
+@ConditionalOnProperty(name = "shortme.cache.backend", havingValue = "hash", matchIfMissing = true)
+public class HashShortLinkCacheStore implements ShortLinkCacheStore {
+
+    public static final String KEY_PREFIX = "shortlinks:";
+    private static final String PHANTOM_SUFFIX = ":phantom";
+    // Spring Data keeps the phantom copy this much longer than the hash
+    private static final Duration PHANTOM_EXTRA_TTL = Duration.ofMinutes(5);
+
+    private final CachedShortLinkRepository cachedShortLinkRepository;
+    private final RedisTemplate<String, String> stringRedisTemplate;
+
+    public HashShortLinkCacheStore(CachedShortLinkRepository cachedShortLinkRepository,
+                                   RedisTemplate<String, String> stringRedisTemplate) {
+        this.cachedShortLinkRepository = cachedShortLinkRepository;
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public void save(CachedShortLink cached) {
+        cachedShortLinkRepository.save(cached);
+    }
+
+    @Override
+    public void saveAll(Collection<CachedShortLink> cached) {
+        cachedShortLinkRepository.saveAll(cached);
+    }
+
+    @Override
+    public Optional<CachedShortLink> findById(String shortCode) {
+        return cachedShortLinkRepository.findById(shortCode);
+    }
+
+    // EXPIRE on an absent key is a no-op, so this cannot resurrect an invalidated entry
+    @Override
+    public void expire(String shortCode, Duration ttl) {
+        String key = KEY_PREFIX + shortCode;
+        stringRedisTemplate.expire(key, ttl);
+        stringRedisTemplate.expire(key + PHANTOM_SUFFIX, ttl.plus(PHANTOM_EXTRA_TTL));
+    }
+
+    @Override
+    public void deleteById(String shortCode) {
+        cachedShortLinkRepository.deleteById(shortCode);
+    }
+
+    // Also removes the codes from the keyspace set and deletes their phantom keys
+    @Override
+    public void deleteAll(Collection<String> shortCodes) {
+        cachedShortLinkRepository.deleteAllById(shortCodes);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        cachedShortLinkRepository.count();
+        return true;
+    }
+}
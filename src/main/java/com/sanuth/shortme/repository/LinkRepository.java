@@ -1,14 +1,69 @@
 package com.sanuth.shortme.repository;
 
 
+import com.sanuth.shortme.model.cache.CachedShortLink;
 import com.sanuth.shortme.model.db.ShortLink;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface LinkRepository extends JpaRepository<ShortLink, Long> {
-    Optional<ShortLink> findByLongUrl(String url);
     Optional<ShortLink> findByShortCode(String shortCode);
+    boolean existsByShortCode(String shortCode);
+
+    // Redirect miss path: one lookup on the unique short_code index, projected without loading the entity
+    @Query("select new com.sanuth.shortme.model.cache.CachedShortLink(l.id, l.shortCode, l.longUrl, l.createdAt, "
+            + "l.expiresAt, l.status, l.cacheTtlSeconds) from ShortLink l where l.shortCode = :shortCode")
+    Optional<CachedShortLink> findCachedByShortCode(@Param("shortCode") String shortCode);
+
+    // Dedup lookup on the 16-byte hash index; callers compare longUrl to rule out collisions
+    @Query("select l from ShortLink l where l.longUrlHash in :hashes")
+    List<ShortLink> findByLongUrlHashIn(@Param("hashes") Collection<byte[]> hashes);
+
+    @Query("select l.shortCode from ShortLink l where l.shortCode in :codes")
+    List<String> findExistingShortCodes(@Param("codes") Collection<String> codes);
+
+    @Query("select l.id from ShortLink l where l.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Server-side cursor; must be consumed inside a transaction so the driver honours the fetch size
+    @Query("select l from ShortLink l order by l.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<ShortLink> streamAllByOrderById();
+
+    // Served by the (status, expiresAt) index
+    @Query("select l.shortCode from ShortLink l where l.status = com.sanuth.shortme.model.db.LinkStatus.ACTIVE "
+            + "and l.expiresAt <= :now order by l.expiresAt")
+    List<String> findExpiredShortCodes(@Param("now") Instant now, Limit limit);
+
+    @Transactional
+    @Modifying
+    @Query("update ShortLink l set l.status = com.sanuth.shortme.model.db.LinkStatus.EXPIRED "
+            + "where l.shortCode in :codes and l.status = com.sanuth.shortme.model.db.LinkStatus.ACTIVE")
+    int markExpired(@Param("codes") Collection<String> codes);
+
+    @Query("select l.shortCode from ShortLink l")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    Stream<String> streamAllShortCodes();
+
+    // ShortCodeFilter catch-up, served by the insertedAt index
+    @Query("select l.shortCode from ShortLink l where l.insertedAt >= :since")
+    List<String> findShortCodesInsertedSince(@Param("since") Instant since);
 }
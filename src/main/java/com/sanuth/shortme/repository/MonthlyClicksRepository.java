@@ -0,0 +1,15 @@
+package com.sanuth.shortme.repository;
+
+import com.sanuth.shortme.model.db.MonthlyClicks;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface MonthlyClicksRepository extends JpaRepository<MonthlyClicks, MonthlyClicks.Key> {
+
+    // Range scan on the (shortCode, monthStart) primary key
+    List<MonthlyClicks> findByShortCodeAndMonthStartBetween(String shortCode, LocalDate from, LocalDate to);
+}
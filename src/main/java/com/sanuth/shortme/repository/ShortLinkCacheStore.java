@@ -0,0 +1,29 @@
+package com.sanuth.shortme.repository;
+
+import com.sanuth.shortme.model.cache.CachedShortLink;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Redis storage backend for cached short links. Selected with {@code shortme.cache.backend}.
+ */
+public interface ShortLinkCacheStore {
+
+    void save(CachedShortLink cached);
+
+    void saveAll(Collection<CachedShortLink> cached);
+
+    /** The returned entry's {@code ttl} holds the seconds until Redis expires it, or null if unknown. */
+    Optional<CachedShortLink> findById(String shortCode);
+
+    /** Pushes back the expiry of an existing entry without rewriting it. */
+    void expire(String shortCode, Duration ttl);
+
+    void deleteById(String shortCode);
+
+    void deleteAll(Collection<String> shortCodes);
+
+    boolean isAvailable();
+}
@@ -0,0 +1,61 @@
+package com.sanuth.shortme.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the invalidation listener once the application is up and keeps retrying while Redis is
+ * unreachable. Until the subscription is live, {@link LocalLinkCache} stays disabled.
+ */
+@Service
+public class CacheInvalidationSubscriber {
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationSubscriber.class);
+
+    private final RedisMessageListenerContainer listenerContainer;
+    private final long retryIntervalMs;
+    private final ScheduledExecutorService retryExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "cache-invalidation-subscriber");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CacheInvalidationSubscriber(RedisMessageListenerContainer listenerContainer,
+                                       @Value("${shortme.cache.local.subscribe-retry-ms:5000}") long retryIntervalMs) {
+        this.listenerContainer = listenerContainer;
+        this.retryIntervalMs = retryIntervalMs;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void subscribe() {
+        retryExecutor.execute(this::tryStart);
+    }
+
+    private void tryStart() {
+        try {
+            listenerContainer.start();
+            if (listenerContainer.isListening()) {
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Cache invalidation subscription failed, retrying in {} ms - {}", retryIntervalMs, e.getMessage());
+        }
+        // Reset the container so the next start() attempts a fresh subscription
+        listenerContainer.stop();
+        retryExecutor.schedule(this::tryStart, retryIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,206 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.model.cache.CachedShortLink;
+import com.sanuth.shortme.repository.LinkRepository;
+import com.sanuth.shortme.repository.ShortLinkCacheStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Keeps hot links in Redis past their TTL so popular codes never pay a synchronous database miss.
+ * Every cache hit is checked against the expiry of the Redis entry behind it:
+ *
+ * <ul>
+ *   <li>Entries hit at least {@code shortme.cache.sliding.min-hits} times while in the local cache
+ *       get a sliding TTL: once less than half of it is left, the Redis expiry is pushed back to a
+ *       full TTL without reloading.</li>
+ *   <li>Other entries are reloaded from the database ahead of expiry with XFetch probabilistic
+ *       early expiration: a hit refreshes when {@code remaining <= -delta * beta * ln(random)},
+ *       where {@code delta} is the observed reload time. The closer the expiry, the likelier a
+ *       refresh, so busy entries are refreshed just in time and idle ones are left to expire.</li>
+ * </ul>
+ *
+ * <p>Both run on a small background pool, at most once per code at a time, and are dropped when
+ * the pool is saturated. The TTL of an entry is the link's own {@code cacheTtlSeconds} or
+ * {@code shortme.cache.ttl-seconds}, but never runs past the link's {@code expiresAt}.
+ */
+@Service
+public class CacheRefresher {
+    private static final Logger log = LoggerFactory.getLogger(CacheRefresher.class);
+
+    private static final int QUEUE_CAPACITY = 1024;
+    private static final double LOAD_TIME_SMOOTHING = 0.1;
+
+    private final LinkRepository linkRepository;
+    private final ShortLinkCacheStore cacheStore;
+    private final LocalLinkCache localLinkCache;
+    private final long defaultTtlSeconds;
+    private final boolean enabled;
+    private final double beta;
+    private final long minDeltaMs;
+    private final int slidingMinHits;
+    private final ThreadPoolExecutor executor;
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    // Smoothed database reload time, the delta in the XFetch formula
+    private volatile double loadTimeMs;
+
+    private final Counter earlyRefreshCounter;
+    private final Counter slidingCounter;
+    private final Counter droppedCounter;
+
+    public CacheRefresher(LinkRepository linkRepository,
+                          ShortLinkCacheStore cacheStore,
+                          LocalLinkCache localLinkCache,
+                          MeterRegistry meterRegistry,
+                          @Value("${shortme.cache.ttl-seconds:3600}") long defaultTtlSeconds,
+                          @Value("${shortme.cache.refresh.enabled:true}") boolean enabled,
+                          @Value("${shortme.cache.refresh.beta:1.0}") double beta,
+                          @Value("${shortme.cache.refresh.min-delta-ms:100}") long minDeltaMs,
+                          @Value("${shortme.cache.refresh.threads:2}") int threads,
+                          @Value("${shortme.cache.sliding.min-hits:10}") int slidingMinHits) {
+        this.linkRepository = linkRepository;
+        this.cacheStore = cacheStore;
+        this.localLinkCache = localLinkCache;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.enabled = enabled;
+        this.beta = beta;
+        this.minDeltaMs = minDeltaMs;
+        this.slidingMinHits = slidingMinHits;
+        this.loadTimeMs = minDeltaMs;
+
+        this.earlyRefreshCounter = Counter.builder("shortme.cache.refreshes")
+                .description("Cache entries refreshed in the background before they expired")
+                .tag("type", "early")
+                .register(meterRegistry);
+        this.slidingCounter = Counter.builder("shortme.cache.refreshes")
+                .description("Cache entries refreshed in the background before they expired")
+                .tag("type", "sliding")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("shortme.cache.refreshes.dropped")
+                .description("Background refreshes skipped because the refresh pool was saturated")
+                .register(meterRegistry);
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), r -> {
+            Thread thread = new Thread(r, "cache-refresh-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** TTL for the Redis entry of this link; zero or less means it has expired and must not be cached. */
+    public long ttlSeconds(CachedShortLink cached) {
+        Long own = cached.getCacheTtlSeconds();
+        long ttl = own != null && own > 0 ? own : defaultTtlSeconds;
+        if (cached.getExpiresAt() != null) {
+            ttl = Math.min(ttl, Duration.between(Instant.now(), cached.getExpiresAt()).getSeconds());
+        }
+        return ttl;
+    }
+
+    /** Called on every cache hit; schedules a refresh when the entry is due for one. */
+    public void onHit(String shortCode, LocalLinkCache.Entry entry) {
+        long now = System.currentTimeMillis();
+        if (!enabled || entry.redisExpiresAtMs() == 0 || !entry.isRedirectable(now)) {
+            return;
+        }
+        long remainingMs = entry.redisExpiresAtMs() - now;
+        int hits = entry.recordHit();
+
+        if (hits >= slidingMinHits && remainingMs > 0 && remainingMs < entry.ttlSeconds() * 500) {
+            schedule(shortCode, () -> extend(shortCode, entry), slidingCounter);
+            return;
+        }
+        double deltaMs = Math.max(minDeltaMs, loadTimeMs);
+        if (remainingMs + deltaMs * beta * Math.log(ThreadLocalRandom.current().nextDouble()) <= 0) {
+            schedule(shortCode, () -> reload(shortCode), earlyRefreshCounter);
+        }
+    }
+
+    // Counts only refreshes that wrote to Redis, not the ones that found nothing to do
+    private void schedule(String shortCode, BooleanSupplier refresh, Counter counter) {
+        if (!refreshing.add(shortCode)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    if (refresh.getAsBoolean()) {
+                        counter.increment();
+                    }
+                } catch (Exception e) {
+                    log.warn("Background cache refresh failed for code: {} - {}", shortCode, e.getMessage());
+                } finally {
+                    refreshing.remove(shortCode);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(shortCode);
+            droppedCounter.increment();
+        }
+    }
+
+    private boolean extend(String shortCode, LocalLinkCache.Entry entry) {
+        long now = System.currentTimeMillis();
+        long ttlMs = entry.ttlSeconds() * 1000;
+        if (entry.linkExpiresAtMs() != 0) {
+            ttlMs = Math.min(ttlMs, entry.linkExpiresAtMs() - now);
+        }
+        if (ttlMs < 1000) {
+            return false;
+        }
+        cacheStore.expire(shortCode, Duration.ofMillis(ttlMs));
+        entry.extendedTo(now + ttlMs);
+        log.debug("Extended cache TTL for hot code: {}", shortCode);
+        return true;
+    }
+
+    private boolean reload(String shortCode) {
+        long loadEpoch = localLinkCache.epoch(shortCode);
+        long start = System.nanoTime();
+        Optional<CachedShortLink> link = linkRepository.findCachedByShortCode(shortCode);
+        double elapsedMs = (System.nanoTime() - start) / 1_000_000.0;
+        loadTimeMs += (elapsedMs - loadTimeMs) * LOAD_TIME_SMOOTHING;
+
+        // Deleted or invalidated meanwhile; the invalidation already cleared the caches
+        if (link.isEmpty() || localLinkCache.epoch(shortCode) != loadEpoch) {
+            return false;
+        }
+        CachedShortLink cached = link.get();
+        long ttl = ttlSeconds(cached);
+        if (ttl <= 0) {
+            return false;
+        }
+        cached.setTtl(ttl);
+        cacheStore.save(cached);
+        localLinkCache.putIfUnchanged(shortCode,
+                LocalLinkCache.Entry.of(cached, ttl, System.currentTimeMillis() + ttl * 1000), loadEpoch);
+        log.debug("Refreshed cache entry ahead of expiry for code: {}", shortCode);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,310 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.model.event.ClickBreakdown;
+import com.sanuth.shortme.util.ClickAttribution;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects clicks in per-code {@link LongAdder}s and writes them to Redis in pipelined batches,
+ * either every {@code shortme.clicks.flush-interval-ms} or once {@code shortme.clicks.flush-threshold}
+ * clicks are pending, whichever comes first.
+ *
+ * <p>Recording never blocks. A flush swaps in a fresh map and drains the old one; the old map is
+ * drained once more on the next flush to pick up increments that raced with the swap. Memory is
+ * bounded by {@code shortme.clicks.max-pending-codes}; clicks for new codes beyond that are dropped.
+ * Clicks are attributed to the day and hour they are flushed.
+ *
+ * <p>Visitor fingerprints, referrers and countries are collected per code alongside the count and
+ * written in the same pipeline; see {@link RedisService#incrementClicks}. Each of the three holds at
+ * most {@code shortme.clicks.max-attribution-per-code} values per code; a full collection requests
+ * a flush, and values that arrive before it runs are dropped and counted.
+ *
+ * <p>Each batch is also appended to the click stream through {@link ClickEventLog}, which spools it
+ * to disk when Redis is down, so the durable hourly counts do not depend on the counter write.
+ * Clicks the counter write failed for are only counted as dropped if they did not reach the stream
+ * either.
+ */
+@Service
+public class ClickAggregationService {
+    private static final Logger log = LoggerFactory.getLogger(ClickAggregationService.class);
+
+    private final RedisService redisService;
+    private final ClickEventLog clickEventLog;
+    private final int maxPendingCodes;
+    private final int maxAttributionPerCode;
+    private final long flushThreshold;
+    private final ScheduledExecutorService flushExecutor;
+
+    private volatile ConcurrentHashMap<String, PendingClicks> pending = new ConcurrentHashMap<>();
+    private ConcurrentHashMap<String, PendingClicks> retired = new ConcurrentHashMap<>();
+    private final LongAdder pendingClicks = new LongAdder();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private volatile long lastFlushMs = System.currentTimeMillis();
+
+    private final Counter flushedCounter;
+    private final Counter droppedCounter;
+    private final Counter droppedVisitorCounter;
+    private final Counter droppedReferrerCounter;
+    private final Counter droppedCountryCounter;
+    private final Timer flushTimer;
+
+    public ClickAggregationService(RedisService redisService,
+                                   ClickEventLog clickEventLog,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${shortme.clicks.flush-interval-ms:1000}") long flushIntervalMs,
+                                   @Value("${shortme.clicks.flush-threshold:10000}") long flushThreshold,
+                                   @Value("${shortme.clicks.max-pending-codes:100000}") int maxPendingCodes,
+                                   @Value("${shortme.clicks.max-attribution-per-code:1000}") int maxAttributionPerCode) {
+        this.redisService = redisService;
+        this.clickEventLog = clickEventLog;
+        this.flushThreshold = flushThreshold;
+        this.maxPendingCodes = maxPendingCodes;
+        this.maxAttributionPerCode = maxAttributionPerCode;
+
+        this.flushedCounter = Counter.builder("shortme.clicks.flushed")
+                .description("Clicks written to Redis")
+                .register(meterRegistry);
+        this.droppedCounter = Counter.builder("shortme.clicks.dropped")
+                .description("Clicks discarded because the buffer was full or the flush failed")
+                .register(meterRegistry);
+        this.droppedVisitorCounter = attributionDroppedCounter(meterRegistry, "visitor");
+        this.droppedReferrerCounter = attributionDroppedCounter(meterRegistry, "referrer");
+        this.droppedCountryCounter = attributionDroppedCounter(meterRegistry, "country");
+        this.flushTimer = Timer.builder("shortme.clicks.flush")
+                .description("Time spent writing one click batch to Redis")
+                .register(meterRegistry);
+        Gauge.builder("shortme.clicks.pending.codes", this, s -> s.pending.size())
+                .description("Distinct codes waiting to be flushed")
+                .register(meterRegistry);
+        Gauge.builder("shortme.clicks.flush.lag", this, s -> (System.currentTimeMillis() - s.lastFlushMs) / 1000.0)
+                .description("Seconds since clicks were last written to Redis, or found nothing to write")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        this.flushExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "click-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flushSafely, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static Counter attributionDroppedCounter(MeterRegistry meterRegistry, String kind) {
+        return Counter.builder("shortme.clicks.attribution.dropped")
+                .description("Attribution values discarded because the code's collection was full; the clicks still count")
+                .tag("kind", kind)
+                .register(meterRegistry);
+    }
+
+    public void record(String code) {
+        record(code, 1);
+    }
+
+    public void record(String code, long clicks) {
+        PendingClicks codeClicks = pendingFor(code, clicks);
+        if (codeClicks != null) {
+            codeClicks.clicks.add(clicks);
+            afterRecord(clicks);
+        }
+    }
+
+    /** Also attributes the clicks; any of visitor, referrer and country may be absent. */
+    public void record(String code, long clicks, long visitorHash, String referrer, String country) {
+        PendingClicks codeClicks = pendingFor(code, clicks);
+        if (codeClicks == null) {
+            return;
+        }
+        codeClicks.clicks.add(clicks);
+        if (visitorHash != ClickAttribution.NO_VISITOR) {
+            Set<Long> visitors = codeClicks.visitors;
+            if (visitors.size() < maxAttributionPerCode || visitors.contains(visitorHash)) {
+                visitors.add(visitorHash);
+            } else {
+                attributionFull(droppedVisitorCounter);
+            }
+        }
+        if (referrer != null) {
+            addCount(codeClicks.referrers, referrer, clicks, droppedReferrerCounter);
+        }
+        if (country != null) {
+            addCount(codeClicks.countries, country, clicks, droppedCountryCounter);
+        }
+        afterRecord(clicks);
+    }
+
+    private void addCount(ConcurrentHashMap<String, LongAdder> counts, String key, long clicks, Counter dropped) {
+        LongAdder count = counts.get(key);
+        if (count == null) {
+            if (counts.size() >= maxAttributionPerCode) {
+                attributionFull(dropped);
+                return;
+            }
+            count = counts.computeIfAbsent(key, k -> new LongAdder());
+        }
+        count.add(clicks);
+    }
+
+    // The flush writes the collection out (visitors into the HyperLogLog) and a fresh one takes its place
+    private void attributionFull(Counter dropped) {
+        dropped.increment();
+        requestFlush();
+    }
+
+    // Null if the code is new and the buffer is full; the clicks are then dropped
+    private PendingClicks pendingFor(String code, long clicks) {
+        ConcurrentHashMap<String, PendingClicks> current = pending;
+        PendingClicks codeClicks = current.get(code);
+        if (codeClicks == null) {
+            if (current.size() >= maxPendingCodes) {
+                droppedCounter.increment(clicks);
+                requestFlush();
+                return null;
+            }
+            codeClicks = current.computeIfAbsent(code, k -> new PendingClicks());
+        }
+        return codeClicks;
+    }
+
+    private void afterRecord(long clicks) {
+        pendingClicks.add(clicks);
+        if (pendingClicks.sum() >= flushThreshold) {
+            requestFlush();
+        }
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            try {
+                flushExecutor.execute(this::flushSafely);
+            } catch (RejectedExecutionException e) {
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Click flush failed - {}", e.getMessage());
+        }
+    }
+
+    // Runs on the flush thread only, or on the caller once the executor has stopped
+    public void flush() {
+        flushRequested.set(false);
+
+        ConcurrentHashMap<String, PendingClicks> previous = retired;
+        retired = pending;
+        pending = new ConcurrentHashMap<>();
+        pendingClicks.reset();
+
+        Map<String, Long> batch = new HashMap<>();
+        Map<String, ClickBreakdown> breakdowns = new HashMap<>();
+        drainInto(previous, batch, breakdowns);
+        drainInto(retired, batch, breakdowns);
+        if (batch.isEmpty()) {
+            lastFlushMs = System.currentTimeMillis();
+            return;
+        }
+
+        long clicks = 0;
+        for (long count : batch.values()) {
+            clicks += count;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        boolean persisted = clickEventLog.append(batch, now);
+
+        long start = System.nanoTime();
+        try {
+            redisService.incrementClicks(batch, breakdowns, now);
+            flushedCounter.increment(clicks);
+            lastFlushMs = System.currentTimeMillis();
+        } catch (Exception e) {
+            if (persisted) {
+                log.warn("Failed to add {} clicks for {} codes to the Redis counters, kept in the click stream - {}",
+                        clicks, batch.size(), e.getMessage());
+            } else {
+                droppedCounter.increment(clicks);
+                log.warn("Failed to flush {} clicks for {} codes - {}", clicks, batch.size(), e.getMessage());
+            }
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static void drainInto(Map<String, PendingClicks> source, Map<String, Long> batch,
+                                  Map<String, ClickBreakdown> breakdowns) {
+        for (Map.Entry<String, PendingClicks> entry : source.entrySet()) {
+            PendingClicks codeClicks = entry.getValue();
+            long count = codeClicks.clicks.sumThenReset();
+            if (count > 0) {
+                batch.merge(entry.getKey(), count, Long::sum);
+            }
+            if (codeClicks.isAttributed()) {
+                codeClicks.drainInto(breakdowns.computeIfAbsent(entry.getKey(), k -> new ClickBreakdown()));
+            }
+        }
+    }
+
+    private static final class PendingClicks {
+        final LongAdder clicks = new LongAdder();
+        final Set<Long> visitors = ConcurrentHashMap.newKeySet();
+        final ConcurrentHashMap<String, LongAdder> referrers = new ConcurrentHashMap<>();
+        final ConcurrentHashMap<String, LongAdder> countries = new ConcurrentHashMap<>();
+
+        boolean isAttributed() {
+            return !visitors.isEmpty() || !referrers.isEmpty() || !countries.isEmpty();
+        }
+
+        // Removes as it goes, so values added concurrently are left for the next drain
+        void drainInto(ClickBreakdown breakdown) {
+            for (Iterator<Long> it = visitors.iterator(); it.hasNext(); ) {
+                breakdown.getVisitors().add(it.next());
+                it.remove();
+            }
+            drainCounts(referrers, breakdown.getReferrers());
+            drainCounts(countries, breakdown.getCountries());
+        }
+
+        private static void drainCounts(Map<String, LongAdder> source, Map<String, Long> target) {
+            for (Map.Entry<String, LongAdder> entry : source.entrySet()) {
+                long count = entry.getValue().sumThenReset();
+                if (count > 0) {
+                    target.merge(entry.getKey(), count, Long::sum);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flushExecutor.shutdown();
+        flushExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        // Two passes so both the live and the retired map are written out
+        flush();
+        flush();
+    }
+}
@@ -0,0 +1,258 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.model.event.ClickBatch;
+import com.sanuth.shortme.util.ClickBatchCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Appends every flushed click batch to the Redis click stream, from which
+ * {@link ClickStreamConsumer} builds the durable {@code hourly_clicks} table. Batches larger than
+ * {@code shortme.clicks.stream.max-codes-per-batch} codes are split, each part with its own id.
+ *
+ * <p>If Redis cannot be written, the batches go to an append-only segment file under
+ * {@code shortme.clicks.stream.spool-dir} instead, synced to disk before returning. Closed
+ * segments are replayed into the stream every {@code shortme.clicks.stream.replay-interval-ms}
+ * and deleted once appended, including segments left behind by a previous run. A batch may end
+ * up in the stream twice, e.g. when a pipeline failed halfway; the consumer skips repeated ids.
+ *
+ * <p>The consumer only remembers ids for {@code shortme.clicks.stream.dedup-retention-hours}, so
+ * a segment started longer ago than that, less an hour for consumer lag, is not replayed: it is
+ * renamed to {@code quarantined-*} in the spool directory, counted and logged. Replaying it by
+ * hand is safe only if none of its batches reached the stream before.
+ */
+@Service
+public class ClickEventLog {
+    private static final Logger log = LoggerFactory.getLogger(ClickEventLog.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String QUARANTINE_PREFIX = "quarantined-";
+    private static final Duration REPLAY_MARGIN = Duration.ofHours(1);
+    private static final int REPLAY_CHUNK = 100;
+
+    private final RedisService redisService;
+    private final boolean enabled;
+    private final int maxCodesPerBatch;
+    private final long maxLength;
+    private final Path spoolDir;
+    private final long segmentMaxBytes;
+    private final long maxSegmentAgeMs;
+
+    // Guards the active segment; replay closes it so it never reads a file that is still written
+    private final Object spoolLock = new Object();
+    private Path activeSegment;
+    private long segmentSequence;
+    private final AtomicLong spooledBytes = new AtomicLong();
+
+    private final Counter appendedCounter;
+    private final Counter spooledCounter;
+    private final Counter replayedCounter;
+    private final Counter lostCounter;
+    private final Counter quarantinedCounter;
+
+    public ClickEventLog(RedisService redisService,
+                         MeterRegistry meterRegistry,
+                         @Value("${shortme.clicks.stream.enabled:true}") boolean enabled,
+                         @Value("${shortme.clicks.stream.max-codes-per-batch:1000}") int maxCodesPerBatch,
+                         @Value("${shortme.clicks.stream.max-length:1000000}") long maxLength,
+                         @Value("${shortme.clicks.stream.spool-dir:${java.io.tmpdir}/shortme-click-spool}") String spoolDir,
+                         @Value("${shortme.clicks.stream.segment-max-bytes:16777216}") long segmentMaxBytes,
+                         @Value("${shortme.clicks.stream.dedup-retention-hours:72}") long dedupRetentionHours) {
+        this.redisService = redisService;
+        this.enabled = enabled;
+        this.maxCodesPerBatch = maxCodesPerBatch;
+        this.maxLength = maxLength;
+        this.spoolDir = Path.of(spoolDir);
+        this.segmentMaxBytes = segmentMaxBytes;
+        this.maxSegmentAgeMs = Duration.ofHours(dedupRetentionHours).minus(REPLAY_MARGIN).toMillis();
+
+        this.appendedCounter = Counter.builder("shortme.clicks.stream.appended")
+                .description("Click batches appended to the Redis click stream")
+                .register(meterRegistry);
+        this.spooledCounter = Counter.builder("shortme.clicks.stream.spooled")
+                .description("Click batches written to a local segment while Redis was unavailable")
+                .register(meterRegistry);
+        this.replayedCounter = Counter.builder("shortme.clicks.stream.replayed")
+                .description("Spooled click batches appended to the stream after Redis came back")
+                .register(meterRegistry);
+        this.lostCounter = Counter.builder("shortme.clicks.stream.lost")
+                .description("Click batches that could be written neither to Redis nor to disk")
+                .register(meterRegistry);
+        this.quarantinedCounter = Counter.builder("shortme.clicks.stream.quarantined")
+                .description("Spooled click batches not replayed because the consumer may have forgotten their ids")
+                .register(meterRegistry);
+        Gauge.builder("shortme.clicks.stream.spool.bytes", spooledBytes, AtomicLong::get)
+                .description("Bytes of click batches waiting in local segments")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Appends the clicks of one flush, spooling them locally if Redis is unavailable. Returns whether
+     * they were kept in the stream or a segment, i.e. will reach {@code hourly_clicks}.
+     */
+    public boolean append(Map<String, Long> clicksByCode, LocalDateTime flushedAt) {
+        if (!enabled || clicksByCode.isEmpty()) {
+            return false;
+        }
+        List<ClickBatch> batches = split(clicksByCode, flushedAt.truncatedTo(ChronoUnit.HOURS));
+        try {
+            redisService.appendClickBatches(batches, maxLength);
+            appendedCounter.increment(batches.size());
+            return true;
+        } catch (Exception e) {
+            log.warn("Click stream unavailable, spooling {} batches - {}", batches.size(), e.getMessage());
+            return spool(batches);
+        }
+    }
+
+    private List<ClickBatch> split(Map<String, Long> clicksByCode, LocalDateTime hour) {
+        List<ClickBatch> batches = new ArrayList<>(clicksByCode.size() / maxCodesPerBatch + 1);
+        Map<String, Long> part = new HashMap<>();
+        for (Map.Entry<String, Long> entry : clicksByCode.entrySet()) {
+            part.put(entry.getKey(), entry.getValue());
+            if (part.size() == maxCodesPerBatch) {
+                batches.add(new ClickBatch(UUID.randomUUID().toString(), hour, part));
+                part = new HashMap<>();
+            }
+        }
+        if (!part.isEmpty()) {
+            batches.add(new ClickBatch(UUID.randomUUID().toString(), hour, part));
+        }
+        return batches;
+    }
+
+    private boolean spool(List<ClickBatch> batches) {
+        List<String> lines = batches.stream().map(ClickBatchCodec::toLine).toList();
+        synchronized (spoolLock) {
+            try {
+                if (activeSegment == null || Files.size(activeSegment) >= segmentMaxBytes) {
+                    Files.createDirectories(spoolDir);
+                    activeSegment = spoolDir.resolve(String.format("%s%013d-%06d%s", SEGMENT_PREFIX,
+                            System.currentTimeMillis(), segmentSequence++ % 1_000_000, SEGMENT_SUFFIX));
+                }
+                long before = Files.exists(activeSegment) ? Files.size(activeSegment) : 0;
+                Files.write(activeSegment, lines, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+                spooledBytes.addAndGet(Files.size(activeSegment) - before);
+                spooledCounter.increment(batches.size());
+                return true;
+            } catch (IOException e) {
+                lostCounter.increment(batches.size());
+                log.warn("Failed to spool {} click batches to {} - {}", batches.size(), spoolDir, e.getMessage());
+                return false;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shortme.clicks.stream.replay-interval-ms:10000}")
+    void replaySafely() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            replay();
+        } catch (Exception e) {
+            log.warn("Click spool replay failed, retrying later - {}", e.getMessage());
+        }
+    }
+
+    /** Appends every closed segment to the stream, oldest first, and deletes it. Returns batches replayed. */
+    public int replay() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        synchronized (spoolLock) {
+            if (!Files.isDirectory(spoolDir)) {
+                return 0;
+            }
+            activeSegment = null;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(spoolDir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+                files.forEach(segments::add);
+            }
+        }
+        segments.sort(null);
+
+        int replayed = 0;
+        long remainingBytes = 0;
+        for (Path segment : segments) {
+            remainingBytes += Files.size(segment);
+        }
+        spooledBytes.set(remainingBytes);
+        for (Path segment : segments) {
+            long size = Files.size(segment);
+            List<ClickBatch> batches = readSegment(segment);
+            if (System.currentTimeMillis() - startedAtMs(segment) > maxSegmentAgeMs) {
+                quarantine(segment, batches.size());
+                spooledBytes.addAndGet(-size);
+                continue;
+            }
+            for (int i = 0; i < batches.size(); i += REPLAY_CHUNK) {
+                redisService.appendClickBatches(batches.subList(i, Math.min(i + REPLAY_CHUNK, batches.size())), maxLength);
+            }
+            Files.delete(segment);
+            spooledBytes.addAndGet(-size);
+            replayedCounter.increment(batches.size());
+            replayed += batches.size();
+        }
+        if (replayed > 0) {
+            log.info("Replayed {} spooled click batches from {} segments", replayed, segments.size());
+        }
+        return replayed;
+    }
+
+    // Segment names start with the time the segment was opened, before any batch in it was written
+    private static long startedAtMs(Path segment) throws IOException {
+        String name = segment.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), SEGMENT_PREFIX.length() + 13));
+        } catch (RuntimeException e) {
+            return Files.getLastModifiedTime(segment).toMillis();
+        }
+    }
+
+    private void quarantine(Path segment, int batches) throws IOException {
+        Path target = segment.resolveSibling(QUARANTINE_PREFIX + segment.getFileName());
+        Files.move(segment, target, StandardCopyOption.REPLACE_EXISTING);
+        quarantinedCounter.increment(batches);
+        log.warn("Not replaying {} click batches from {}, it is older than the consumer's dedup retention; moved to {}",
+                batches, segment.getFileName(), target);
+    }
+
+    // A line cut short by a crash mid-write is skipped, the rest of the segment is kept
+    private static List<ClickBatch> readSegment(Path segment) throws IOException {
+        List<ClickBatch> batches = new ArrayList<>();
+        for (String line : Files.readAllLines(segment, StandardCharsets.UTF_8)) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                batches.add(ClickBatchCodec.fromLine(line));
+            } catch (RuntimeException e) {
+                log.warn("Skipping malformed click batch in {} - {}", segment.getFileName(), e.getMessage());
+            }
+        }
+        return batches;
+    }
+}
@@ -0,0 +1,234 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.model.event.ClickEvent;
+import com.sanuth.shortme.util.ClickAttribution;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.UnaryOperator;
+
+/**
+ * Hands click events from request threads to dedicated consumer threads, so a redirect never
+ * waits on analytics. The queue is a lock-free {@link ConcurrentLinkedQueue} bounded by a
+ * {@link Semaphore} of {@code shortme.clicks.queue.capacity} permits.
+ *
+ * <p>When the queue is full the {@link OverflowPolicy} decides what happens to the request thread.
+ * Idle consumers park until a click is queued, so a quiet node does not wake them.
+ *
+ * <p>Clicks may carry attribution taken from the request: a visitor fingerprint salted with
+ * {@code shortme.analytics.visitor-salt}, which must be the same on every node for unique visitor
+ * counts to merge, the referrer host, and the country from {@code shortme.analytics.country-header}
+ * as set by the CDN or proxy in front.
+ */
+@Service
+public class ClickRecorder {
+    private static final Logger log = LoggerFactory.getLogger(ClickRecorder.class);
+
+    public enum OverflowPolicy {
+        /** Discard the click immediately. */
+        DROP,
+        /** Above the high watermark keep one click in {@code sample-every}, weighted to keep totals unbiased. */
+        SAMPLE,
+        /** Wait up to {@code block-timeout-ms} for space, then discard. */
+        BLOCK
+    }
+
+    private static final int CONSUMER_BATCH_SIZE = 256;
+    // Only a safety net, consumers are unparked as soon as a click is queued
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final ClickAggregationService clickAggregationService;
+    private final ConcurrentLinkedQueue<ClickEvent> queue = new ConcurrentLinkedQueue<>();
+    private final Semaphore capacity;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleEvery;
+    private final int highWatermark;
+    private final long blockTimeoutMs;
+    private final String visitorSalt;
+    private final String countryHeader;
+    private final List<Thread> consumers = new ArrayList<>();
+    private final AtomicInteger idleConsumers = new AtomicInteger();
+    private volatile boolean running = true;
+
+    private final Counter droppedCounter;
+    private final Counter sampledCounter;
+
+    public ClickRecorder(ClickAggregationService clickAggregationService,
+                         MeterRegistry meterRegistry,
+                         @Value("${shortme.clicks.queue.capacity:65536}") int queueCapacity,
+                         @Value("${shortme.clicks.queue.consumers:1}") int consumerCount,
+                         @Value("${shortme.clicks.queue.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+                         @Value("${shortme.clicks.queue.sample-every:10}") int sampleEvery,
+                         @Value("${shortme.clicks.queue.block-timeout-ms:50}") long blockTimeoutMs,
+                         @Value("${shortme.analytics.visitor-salt:}") String visitorSalt,
+                         @Value("${shortme.analytics.country-header:CF-IPCountry}") String countryHeader) {
+        this.clickAggregationService = clickAggregationService;
+        this.queueCapacity = queueCapacity;
+        this.capacity = new Semaphore(queueCapacity);
+        this.overflowPolicy = overflowPolicy;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.highWatermark = queueCapacity - queueCapacity / 5;
+        this.blockTimeoutMs = blockTimeoutMs;
+        this.visitorSalt = visitorSalt;
+        this.countryHeader = countryHeader;
+
+        this.droppedCounter = Counter.builder("shortme.clicks.queue.dropped")
+                .description("Click events rejected because the queue was full")
+                .register(meterRegistry);
+        this.sampledCounter = Counter.builder("shortme.clicks.queue.sampled")
+                .description("Click events skipped by sampling and folded into a weighted event")
+                .register(meterRegistry);
+        Gauge.builder("shortme.clicks.queue.depth", this, ClickRecorder::depth)
+                .description("Click events waiting for a consumer")
+                .register(meterRegistry);
+        Gauge.builder("shortme.clicks.queue.lag", this, ClickRecorder::lagSeconds)
+                .description("Age in seconds of the oldest click event waiting for a consumer")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+
+        for (int i = 0; i < consumerCount; i++) {
+            Thread consumer = new Thread(this::consume, "click-consumer-" + i);
+            consumer.setDaemon(true);
+            consumer.start();
+            consumers.add(consumer);
+        }
+    }
+
+    public void record(String code) {
+        record(code, ClickAttribution.NO_VISITOR, null, null, overflowPolicy == OverflowPolicy.BLOCK);
+    }
+
+    /** Records a click attributed from the client address and the request headers, looked up by name. */
+    public void record(String code, String clientAddress, UnaryOperator<String> headers) {
+        recordAttributed(code, clientAddress, headers, overflowPolicy == OverflowPolicy.BLOCK);
+    }
+
+    /** For event-loop threads: under the BLOCK policy a full queue drops the click instead of waiting. */
+    public void recordWithoutBlocking(String code, String clientAddress, UnaryOperator<String> headers) {
+        recordAttributed(code, clientAddress, headers, false);
+    }
+
+    private void recordAttributed(String code, String clientAddress, UnaryOperator<String> headers, boolean mayBlock) {
+        long visitorHash = clientAddress != null
+                ? ClickAttribution.fingerprint(visitorSalt, clientAddress, headers.apply("User-Agent"))
+                : ClickAttribution.NO_VISITOR;
+        record(code, visitorHash, ClickAttribution.referrerHost(headers.apply("Referer")),
+                ClickAttribution.countryCode(headers.apply(countryHeader)), mayBlock);
+    }
+
+    private void record(String code, long visitorHash, String referrer, String country, boolean mayBlock) {
+        long weight = 1;
+        if (overflowPolicy == OverflowPolicy.SAMPLE && depth() >= highWatermark) {
+            if (ThreadLocalRandom.current().nextInt(sampleEvery) != 0) {
+                sampledCounter.increment();
+                return;
+            }
+            weight = sampleEvery;
+        }
+
+        if (!acquireSlot(mayBlock)) {
+            droppedCounter.increment(weight);
+            return;
+        }
+        queue.offer(new ClickEvent(code, System.currentTimeMillis(), weight, visitorHash, referrer, country));
+        // One volatile read while consumers are busy; only a quiet queue pays for the unpark
+        if (idleConsumers.get() > 0) {
+            wakeConsumers();
+        }
+    }
+
+    private void wakeConsumers() {
+        for (Thread consumer : consumers) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private boolean acquireSlot(boolean mayBlock) {
+        if (capacity.tryAcquire()) {
+            return true;
+        }
+        if (!mayBlock) {
+            return false;
+        }
+        try {
+            return capacity.tryAcquire(blockTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public int depth() {
+        return queueCapacity - capacity.availablePermits();
+    }
+
+    // Read on scrape only, so the redirect path pays nothing for it
+    private double lagSeconds() {
+        ClickEvent oldest = queue.peek();
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.getTimestamp()) / 1000.0;
+    }
+
+    private void consume() {
+        while (running) {
+            if (drain(CONSUMER_BATCH_SIZE) > 0) {
+                continue;
+            }
+            // Announced before the queue is checked again, so a click offered in between either
+            // is seen here or sees this consumer idle and unparks it
+            idleConsumers.incrementAndGet();
+            try {
+                if (running && queue.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            } finally {
+                idleConsumers.decrementAndGet();
+            }
+        }
+    }
+
+    private int drain(int max) {
+        int drained = 0;
+        ClickEvent event;
+        while (drained < max && (event = queue.poll()) != null) {
+            capacity.release();
+            drained++;
+            try {
+                if (event.hasAttribution()) {
+                    clickAggregationService.record(event.getShortCode(), event.getWeight(),
+                            event.getVisitorHash(), event.getReferrer(), event.getCountry());
+                } else {
+                    clickAggregationService.record(event.getShortCode(), event.getWeight());
+                }
+            } catch (Exception e) {
+                log.warn("Failed to record click for code: {} - {}", event.getShortCode(), e.getMessage());
+            }
+        }
+        return drained;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        wakeConsumers();
+        for (Thread consumer : consumers) {
+            consumer.join(TimeUnit.SECONDS.toMillis(5));
+        }
+        // Hand whatever is left to the aggregator, which flushes on its own shutdown
+        drain(Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,231 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.repository.ClickRollupRunRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compacts a day of clicks into {@code monthly_clicks} rows, so click history outlives the
+ * {@link RedisService#DAILY_KEY_TTL} window of the Redis day counters.
+ *
+ * <p>A day is rolled up once it is over, i.e. from the next day on, and at most
+ * {@code shortme.analytics.rollup.lookback-days} back. The monthly upserts and the
+ * {@code click_rollup_run} marker for the day are written in one transaction; the marker insert
+ * conflicts if another node already rolled the day up, so every day is added exactly once.
+ *
+ * <p>With {@code shortme.analytics.rollup.source=hourly} the day is summed from
+ * {@code hourly_clicks} in one statement, so the history does not depend on Redis at all. Batches
+ * for the day that the stream consumer adds afterwards, e.g. replayed from a spool, go straight to
+ * {@code monthly_clicks}; both sides take the transaction-level advisory lock of the day, see
+ * {@link #lockDays}, so none is counted twice or missed. With {@code redis} the day's codes are read
+ * from its code set and their Redis day counters with one MGET per {@value #READ_CHUNK} codes, for
+ * deployments without the click stream; a Redis flush then loses the days not rolled up yet.
+ */
+@Service
+public class ClickRollupService {
+    private static final Logger log = LoggerFactory.getLogger(ClickRollupService.class);
+
+    private static final int READ_CHUNK = 1000;
+    private static final String INSERT_RUN = "insert into click_rollup_run (click_day, rolled_up_at, codes, clicks) "
+            + "values (?, ?, ?, ?) on conflict do nothing";
+    static final String UPSERT_MONTH = "insert into monthly_clicks (short_code, month_start, clicks) "
+            + "values (?, ?, ?) on conflict (short_code, month_start) "
+            + "do update set clicks = monthly_clicks.clicks + excluded.clicks";
+    private static final String SUM_DAY_FROM_HOURLY = "select count(distinct short_code), coalesce(sum(clicks), 0) "
+            + "from hourly_clicks where hour_start >= ? and hour_start < ?";
+    private static final String UPSERT_MONTH_FROM_HOURLY = "insert into monthly_clicks (short_code, month_start, clicks) "
+            + "select short_code, ?, sum(clicks) from hourly_clicks where hour_start >= ? and hour_start < ? "
+            + "group by short_code on conflict (short_code, month_start) "
+            + "do update set clicks = monthly_clicks.clicks + excluded.clicks";
+    // First key of the two-key advisory locks; the second is the epoch day
+    private static final int DAY_LOCK_CLASS = 0x636c6b73;
+
+    private final RedisService redisService;
+    private final RedisTemplate<String, String> stringRedisTemplate;
+    private final ClickRollupRunRepository rollupRunRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final int lookbackDays;
+    private final int batchSize;
+    private final boolean fromHourly;
+
+    private final Timer rollupTimer;
+    private final Counter rolledUpClicks;
+
+    public ClickRollupService(RedisService redisService,
+                              RedisTemplate<String, String> stringRedisTemplate,
+                              ClickRollupRunRepository rollupRunRepository,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${shortme.analytics.rollup.enabled:true}") boolean enabled,
+                              @Value("${shortme.analytics.rollup.lookback-days:28}") int lookbackDays,
+                              @Value("${shortme.analytics.rollup.batch-size:500}") int batchSize,
+                              @Value("${shortme.analytics.rollup.source:hourly}") String source) {
+        this.redisService = redisService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.rollupRunRepository = rollupRunRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.lookbackDays = Math.min(lookbackDays, (int) RedisService.DAILY_KEY_TTL.toDays() - 1);
+        this.batchSize = batchSize;
+        this.fromHourly = isHourlySource(source);
+
+        this.rollupTimer = Timer.builder("shortme.analytics.rollup")
+                .description("Time spent rolling up one day of clicks")
+                .register(meterRegistry);
+        this.rolledUpClicks = Counter.builder("shortme.analytics.rollup.clicks")
+                .description("Clicks moved from Redis day counters into monthly rows")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${shortme.analytics.rollup.interval-ms:3600000}",
+            fixedDelayString = "${shortme.analytics.rollup.interval-ms:3600000}")
+    void rollUpSafely() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            rollUpCompletedDays(LocalDate.now());
+        } catch (Exception e) {
+            log.warn("Click rollup failed - {}", e.getMessage());
+        }
+    }
+
+    /** Rolls up every finished day in the lookback window that was not rolled up yet. */
+    public void rollUpCompletedDays(LocalDate today) {
+        LocalDate first = today.minusDays(lookbackDays);
+        LocalDate last = today.minusDays(1);
+        Set<LocalDate> done = new HashSet<>(rollupRunRepository.findRolledUpDays(first, last));
+        for (LocalDate day = first; !day.isAfter(last); day = day.plusDays(1)) {
+            if (!done.contains(day)) {
+                rollUp(day);
+            }
+        }
+    }
+
+    static boolean isHourlySource(String source) {
+        if (!"hourly".equals(source) && !"redis".equals(source)) {
+            throw new IllegalArgumentException("shortme.analytics.rollup.source must be hourly or redis: " + source);
+        }
+        return "hourly".equals(source);
+    }
+
+    /**
+     * Takes the transaction-level advisory lock of each day, in order so two callers cannot
+     * deadlock. Must run inside a transaction; the locks are released when it ends.
+     */
+    static void lockDays(JdbcTemplate jdbcTemplate, Collection<LocalDate> days) {
+        days.stream().sorted().forEach(day -> jdbcTemplate.query("select pg_advisory_xact_lock(?, ?)",
+                (RowCallbackHandler) rs -> { }, DAY_LOCK_CLASS, (int) day.toEpochDay()));
+    }
+
+    /** Returns false if another node rolled the day up first. */
+    public boolean rollUp(LocalDate day) {
+        long start = System.nanoTime();
+        // Codes and clicks of the day, or null if it was rolled up already
+        long[] totals = fromHourly ? rollUpFromHourly(day) : rollUpFromRedis(day);
+        rollupTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (totals == null) {
+            log.debug("Clicks for {} already rolled up by another node", day);
+            return false;
+        }
+        rolledUpClicks.increment(totals[1]);
+        log.info("Rolled up {} clicks on {} links for {}", totals[1], totals[0], day);
+        return true;
+    }
+
+    private long[] rollUpFromHourly(LocalDate day) {
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        return transaction.execute(status -> {
+            lockDays(jdbcTemplate, List.of(day));
+            long[] totals = jdbcTemplate.queryForObject(SUM_DAY_FROM_HOURLY,
+                    (rs, row) -> new long[] {rs.getLong(1), rs.getLong(2)}, from, to);
+            if (jdbcTemplate.update(INSERT_RUN, Date.valueOf(day), Timestamp.from(Instant.now()),
+                    totals[0], totals[1]) == 0) {
+                return null;
+            }
+            jdbcTemplate.update(UPSERT_MONTH_FROM_HOURLY, Date.valueOf(day.withDayOfMonth(1)), from, to);
+            return totals;
+        });
+    }
+
+    private long[] rollUpFromRedis(LocalDate day) {
+        Map<String, Long> clicksByCode = readDay(day);
+        long clicks = clicksByCode.values().stream().mapToLong(Long::longValue).sum();
+
+        return transaction.execute(status -> {
+            int inserted = jdbcTemplate.update(INSERT_RUN, Date.valueOf(day), Timestamp.from(Instant.now()),
+                    clicksByCode.size(), clicks);
+            if (inserted == 0) {
+                return null;
+            }
+            Date monthStart = Date.valueOf(day.withDayOfMonth(1));
+            List<Object[]> rows = new ArrayList<>(clicksByCode.size());
+            clicksByCode.forEach((code, count) -> rows.add(new Object[] {code, monthStart, count}));
+            for (int i = 0; i < rows.size(); i += batchSize) {
+                jdbcTemplate.batchUpdate(UPSERT_MONTH, rows.subList(i, Math.min(i + batchSize, rows.size())));
+            }
+            return new long[] {clicksByCode.size(), clicks};
+        });
+    }
+
+    private Map<String, Long> readDay(LocalDate day) {
+        Map<String, Long> clicksByCode = new HashMap<>();
+        List<String> codes = new ArrayList<>(READ_CHUNK);
+        ScanOptions options = ScanOptions.scanOptions().count(READ_CHUNK).build();
+        try (Cursor<String> cursor = stringRedisTemplate.opsForSet().scan(RedisService.dayCodesKey(day), options)) {
+            while (cursor.hasNext()) {
+                codes.add(cursor.next());
+                if (codes.size() == READ_CHUNK) {
+                    readCounters(codes, day, clicksByCode);
+                    codes.clear();
+                }
+            }
+        }
+        readCounters(codes, day, clicksByCode);
+        return clicksByCode;
+    }
+
+    private void readCounters(List<String> codes, LocalDate day, Map<String, Long> clicksByCode) {
+        if (codes.isEmpty()) {
+            return;
+        }
+        long[] counts = redisService.getClickCounts(codes.stream().map(code -> RedisService.dayKey(code, day)).toList());
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                clicksByCode.merge(codes.get(i), counts[i], Long::sum);
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.model.event.ClickBatch;
+import com.sanuth.shortme.util.ClickBatchCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads the click stream written by {@link ClickEventLog} as one consumer of the
+ * {@code shortme.clicks.stream.group} consumer group and adds the clicks to {@code hourly_clicks}.
+ *
+ * <p>Every poll first claims entries another consumer left unacknowledged for longer than
+ * {@code shortme.clicks.stream.claim-idle-ms}, then reads up to {@code shortme.clicks.stream.read-count}
+ * new ones. The batch ids of a read are inserted into {@code click_stream_batch} with
+ * {@code on conflict do nothing returning}, and only the batches that came back are summed into
+ * multi-row {@code hourly_clicks} upserts, all in one transaction. Entries are acknowledged after
+ * the commit, so a crash in between redelivers them and the batch ids keep them from being counted
+ * twice.
+ *
+ * <p>When {@link ClickRollupService} rolls days up from {@code hourly_clicks}, a batch for a day it
+ * already rolled up, e.g. one replayed from a spool, is also added to {@code monthly_clicks} in
+ * the same transaction, under the day's advisory lock.
+ */
+@Service
+public class ClickStreamConsumer {
+    private static final Logger log = LoggerFactory.getLogger(ClickStreamConsumer.class);
+
+    private static final String INSERT_BATCH = "insert into click_stream_batch (batch_id, processed_at) values ";
+    private static final String INSERT_BATCH_CONFLICT = " on conflict do nothing returning batch_id";
+    private static final String UPSERT_HOUR = "insert into hourly_clicks (short_code, hour_start, clicks) values ";
+    private static final String UPSERT_HOUR_CONFLICT = " on conflict (short_code, hour_start) "
+            + "do update set clicks = hourly_clicks.clicks + excluded.clicks";
+    private static final String SELECT_ROLLED_UP_DAYS = "select click_day from click_rollup_run where click_day in ";
+    private static final String DELETE_OLD_BATCHES = "delete from click_stream_batch where processed_at < ?";
+
+    private final RedisTemplate<String, String> stringRedisTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final boolean enabled;
+    private final String group;
+    private final Consumer consumer;
+    private final int readCount;
+    private final Duration claimIdle;
+    private final int upsertRows;
+    private final Duration dedupRetention;
+    private final boolean monthlyFromHourly;
+
+    private volatile boolean groupReady;
+    private final AtomicLong lagMs = new AtomicLong();
+    private final AtomicLong pendingEntries = new AtomicLong();
+
+    private final Timer batchTimer;
+    private final Counter consumedCounter;
+    private final Counter duplicateCounter;
+    private final Counter malformedCounter;
+
+    public ClickStreamConsumer(RedisTemplate<String, String> stringRedisTemplate,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${shortme.clicks.stream.consumer.enabled:true}") boolean enabled,
+                               @Value("${shortme.clicks.stream.group:click-rollup}") String group,
+                               @Value("${shortme.clicks.stream.consumer-name:}") String consumerName,
+                               @Value("${shortme.clicks.stream.read-count:200}") int readCount,
+                               @Value("${shortme.clicks.stream.claim-idle-ms:60000}") long claimIdleMs,
+                               @Value("${shortme.clicks.stream.upsert-rows:1000}") int upsertRows,
+                               @Value("${shortme.clicks.stream.dedup-retention-hours:72}") long dedupRetentionHours,
+                               @Value("${shortme.analytics.rollup.source:hourly}") String rollupSource) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.group = group;
+        this.consumer = Consumer.from(group, consumerName.isBlank() ? defaultConsumerName() : consumerName);
+        this.readCount = readCount;
+        this.claimIdle = Duration.ofMillis(claimIdleMs);
+        this.upsertRows = upsertRows;
+        this.dedupRetention = Duration.ofHours(dedupRetentionHours);
+        this.monthlyFromHourly = ClickRollupService.isHourlySource(rollupSource);
+
+        this.batchTimer = Timer.builder("shortme.clicks.stream.batch")
+                .description("Time spent writing one read of the click stream to Postgres")
+                .register(meterRegistry);
+        this.consumedCounter = Counter.builder("shortme.clicks.stream.consumed")
+                .description("Clicks added to hourly_clicks from the click stream")
+                .register(meterRegistry);
+        this.duplicateCounter = Counter.builder("shortme.clicks.stream.duplicates")
+                .description("Click batches delivered again and skipped")
+                .register(meterRegistry);
+        this.malformedCounter = Counter.builder("shortme.clicks.stream.malformed")
+                .description("Stream entries that could not be decoded and were acknowledged unread")
+                .register(meterRegistry);
+        Gauge.builder("shortme.clicks.stream.lag", lagMs, lag -> lag.get() / 1000.0)
+                .description("Age in seconds of the newest click batch read on the last poll, 0 when caught up")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("shortme.clicks.stream.pending", pendingEntries, AtomicLong::get)
+                .description("Entries delivered to the consumer group but not yet acknowledged")
+                .register(meterRegistry);
+    }
+
+    private static String defaultConsumerName() {
+        String host = System.getenv("HOSTNAME");
+        return (host != null && !host.isBlank() ? host : "node") + "-" + ProcessHandle.current().pid();
+    }
+
+    @Scheduled(initialDelayString = "${shortme.clicks.stream.poll-interval-ms:1000}",
+            fixedDelayString = "${shortme.clicks.stream.poll-interval-ms:1000}")
+    void pollSafely() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            poll();
+        } catch (Exception e) {
+            log.warn("Click stream poll failed - {}", e.getMessage());
+        }
+    }
+
+    /** Claims stale entries, then reads and processes new ones. Returns the batches added. */
+    public int poll() {
+        ensureGroup();
+        StreamOperations<String, Object, Object> stream = stringRedisTemplate.opsForStream();
+
+        int added = 0;
+        PendingMessages stale = stream.pending(RedisService.CLICK_STREAM_KEY, group, Range.unbounded(), readCount, claimIdle);
+        if (!stale.isEmpty()) {
+            RecordId[] ids = new RecordId[stale.size()];
+            int i = 0;
+            for (PendingMessage message : stale) {
+                ids[i++] = message.getId();
+            }
+            List<MapRecord<String, Object, Object>> claimed =
+                    stream.claim(RedisService.CLICK_STREAM_KEY, group, consumer.getName(), claimIdle, ids);
+            log.info("Claimed {} unacknowledged click stream entries", claimed.size());
+            added += process(claimed);
+        }
+
+        List<MapRecord<String, Object, Object>> records = readNew(stream);
+        added += process(records);
+        lagMs.set(records.isEmpty() ? 0
+                : Math.max(0, System.currentTimeMillis() - records.get(records.size() - 1).getId().getTimestamp()));
+        pendingEntries.set(stream.pending(RedisService.CLICK_STREAM_KEY, group).getTotalPendingMessages());
+        return added;
+    }
+
+    // StreamOperations.read only takes a varargs array of the generic StreamOffset, one stream is safe
+    @SuppressWarnings("unchecked")
+    private List<MapRecord<String, Object, Object>> readNew(StreamOperations<String, Object, Object> stream) {
+        List<MapRecord<String, Object, Object>> records = stream.read(consumer,
+                StreamReadOptions.empty().count(readCount),
+                StreamOffset.create(RedisService.CLICK_STREAM_KEY, ReadOffset.lastConsumed()));
+        return records != null ? records : Collections.emptyList();
+    }
+
+    // Creates the stream as well, so the group exists before the first click is appended
+    private void ensureGroup() {
+        if (groupReady) {
+            return;
+        }
+        byte[] key = RedisService.CLICK_STREAM_KEY.getBytes(StandardCharsets.UTF_8);
+        try {
+            stringRedisTemplate.execute((RedisCallback<String>) connection -> createGroup(connection, key));
+        } catch (RuntimeException e) {
+            String reason = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+            if (reason == null || !reason.contains("BUSYGROUP")) {
+                throw e;
+            }
+        }
+        groupReady = true;
+    }
+
+    private String createGroup(RedisConnection connection, byte[] key) {
+        return connection.streamCommands().xGroupCreate(key, group, ReadOffset.from("0"), true);
+    }
+
+    private int process(List<MapRecord<String, Object, Object>> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+        Map<String, ClickBatch> batches = new LinkedHashMap<>();
+        RecordId[] ids = new RecordId[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            MapRecord<String, Object, Object> record = records.get(i);
+            ids[i] = record.getId();
+            try {
+                ClickBatch batch = ClickBatchCodec.fromFields(record.getValue());
+                batches.putIfAbsent(batch.getBatchId(), batch);
+            } catch (RuntimeException e) {
+                malformedCounter.increment();
+                log.warn("Skipping malformed click stream entry {} - {}", record.getId(), e.getMessage());
+            }
+        }
+
+        int added = batches.isEmpty() ? 0 : write(batches);
+        stringRedisTemplate.opsForStream().acknowledge(RedisService.CLICK_STREAM_KEY, group, ids);
+        return added;
+    }
+
+    private int write(Map<String, ClickBatch> batches) {
+        long start = System.nanoTime();
+        Timestamp now = Timestamp.from(Instant.now());
+        Integer added = transaction.execute(status -> {
+            Set<String> fresh = new HashSet<>(insertBatchIds(batches.keySet(), now));
+            Map<HourlyKey, Long> clicks = new HashMap<>();
+            long total = 0;
+            for (ClickBatch batch : batches.values()) {
+                if (!fresh.contains(batch.getBatchId())) {
+                    continue;
+                }
+                Timestamp hour = Timestamp.valueOf(batch.getHour());
+                for (Map.Entry<String, Long> entry : batch.getClicks().entrySet()) {
+                    clicks.merge(new HourlyKey(entry.getKey(), hour), entry.getValue(), Long::sum);
+                    total += entry.getValue();
+                }
+            }
+            upsertHourly(clicks);
+            if (monthlyFromHourly && !clicks.isEmpty()) {
+                addToRolledUpMonths(clicks);
+            }
+            consumedCounter.increment(total);
+            return fresh.size();
+        });
+        batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        int duplicates = batches.size() - (added != null ? added : 0);
+        if (duplicates > 0) {
+            duplicateCounter.increment(duplicates);
+            log.debug("Skipped {} click batches already added", duplicates);
+        }
+        return added != null ? added : 0;
+    }
+
+    // Returns the ids that were not there yet
+    private List<String> insertBatchIds(Set<String> batchIds, Timestamp now) {
+        StringBuilder sql = new StringBuilder(INSERT_BATCH);
+        List<Object> args = new ArrayList<>(batchIds.size() * 2);
+        for (String batchId : batchIds) {
+            sql.append(args.isEmpty() ? "(?, ?)" : ", (?, ?)");
+            args.add(batchId);
+            args.add(now);
+        }
+        sql.append(INSERT_BATCH_CONFLICT);
+        return jdbcTemplate.queryForList(sql.toString(), String.class, args.toArray());
+    }
+
+    // One statement per upsertRows rows; each (code, hour) appears once, as ON CONFLICT requires
+    private void upsertHourly(Map<HourlyKey, Long> clicks) {
+        List<Map.Entry<HourlyKey, Long>> rows = new ArrayList<>(clicks.entrySet());
+        for (int from = 0; from < rows.size(); from += upsertRows) {
+            List<Map.Entry<HourlyKey, Long>> chunk = rows.subList(from, Math.min(from + upsertRows, rows.size()));
+            StringBuilder sql = new StringBuilder(UPSERT_HOUR);
+            Object[] args = new Object[chunk.size() * 3];
+            for (int i = 0; i < chunk.size(); i++) {
+                sql.append(i == 0 ? "(?, ?, ?)" : ", (?, ?, ?)");
+                args[i * 3] = chunk.get(i).getKey().shortCode();
+                args[i * 3 + 1] = chunk.get(i).getKey().hour();
+                args[i * 3 + 2] = chunk.get(i).getValue();
+            }
+            sql.append(UPSERT_HOUR_CONFLICT);
+            jdbcTemplate.update(sql.toString(), args);
+        }
+    }
+
+    // Rows for days the rollup already summed would otherwise never reach monthly_clicks
+    private void addToRolledUpMonths(Map<HourlyKey, Long> clicks) {
+        Set<LocalDate> days = new HashSet<>();
+        clicks.keySet().forEach(key -> days.add(key.hour().toLocalDateTime().toLocalDate()));
+        ClickRollupService.lockDays(jdbcTemplate, days);
+
+        StringBuilder sql = new StringBuilder(SELECT_ROLLED_UP_DAYS).append('(');
+        List<Object> args = new ArrayList<>(days.size());
+        for (LocalDate day : days) {
+            sql.append(args.isEmpty() ? "?" : ", ?");
+            args.add(Date.valueOf(day));
+        }
+        Set<LocalDate> rolledUp = new HashSet<>();
+        for (Date day : jdbcTemplate.queryForList(sql.append(')').toString(), Date.class, args.toArray())) {
+            rolledUp.add(day.toLocalDate());
+        }
+        if (rolledUp.isEmpty()) {
+            return;
+        }
+
+        Map<List<Object>, Long> monthly = new HashMap<>();
+        clicks.forEach((key, count) -> {
+            LocalDate day = key.hour().toLocalDateTime().toLocalDate();
+            if (rolledUp.contains(day)) {
+                monthly.merge(List.of(key.shortCode(), Date.valueOf(day.withDayOfMonth(1))), count, Long::sum);
+            }
+        });
+        List<Object[]> rows = new ArrayList<>(monthly.size());
+        monthly.forEach((key, count) -> rows.add(new Object[] {key.get(0), key.get(1), count}));
+        jdbcTemplate.batchUpdate(ClickRollupService.UPSERT_MONTH, rows);
+        log.info("Added {} click rows for days already rolled up to monthly_clicks", rows.size());
+    }
+
+    @Scheduled(initialDelay = 1, fixedDelay = 1, timeUnit = TimeUnit.HOURS)
+    void cleanUpSafely() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            int deleted = jdbcTemplate.update(DELETE_OLD_BATCHES, Timestamp.from(Instant.now().minus(dedupRetention)));
+            log.debug("Deleted {} click batch ids past retention", deleted);
+        } catch (Exception e) {
+            log.warn("Click batch id cleanup failed - {}", e.getMessage());
+        }
+    }
+
+    private record HourlyKey(String shortCode, Timestamp hour) {
+    }
+}
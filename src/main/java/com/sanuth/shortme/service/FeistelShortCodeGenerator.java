@@ -0,0 +1,123 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.util.Base62Encoder;
+import com.sanuth.shortme.util.Hashing;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Permutes ids with a keyed balanced Feistel network over {@code shortme.codes.feistel.bits} bits
+ * before Base62 encoding, so consecutive ids get unrelated codes. Inserts spread across the
+ * {@code short_code} index instead of piling onto its right-most page, and codes cannot be
+ * enumerated without the key. Codes are padded to the width of the largest permuted value, e.g.
+ * 7 characters for 40 bits, which is also what keeps them apart from shorter sequential codes.
+ *
+ * <p>A Feistel network is a bijection for any round function, so decoding simply runs the rounds
+ * in reverse. Changing the key or bit width changes every code, so both are fixed for the
+ * lifetime of the data.
+ *
+ * <p>The domain therefore cannot grow: ids past {@code 2^bits - 1} are rejected, and creation
+ * fails once the sequence gets there. {@code shortme.codes.capacity.used} reports the fraction of
+ * the domain used by the highest id generated on this node, and a warning is logged at 90%.
+ */
+@Component
+@ConditionalOnProperty(name = "shortme.codes.generator", havingValue = "feistel")
+public class FeistelShortCodeGenerator implements ShortCodeGenerator {
+    private static final Logger log = LoggerFactory.getLogger(FeistelShortCodeGenerator.class);
+
+    private final int bits;
+    private final int halfBits;
+    private final long halfMask;
+    private final long maxId;
+    private final long[] roundKeys;
+    private final int width;
+    private final long warnAtId;
+    private final AtomicLong highestId = new AtomicLong(-1);
+    private final AtomicBoolean capacityWarned = new AtomicBoolean();
+
+    public FeistelShortCodeGenerator(@Value("${shortme.codes.feistel.key}") long key,
+                                     @Value("${shortme.codes.feistel.bits:40}") int bits,
+                                     @Value("${shortme.codes.feistel.rounds:4}") int rounds,
+                                     MeterRegistry meterRegistry) {
+        if (bits < 8 || bits > 62 || bits % 2 != 0) {
+            throw new IllegalArgumentException("shortme.codes.feistel.bits must be even and between 8 and 62");
+        }
+        if (rounds < 3) {
+            throw new IllegalArgumentException("shortme.codes.feistel.rounds must be at least 3");
+        }
+        this.bits = bits;
+        this.halfBits = bits / 2;
+        this.halfMask = (1L << halfBits) - 1;
+        this.maxId = (1L << bits) - 1;
+        this.roundKeys = new long[rounds];
+        long state = key;
+        for (int i = 0; i < rounds; i++) {
+            state += 0x9e3779b97f4a7c15L;
+            roundKeys[i] = Hashing.fmix64(state);
+        }
+        this.width = Base62Encoder.encode(maxId).length();
+        this.warnAtId = maxId / 10 * 9;
+        Gauge.builder("shortme.codes.capacity.used", highestId, h -> (double) Math.max(0, h.get()) / maxId)
+                .description("Fraction of the Feistel code domain used by the highest id generated on this node")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String generate(long id) {
+        if (id < 0 || id > maxId) {
+            throw new IllegalStateException("Id " + id + " is outside the Feistel domain of " + (maxId + 1)
+                    + " codes; shortme.codes.feistel.bits=" + bits + " is exhausted, and changing it changes every code");
+        }
+        if (id > highestId.get()) {
+            highestId.accumulateAndGet(id, Math::max);
+            if (id >= warnAtId && capacityWarned.compareAndSet(false, true)) {
+                log.warn("Link id {} has used 90% of the {} Feistel codes; creation fails past id {}",
+                        id, maxId + 1, maxId);
+            }
+        }
+        return Base62Encoder.encode(permute(id), width);
+    }
+
+    @Override
+    public OptionalLong decode(String code) {
+        if (code.length() != width || !Base62Encoder.isValid(code)) {
+            return OptionalLong.empty();
+        }
+        long permuted = Base62Encoder.decode(code);
+        if (permuted > maxId) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(unpermute(permuted));
+    }
+
+    long permute(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (long roundKey : roundKeys) {
+            long next = left ^ (Hashing.fmix64(right ^ roundKey) & halfMask);
+            left = right;
+            right = next;
+        }
+        return (left << halfBits) | right;
+    }
+
+    long unpermute(long value) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int i = roundKeys.length - 1; i >= 0; i--) {
+            long previous = right ^ (Hashing.fmix64(left ^ roundKeys[i]) & halfMask);
+            right = left;
+            left = previous;
+        }
+        return (left << halfBits) | right;
+    }
+}
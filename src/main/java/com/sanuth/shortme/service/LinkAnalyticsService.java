@@ -0,0 +1,184 @@
+package com.sanuth.shortme.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sanuth.shortme.model.db.MonthlyClicks;
+import com.sanuth.shortme.model.dto.LinkAnalyticsResponse;
+import com.sanuth.shortme.model.dto.LinkAnalyticsResponse.ClickCount;
+import com.sanuth.shortme.model.dto.LinkAnalyticsResponse.RankedCount;
+import com.sanuth.shortme.repository.ClickRollupRunRepository;
+import com.sanuth.shortme.repository.LinkRepository;
+import com.sanuth.shortme.repository.MonthlyClicksRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Builds click series for one link from pre-aggregated counters only, so the cost does not grow
+ * with the requested range: one Redis pipeline for the total, every day and hour key Redis still
+ * holds and the visitor sketches of the requested days, and one primary key range read for the
+ * monthly rollups. Existence is answered by the short code filter or the link caches when they
+ * can, before falling back to the database.
+ *
+ * <p>Monthly counts are the rolled up rows plus the Redis day counters not rolled up yet. The set
+ * of rolled up days is the same for every link and changes about once a day, so it is kept in
+ * memory for {@code shortme.analytics.rolled-up-days-cache-seconds}; right after a rollup the day
+ * it just rolled up can be counted twice until then.
+ */
+@Service
+public class LinkAnalyticsService {
+
+    static final long MAX_RANGE_DAYS = 366;
+    private static final int DAILY_DAYS = (int) RedisService.DAILY_KEY_TTL.toDays();
+    private static final int HOURLY_HOURS = (int) RedisService.HOURLY_KEY_TTL.toHours();
+
+    private final LinkRepository linkRepository;
+    private final MonthlyClicksRepository monthlyClicksRepository;
+    private final ClickRollupRunRepository rollupRunRepository;
+    private final RedisService redisService;
+    private final RedisCacheService redisCacheService;
+    private final ShortCodeFilter shortCodeFilter;
+    private final int topK;
+    // Keyed by today; the window of days Redis still holds ends there
+    private final Cache<LocalDate, Set<LocalDate>> rolledUpDays;
+
+    public LinkAnalyticsService(LinkRepository linkRepository,
+                                MonthlyClicksRepository monthlyClicksRepository,
+                                ClickRollupRunRepository rollupRunRepository,
+                                RedisService redisService,
+                                RedisCacheService redisCacheService,
+                                ShortCodeFilter shortCodeFilter,
+                                @Value("${shortme.analytics.top-k:10}") int topK,
+                                @Value("${shortme.analytics.rolled-up-days-cache-seconds:60}") long rolledUpDaysCacheSeconds) {
+        this.linkRepository = linkRepository;
+        this.monthlyClicksRepository = monthlyClicksRepository;
+        this.rollupRunRepository = rollupRunRepository;
+        this.redisService = redisService;
+        this.redisCacheService = redisCacheService;
+        this.shortCodeFilter = shortCodeFilter;
+        this.topK = topK;
+        this.rolledUpDays = Caffeine.newBuilder()
+                .maximumSize(2)
+                .expireAfterWrite(Duration.ofSeconds(rolledUpDaysCacheSeconds))
+                .build();
+    }
+
+    /** Empty if the link does not exist. {@code from} and {@code to} default to the last 30 days. */
+    public Optional<LinkAnalyticsResponse> getAnalytics(String shortCode, LocalDate from, LocalDate to) {
+        return getAnalytics(shortCode, from, to, LocalDateTime.now());
+    }
+
+    public Optional<LinkAnalyticsResponse> getAnalytics(String shortCode, LocalDate from, LocalDate to,
+                                                        LocalDateTime now) {
+        LocalDate today = now.toLocalDate();
+        to = to != null ? to : today;
+        from = from != null ? from : to.minusDays(DAILY_DAYS - 1);
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Range must not exceed " + MAX_RANGE_DAYS + " days");
+        }
+        if (!exists(shortCode)) {
+            return Optional.empty();
+        }
+
+        // Key order: total, the days Redis still holds, then the hours it still holds
+        LocalDate firstDay = today.minusDays(DAILY_DAYS - 1);
+        LocalDateTime firstHour = now.truncatedTo(ChronoUnit.HOURS).minusHours(HOURLY_HOURS - 1);
+        List<String> keys = new ArrayList<>(1 + DAILY_DAYS + HOURLY_HOURS);
+        keys.add(RedisService.totalKey(shortCode));
+        for (int i = 0; i < DAILY_DAYS; i++) {
+            keys.add(RedisService.dayKey(shortCode, firstDay.plusDays(i)));
+        }
+        for (int i = 0; i < HOURLY_HOURS; i++) {
+            keys.add(RedisService.hourKey(shortCode, firstHour.plusHours(i)));
+        }
+        List<LocalDate> days = new ArrayList<>();
+        for (int i = 0; i < DAILY_DAYS; i++) {
+            LocalDate day = firstDay.plusDays(i);
+            if (!day.isBefore(from) && !day.isAfter(to)) {
+                days.add(day);
+            }
+        }
+        RedisService.LinkStats stats = redisService.getLinkStats(keys, shortCode, days);
+        long[] counts = stats.counts();
+
+        List<ClickCount> daily = new ArrayList<>(days.size());
+        for (int i = 0; i < days.size(); i++) {
+            LocalDate day = days.get(i);
+            int index = (int) ChronoUnit.DAYS.between(firstDay, day);
+            daily.add(new ClickCount(day.toString(), counts[1 + index], stats.dailyVisitors()[i]));
+        }
+
+        List<ClickCount> hourly = new ArrayList<>();
+        for (int i = 0; i < HOURLY_HOURS; i++) {
+            LocalDateTime hour = firstHour.plusHours(i);
+            if (!hour.toLocalDate().isBefore(from) && !hour.toLocalDate().isAfter(to)) {
+                hourly.add(new ClickCount(RedisService.HOUR_FORMAT.format(hour), counts[1 + DAILY_DAYS + i]));
+            }
+        }
+
+        YearMonth firstMonth = YearMonth.from(from);
+        YearMonth lastMonth = YearMonth.from(to);
+        Map<YearMonth, Long> monthly = new LinkedHashMap<>();
+        for (YearMonth month = firstMonth; !month.isAfter(lastMonth); month = month.plusMonths(1)) {
+            monthly.put(month, 0L);
+        }
+        for (MonthlyClicks rollup : monthlyClicksRepository.findByShortCodeAndMonthStartBetween(
+                shortCode, firstMonth.atDay(1), lastMonth.atDay(1))) {
+            monthly.merge(YearMonth.from(rollup.getMonthStart()), rollup.getClicks(), Long::sum);
+        }
+        Set<LocalDate> rolledUp = rolledUpDays.get(today,
+                day -> Set.copyOf(rollupRunRepository.findRolledUpDays(firstDay, today)));
+        for (int i = 0; i < DAILY_DAYS; i++) {
+            LocalDate day = firstDay.plusDays(i);
+            YearMonth month = YearMonth.from(day);
+            if (!rolledUp.contains(day) && monthly.containsKey(month)) {
+                monthly.merge(month, counts[1 + i], Long::sum);
+            }
+        }
+
+        return Optional.of(new LinkAnalyticsResponse(shortCode, from, to, counts[0], daily, hourly,
+                monthly.entrySet().stream().map(e -> new ClickCount(e.getKey().toString(), e.getValue())).toList(),
+                stats.visitors(), top(stats.referrers()), top(stats.countries())));
+    }
+
+    // A cached entry means the row exists; only codes the filter passes and no cache holds reach the database
+    private boolean exists(String shortCode) {
+        if (shortCodeFilter.isReady() && !shortCodeFilter.mightContain(shortCode)) {
+            return false;
+        }
+        if (redisCacheService.isKnownMissing(shortCode)) {
+            return false;
+        }
+        if (redisCacheService.isCached(shortCode)) {
+            return true;
+        }
+        long missingEpoch = redisCacheService.missingEpoch(shortCode);
+        if (linkRepository.existsByShortCode(shortCode)) {
+            return true;
+        }
+        redisCacheService.cacheMissing(shortCode, missingEpoch);
+        return false;
+    }
+
+    private List<RankedCount> top(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(topK)
+                .map(e -> new RankedCount(e.getKey(), e.getValue()))
+                .toList();
+    }
+}
@@ -0,0 +1,105 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.repository.LinkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks links past their {@code expiresAt} as {@link com.sanuth.shortme.model.db.LinkStatus#EXPIRED}
+ * and evicts them from every cache tier. The redirect path already refuses expired links from the
+ * cached record alone, so this only keeps the status column truthful and frees cache memory early.
+ *
+ * <p>Each sweep walks the {@code (status, expiresAt)} index in chunks of
+ * {@code shortme.links.expiry.batch-size}, one short transaction per chunk, and stops after
+ * {@code shortme.links.expiry.max-batches-per-sweep} chunks so a large backlog is spread over
+ * several sweeps instead of holding the database in one long run.
+ */
+@Service
+public class LinkExpirySweeper {
+    private static final Logger log = LoggerFactory.getLogger(LinkExpirySweeper.class);
+
+    private final LinkRepository linkRepository;
+    private final RedisCacheService redisCacheService;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatchesPerSweep;
+
+    private final Timer sweepTimer;
+    private final DistributionSummary sweepRows;
+    private final Counter expiredCounter;
+
+    public LinkExpirySweeper(LinkRepository linkRepository,
+                             RedisCacheService redisCacheService,
+                             MeterRegistry meterRegistry,
+                             @Value("${shortme.links.expiry.enabled:true}") boolean enabled,
+                             @Value("${shortme.links.expiry.batch-size:500}") int batchSize,
+                             @Value("${shortme.links.expiry.max-batches-per-sweep:100}") int maxBatchesPerSweep) {
+        this.linkRepository = linkRepository;
+        this.redisCacheService = redisCacheService;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatchesPerSweep = maxBatchesPerSweep;
+
+        this.sweepTimer = Timer.builder("shortme.links.expiry.sweep")
+                .description("Time spent on one expiry sweep")
+                .register(meterRegistry);
+        this.sweepRows = DistributionSummary.builder("shortme.links.expiry.sweep.rows")
+                .description("Links marked expired by one sweep")
+                .register(meterRegistry);
+        this.expiredCounter = Counter.builder("shortme.links.expired")
+                .description("Links marked expired and evicted from the cache")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${shortme.links.expiry.sweep-interval-ms:60000}",
+            fixedDelayString = "${shortme.links.expiry.sweep-interval-ms:60000}")
+    void sweepSafely() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            sweep();
+        } catch (Exception e) {
+            log.warn("Link expiry sweep failed - {}", e.getMessage());
+        }
+    }
+
+    /** Runs one sweep and returns the number of links marked expired. */
+    public int sweep() {
+        long start = System.nanoTime();
+        int expired = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerSweep; batch++) {
+                List<String> codes = linkRepository.findExpiredShortCodes(Instant.now(), Limit.of(batchSize));
+                if (codes.isEmpty()) {
+                    break;
+                }
+                expired += linkRepository.markExpired(codes);
+                redisCacheService.evictAll(codes);
+                if (codes.size() < batchSize) {
+                    break;
+                }
+            }
+        } finally {
+            sweepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            sweepRows.record(expired);
+            expiredCounter.increment(expired);
+        }
+        if (expired > 0) {
+            log.info("Marked {} links expired", expired);
+        }
+        return expired;
+    }
+}
@@ -1,44 +1,159 @@
 package com.sanuth.shortme.service;
 
+import com.sanuth.shortme.model.cache.CachedShortLink;
+import com.sanuth.shortme.model.db.LinkStatus;
 import com.sanuth.shortme.model.db.ShortLink;
+import com.sanuth.shortme.model.dto.BulkCreateResult;
 import com.sanuth.shortme.model.dto.CreateShortLinkRequest;
 import com.sanuth.shortme.model.dto.ShortLinkResponse;
 import com.sanuth.shortme.repository.LinkRepository;
-import com.sanuth.shortme.util.Base62Encoder;
+import com.sanuth.shortme.util.SingleFlight;
+import com.sanuth.shortme.util.UrlHash;
+import com.sanuth.shortme.util.UrlNormalizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.net.URI;
-import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class LinkService {
     private static final Logger log = LoggerFactory.getLogger(LinkService.class);
+    private static final URI NOT_FOUND = URI.create("/error");
     private final LinkRepository linkRepository;
     private final RedisCacheService redisCacheService;
+    private final ShortLinkIdAllocator idAllocator;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final ShortCodeFilter shortCodeFilter;
+    private final RedirectAccessLog accessLog;
+    private final Validator validator;
+    private final int bulkMaxItems;
+    private final int bulkBatchSize;
+    private final boolean dedupEnabled;
+    private final boolean loadLeaseEnabled;
+    private final long loadLeaseTtlMs;
+    private final long loadLeaseWaitMs;
+    private final SingleFlight<String, Optional<String>> inFlightLoads = new SingleFlight<>();
+    private final Counter clusterCoalescedCounter;
+    private final Timer redirectHitTimer;
+    private final Timer redirectMissTimer;
+    private final Timer redirectNotFoundTimer;
+    private final Counter createdCounter;
+    private final Counter bulkCreatedCounter;
+    private final Counter dedupCounter;
 
-    public LinkService(LinkRepository linkRepository, RedisCacheService redisCacheService) {
+    public LinkService(LinkRepository linkRepository, RedisCacheService redisCacheService,
+                       ShortLinkIdAllocator idAllocator, ShortCodeGenerator shortCodeGenerator,
+                       ShortCodeFilter shortCodeFilter, RedirectAccessLog accessLog,
+                       Validator validator, MeterRegistry meterRegistry,
+                       @Value("${shortme.links.bulk.max-items:10000}") int bulkMaxItems,
+                       @Value("${shortme.links.bulk.batch-size:500}") int bulkBatchSize,
+                       @Value("${shortme.links.dedup.enabled:false}") boolean dedupEnabled,
+                       @Value("${shortme.cache.load-lease.enabled:false}") boolean loadLeaseEnabled,
+                       @Value("${shortme.cache.load-lease.ttl-ms:2000}") long loadLeaseTtlMs,
+                       @Value("${shortme.cache.load-lease.wait-ms:200}") long loadLeaseWaitMs) {
         this.linkRepository = linkRepository;
         this.redisCacheService = redisCacheService;
+        this.idAllocator = idAllocator;
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.shortCodeFilter = shortCodeFilter;
+        this.accessLog = accessLog;
+        this.validator = validator;
+        this.bulkMaxItems = bulkMaxItems;
+        this.bulkBatchSize = bulkBatchSize;
+        this.dedupEnabled = dedupEnabled;
+        this.loadLeaseEnabled = loadLeaseEnabled;
+        this.loadLeaseTtlMs = loadLeaseTtlMs;
+        this.loadLeaseWaitMs = loadLeaseWaitMs;
+
+        FunctionCounter.builder("shortme.links.load.coalesced", inFlightLoads, SingleFlight::coalescedCount)
+                .description("Cache misses that waited for another request's database load instead of running their own")
+                .tag("scope", "node")
+                .register(meterRegistry);
+        this.clusterCoalescedCounter = Counter.builder("shortme.links.load.coalesced")
+                .description("Cache misses that waited for another request's database load instead of running their own")
+                .tag("scope", "cluster")
+                .register(meterRegistry);
+        // Registered up front so recording a redirect is a lookup-free, allocation-free call
+        this.redirectHitTimer = redirectTimer(meterRegistry, "hit");
+        this.redirectMissTimer = redirectTimer(meterRegistry, "miss");
+        this.redirectNotFoundTimer = redirectTimer(meterRegistry, "not_found");
+        this.createdCounter = createdCounter(meterRegistry, "single");
+        this.bulkCreatedCounter = createdCounter(meterRegistry, "bulk");
+        this.dedupCounter = Counter.builder("shortme.links.deduplicated")
+                .description("Create requests answered with an existing link for the same URL")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Resolution time of a redirect by outcome: {@code hit} if served from the local or Redis cache,
+     * {@code miss} if loaded from the database, {@code not_found} for unknown, disabled and expired
+     * codes. Published as a histogram, so percentiles are computed across nodes by the backend.
+     */
+    private static Timer redirectTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("shortme.redirect")
+                .description("Time to resolve a short code to its target URL")
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(2))
+                .register(meterRegistry);
+    }
+
+    private static Counter createdCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("shortme.links.creations")
+                .description("Short links created")
+                .tag("source", source)
+                .register(meterRegistry);
     }
 
     public ShortLinkResponse createShortLink(CreateShortLinkRequest request) {
         log.info("Creating short link for URL: {}", request.getLongUrl());
 
         // Validate URL - let exceptions propagate to GlobalExceptionHandler
-        validateUrl(request);
+        normalizeUrl(request);
+
+        if (dedupEnabled && !hasCustomShortCode(request)) {
+            Optional<ShortLink> existing = findReusable(request);
+            if (existing.isPresent()) {
+                dedupCounter.increment();
+                log.debug("Reusing short link {} for an already shortened URL", existing.get().getShortCode());
+                return new ShortLinkResponse(existing.get());
+            }
+        }
 
         ShortLink shortLink = ShortLink.create(request);
+        // ID comes from a pre-leased block, so the code is derived before the single insert
+        shortLink.setId(idAllocator.nextId());
 
         if (request.getCustomShortCode() != null && !request.getCustomShortCode().trim().isEmpty()) {
             log.info("Using custom short code: {}", request.getCustomShortCode());
         } else {
-            // Save first to get the auto-generated ID, then derive short code from it
-            shortLink = linkRepository.save(shortLink);
-            String generatedCode = Base62Encoder.encode(shortLink.getId());
+            String generatedCode = shortCodeGenerator.generate(shortLink.getId());
             log.info("Generated short code: {} from ID: {}", generatedCode, shortLink.getId());
             shortLink.setShortCode(generatedCode);
         }
@@ -51,87 +166,334 @@ public class LinkService {
         }
 
         log.info("Successfully created short link with code: {}", shortLink.getShortCode());
+        createdCounter.increment();
 
         // Cache the short link in Redis
         redisCacheService.cacheShortLink(shortLink);
+        shortCodeFilter.announce(List.of(shortLink.getShortCode()));
 
         return new ShortLinkResponse(shortLink);
     }
 
-    private void validateUrl(CreateShortLinkRequest request) {
-        String url = request.getLongUrl();
-        log.debug("Validating URL: {}", url);
+    /**
+     * Creates many links at once. Items are validated in parallel, inserted in chunks of
+     * {@code shortme.links.bulk.batch-size} rows (one JDBC batch each) and cached with a single
+     * Redis pipeline. Every item gets its own result, so one bad item does not fail the rest.
+     */
+    public List<BulkCreateResult> createShortLinks(List<CreateShortLinkRequest> requests) {
+        if (requests.size() > bulkMaxItems) {
+            throw new IllegalArgumentException("Too many links in one request (max " + bulkMaxItems + ")");
+        }
+        log.info("Creating {} short links in bulk", requests.size());
+
+        int count = requests.size();
+        BulkCreateResult[] results = new BulkCreateResult[count];
+        ShortLink[] links = new ShortLink[count];
+
+        IntStream.range(0, count).parallel().forEach(i -> {
+            String error = validateForBulk(requests.get(i));
+            if (error != null) {
+                results[i] = BulkCreateResult.failure(i, error);
+            } else {
+                links[i] = ShortLink.create(requests.get(i));
+            }
+        });
+
+        rejectUnavailableCustomCodes(requests, links, results);
+        int[] sameAs = reuseExistingLinks(requests, links, results);
+
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            if (links[i] == null) {
+                continue;
+            }
+            links[i].setId(idAllocator.nextId());
+            if (!hasCustomShortCode(requests.get(i))) {
+                links[i].setShortCode(shortCodeGenerator.generate(links[i].getId()));
+            }
+            pending.add(i);
+        }
+
+        List<ShortLink> created = new ArrayList<>(pending.size());
+        for (int from = 0; from < pending.size(); from += bulkBatchSize) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + bulkBatchSize, pending.size()));
+            insertChunk(chunk, links, results, created);
+        }
+
+        for (int i = 0; i < count; i++) {
+            if (sameAs[i] >= 0) {
+                BulkCreateResult first = results[sameAs[i]];
+                results[i] = first.isSuccess() ? BulkCreateResult.success(i, first.getData())
+                        : BulkCreateResult.failure(i, first.getError());
+            }
+        }
+
+        bulkCreatedCounter.increment(created.size());
+        redisCacheService.cacheShortLinks(created);
+        shortCodeFilter.announce(created.stream().map(ShortLink::getShortCode).toList());
+
+        log.info("Bulk created {} of {} short links", created.size(), count);
+        return Arrays.asList(results);
+    }
+
+    private String validateForBulk(CreateShortLinkRequest request) {
+        if (request == null) {
+            return "Request item is empty";
+        }
+        Set<ConstraintViolation<CreateShortLinkRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; "));
+        }
+        try {
+            normalizeUrl(request);
+            return null;
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    // Custom codes must be unique within the request and not taken by an existing link
+    private void rejectUnavailableCustomCodes(List<CreateShortLinkRequest> requests, ShortLink[] links,
+                                              BulkCreateResult[] results) {
+        Set<String> requestedCodes = new HashSet<>();
+        for (int i = 0; i < links.length; i++) {
+            if (links[i] != null && hasCustomShortCode(requests.get(i))
+                    && !requestedCodes.add(links[i].getShortCode())) {
+                results[i] = BulkCreateResult.failure(i,
+                        "Short code '" + links[i].getShortCode() + "' is duplicated in this request");
+                links[i] = null;
+            }
+        }
+        if (requestedCodes.isEmpty()) {
+            return;
+        }
 
-        if (url == null || url.trim().isEmpty()) {
-            log.warn("Validation failed: URL is empty");
-            throw new IllegalArgumentException("URL cannot be empty");
+        Set<String> taken = new HashSet<>(linkRepository.findExistingShortCodes(requestedCodes));
+        for (int i = 0; i < links.length; i++) {
+            if (links[i] != null && hasCustomShortCode(requests.get(i)) && taken.contains(links[i].getShortCode())) {
+                results[i] = BulkCreateResult.failure(i,
+                        "Short code '" + links[i].getShortCode() + "' is already in use");
+                links[i] = null;
+            }
         }
+    }
 
-        // Check length (typical max: 2048 chars)
-        if (url.length() > 2048) {
-            log.warn("Validation failed: URL too long ({} chars)", url.length());
-            throw new IllegalArgumentException("URL too long (max 2048 characters)");
+    private Optional<ShortLink> findReusable(CreateShortLinkRequest request) {
+        Instant now = Instant.now();
+        return linkRepository.findByLongUrlHashIn(List.of(UrlHash.of(request.getLongUrl()))).stream()
+                .filter(link -> isReusable(link, request, now))
+                .findFirst();
+    }
+
+    /**
+     * With dedup enabled, answers non-custom items whose URL already has a usable link with that
+     * link, and marks items repeating an earlier item of the same request. Returns for each item
+     * the index of the earlier item it repeats, or -1; those items take its result once inserted.
+     */
+    private int[] reuseExistingLinks(List<CreateShortLinkRequest> requests, ShortLink[] links,
+                                     BulkCreateResult[] results) {
+        int[] sameAs = new int[links.length];
+        Arrays.fill(sameAs, -1);
+        if (!dedupEnabled) {
+            return sameAs;
         }
 
-        // Add protocol if missing
-        if (!url.startsWith("http://") && !url.startsWith("https://")) {
-            url = "https://" + url;
-            log.debug("Added https:// prefix to URL: {}", url);
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < links.length; i++) {
+            if (links[i] != null && !hasCustomShortCode(requests.get(i))) {
+                candidates.add(i);
+            }
+        }
+        Map<ByteBuffer, List<ShortLink>> existingByHash = new HashMap<>();
+        for (int from = 0; from < candidates.size(); from += bulkBatchSize) {
+            List<byte[]> hashes = candidates.subList(from, Math.min(from + bulkBatchSize, candidates.size())).stream()
+                    .map(i -> links[i].getLongUrlHash())
+                    .toList();
+            for (ShortLink link : linkRepository.findByLongUrlHashIn(hashes)) {
+                existingByHash.computeIfAbsent(ByteBuffer.wrap(link.getLongUrlHash()), k -> new ArrayList<>()).add(link);
+            }
         }
 
-        // Reject double-prefixed URLs (e.g. "https://https://example.com")
-        String withoutScheme = url.startsWith("https://") ? url.substring(8) : url.substring(7);
-        if (withoutScheme.startsWith("http://") || withoutScheme.startsWith("https://")) {
-            log.warn("Validation failed: double protocol prefix detected");
-            throw new IllegalArgumentException("Invalid URL: double protocol prefix");
+        Instant now = Instant.now();
+        Map<ByteBuffer, List<Integer>> firstSeen = new HashMap<>();
+        for (int i : candidates) {
+            ByteBuffer hash = ByteBuffer.wrap(links[i].getLongUrlHash());
+            CreateShortLinkRequest request = requests.get(i);
+            Optional<ShortLink> existing = existingByHash.getOrDefault(hash, List.of()).stream()
+                    .filter(link -> isReusable(link, request, now))
+                    .findFirst();
+            if (existing.isPresent()) {
+                results[i] = BulkCreateResult.success(i, new ShortLinkResponse(existing.get()));
+                links[i] = null;
+                dedupCounter.increment();
+                continue;
+            }
+            List<Integer> earlier = firstSeen.computeIfAbsent(hash, k -> new ArrayList<>());
+            for (int j : earlier) {
+                if (isSameLink(requests.get(j), request)) {
+                    sameAs[i] = j;
+                    links[i] = null;
+                    dedupCounter.increment();
+                    break;
+                }
+            }
+            if (sameAs[i] < 0) {
+                earlier.add(i);
+            }
         }
+        return sameAs;
+    }
+
+    // Only a link the request would have created anyway is handed out: same target, expiry and cache TTL
+    private static boolean isReusable(ShortLink link, CreateShortLinkRequest request, Instant now) {
+        return link.getStatus() == LinkStatus.ACTIVE
+                && (link.getExpiresAt() == null || now.isBefore(link.getExpiresAt()))
+                && UrlHash.canonical(link.getLongUrl()).equals(UrlHash.canonical(request.getLongUrl()))
+                && Objects.equals(link.getExpiresAt(), request.getExpiresAt())
+                && Objects.equals(link.getCacheTtlSeconds(), request.getCacheTtlSeconds());
+    }
+
+    private static boolean isSameLink(CreateShortLinkRequest first, CreateShortLinkRequest second) {
+        return UrlHash.canonical(first.getLongUrl()).equals(UrlHash.canonical(second.getLongUrl()))
+                && Objects.equals(first.getExpiresAt(), second.getExpiresAt())
+                && Objects.equals(first.getCacheTtlSeconds(), second.getCacheTtlSeconds());
+    }
 
-        // Reject URLs with no valid host (must contain a dot, e.g. "example.com")
-        String host = withoutScheme.split("/")[0];
-        if (!host.contains(".")) {
-            log.warn("Validation failed: no valid domain in URL");
-            throw new IllegalArgumentException("Invalid URL: missing domain");
+    private void insertChunk(List<Integer> chunk, ShortLink[] links, BulkCreateResult[] results,
+                             List<ShortLink> created) {
+        List<ShortLink> batch = new ArrayList<>(chunk.size());
+        for (int i : chunk) {
+            batch.add(links[i]);
         }
 
-        // Check if valid URL format
         try {
-            new URI(url);
-        } catch (URISyntaxException e) {
-            log.warn("Validation failed: Invalid URL format - {}", e.getMessage());
-            throw new IllegalArgumentException("Invalid URL format");
+            linkRepository.saveAll(batch);
+            for (int i : chunk) {
+                results[i] = BulkCreateResult.success(i, new ShortLinkResponse(links[i]));
+            }
+            created.addAll(batch);
+            return;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Bulk insert of {} links hit a conflict, retrying row by row", batch.size());
+        }
+
+        // A code was taken concurrently; insert individually so only the conflicting rows fail
+        for (int i : chunk) {
+            try {
+                linkRepository.save(links[i]);
+                results[i] = BulkCreateResult.success(i, new ShortLinkResponse(links[i]));
+                created.add(links[i]);
+            } catch (DataIntegrityViolationException e) {
+                results[i] = BulkCreateResult.failure(i,
+                        "Short code '" + links[i].getShortCode() + "' is already in use");
+            }
         }
+    }
 
-        log.debug("URL validation successful");
+    private static boolean hasCustomShortCode(CreateShortLinkRequest request) {
+        return request.getCustomShortCode() != null && !request.getCustomShortCode().trim().isEmpty();
+    }
+
+    // Validates and stores the URL in normal form, so dedup hashing and redirects see one spelling
+    private static void normalizeUrl(CreateShortLinkRequest request) {
+        request.setLongUrl(UrlNormalizer.normalize(request.getLongUrl()));
     }
 
 
+    // Runs on every redirect: nothing here logs above DEBUG, the sampled access log stands in for it
     public URI getTarget(String code) {
-        log.info("Looking up target URL for short code: {}", code);
+        long start = System.nanoTime();
 
-        // Check cache first
-        Optional<String> cachedUrl = redisCacheService.getLongUrlByShortCode(code);
-        if (cachedUrl.isPresent()) {
-            return URI.create(cachedUrl.get());
+        // Codes the filter has never seen were never created; rejects scans without any lookup
+        if (shortCodeFilter.isReady() && !shortCodeFilter.mightContain(code)) {
+            log.debug("Short code {} rejected by filter", code);
+            return timed(redirectNotFoundTimer, "not_found", code, start, NOT_FOUND);
         }
 
-        log.debug("Cache miss for short code: {}, checking database", code);
-        long shortLinkId = Base62Encoder.decode(code);
-        log.debug("Decoded short code to ID: {}", shortLinkId);
+        // Check cache first; entries carry status and expiry, so inactive links need no further lookup
+        Optional<LocalLinkCache.Entry> cached = redisCacheService.getCachedTarget(code);
+        if (cached.isPresent()) {
+            if (!cached.get().isRedirectable(System.currentTimeMillis())) {
+                log.debug("Short code {} is expired or disabled", code);
+                return timed(redirectNotFoundTimer, "not_found", code, start, NOT_FOUND);
+            }
+            return timed(redirectHitTimer, "hit", code, start, URI.create(cached.get().longUrl()));
+        }
 
+        if (redisCacheService.isKnownMissing(code)) {
+            log.debug("Short code {} is cached as missing", code);
+            return timed(redirectNotFoundTimer, "not_found", code, start, NOT_FOUND);
+        }
+
+        // Concurrent misses for the same code share one load instead of each querying the database
+        Optional<String> loaded = inFlightLoads.execute(code, () -> loadTarget(code));
+        if (loaded.isEmpty()) {
+            return timed(redirectNotFoundTimer, "not_found", code, start, NOT_FOUND);
+        }
+
+        return timed(redirectMissTimer, "miss", code, start, URI.create(loaded.get()));
+    }
+
+    private URI timed(Timer timer, String outcome, String code, long start, URI target) {
+        long elapsed = System.nanoTime() - start;
+        timer.record(elapsed, TimeUnit.NANOSECONDS);
+        accessLog.record(code, outcome, elapsed);
+        return target;
+    }
+
+    private Optional<String> loadTarget(String code) {
+        if (!loadLeaseEnabled) {
+            return loadFromDatabase(code);
+        }
+
+        // Another node is already loading this code; wait for it to land in Redis
+        String token = UUID.randomUUID().toString();
+        if (!redisCacheService.tryAcquireLoadLease(code, token, loadLeaseTtlMs)) {
+            Optional<LocalLinkCache.Entry> cached = redisCacheService.awaitCachedTarget(code, loadLeaseWaitMs);
+            if (cached.isPresent()) {
+                clusterCoalescedCounter.increment();
+                return cached.filter(entry -> entry.isRedirectable(System.currentTimeMillis()))
+                        .map(LocalLinkCache.Entry::longUrl);
+            }
+            log.debug("Load lease for code {} not released in time, loading it here", code);
+            return loadFromDatabase(code);
+        }
         try {
-            ShortLink shortLink = linkRepository.findById(shortLinkId)
-                    .orElseThrow(() -> new IllegalArgumentException("Link not found"));
+            return loadFromDatabase(code);
+        } finally {
+            redisCacheService.releaseLoadLease(code, token);
+        }
+    }
 
-            // Cache the result for future requests
-            redisCacheService.cacheShortLink(shortLink);
+    private Optional<String> loadFromDatabase(String code) {
+        // Codes may be custom, so they are looked up as-is rather than decoded to an id
+        log.debug("Cache miss for short code: {}, checking database", code);
+        long loadEpoch = redisCacheService.missingEpoch(code);
+        Optional<CachedShortLink> shortLink = linkRepository.findCachedByShortCode(code);
+        if (shortLink.isEmpty()) {
+            log.debug("Short link not found for code: {}", code);
+            if (shortCodeFilter.isReady()) {
+                shortCodeFilter.recordFalsePositive();
+            }
+            redisCacheService.cacheMissing(code, loadEpoch);
+            return Optional.empty();
+        }
 
-            URI longUrl = URI.create(shortLink.getLongUrl());
-            log.info("Found target URL: {} for short code: {}", longUrl, code);
-            return longUrl;
-        } catch (IllegalArgumentException e) {
-            log.warn("Short link not found for code: {} - {}", code, e.getMessage());
-            return URI.create("/error");
+        // Cache the result for future requests, disabled links included so they are rejected from the cache
+        CachedShortLink link = shortLink.get();
+        redisCacheService.cacheShortLink(link);
+        if (!link.isRedirectable(Instant.now())) {
+            log.debug("Short link for code {} is expired or disabled", code);
+            if (link.hasActiveStatus()) {
+                // Expired but not swept yet; not worth a Redis entry, remember it locally instead
+                redisCacheService.cacheMissing(code, loadEpoch);
+            }
+            return Optional.empty();
         }
+        return Optional.of(link.getLongUrl());
     }
 
 }
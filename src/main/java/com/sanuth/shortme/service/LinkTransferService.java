@@ -0,0 +1,280 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.model.db.ShortLink;
+import com.sanuth.shortme.model.dto.CreateShortLinkRequest;
+import com.sanuth.shortme.model.dto.LinkImportResult;
+import com.sanuth.shortme.model.dto.ShortLinkRecord;
+import com.sanuth.shortme.repository.LinkRepository;
+import com.sanuth.shortme.util.LogRateLimiter;
+import com.sanuth.shortme.util.UrlNormalizer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.MappingIterator;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.ObjectReader;
+import tools.jackson.databind.ObjectWriter;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Streams the whole link table to and from NDJSON, one {@link ShortLinkRecord} per line, for
+ * migrations and backups. Neither direction holds more than one batch of rows in memory, so
+ * tables larger than the heap are fine. Progress and throughput are logged every
+ * {@code shortme.links.transfer.progress-every} rows.
+ *
+ * <p>Imported URLs go through the same {@link UrlNormalizer} check as links created through the
+ * API and are stored in normal form. Short codes must either be the generated code for the
+ * record's id or pass the same constraints as a custom code on {@link CreateShortLinkRequest}.
+ * Records that fail either check are rejected and counted.
+ */
+@Service
+public class LinkTransferService {
+    private static final Logger log = LoggerFactory.getLogger(LinkTransferService.class);
+
+    private final LinkRepository linkRepository;
+    private final RedisCacheService redisCacheService;
+    private final ShortLinkIdAllocator idAllocator;
+    private final ShortCodeFilter shortCodeFilter;
+    private final ShortCodeGenerator shortCodeGenerator;
+    private final Validator validator;
+    private final ObjectReader recordReader;
+    private final ObjectWriter recordWriter;
+    private final int batchSize;
+    private final long progressEvery;
+    private final Counter importedCounter;
+    private final LogRateLimiter rejectedLog = new LogRateLimiter(10);
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public LinkTransferService(LinkRepository linkRepository, RedisCacheService redisCacheService,
+                               ShortLinkIdAllocator idAllocator, ShortCodeFilter shortCodeFilter,
+                               ShortCodeGenerator shortCodeGenerator, Validator validator,
+                               ObjectMapper objectMapper, MeterRegistry meterRegistry,
+                               @Value("${shortme.links.transfer.batch-size:1000}") int batchSize,
+                               @Value("${shortme.links.transfer.progress-every:100000}") long progressEvery) {
+        this.linkRepository = linkRepository;
+        this.redisCacheService = redisCacheService;
+        this.idAllocator = idAllocator;
+        this.shortCodeFilter = shortCodeFilter;
+        this.shortCodeGenerator = shortCodeGenerator;
+        this.validator = validator;
+        this.recordReader = objectMapper.readerFor(ShortLinkRecord.class);
+        this.recordWriter = objectMapper.writerFor(ShortLinkRecord.class);
+        this.batchSize = batchSize;
+        this.progressEvery = progressEvery;
+        this.importedCounter = Counter.builder("shortme.links.creations")
+                .description("Short links created")
+                .tag("source", "import")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Writes every link to {@code out} in id order. Rows come from a database cursor and are
+     * detached once written, so the persistence context stays empty.
+     */
+    @Transactional(readOnly = true)
+    public long exportLinks(OutputStream out) throws IOException {
+        log.info("Starting link export");
+        long start = System.nanoTime();
+        long exported = 0;
+
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        try (Stream<ShortLink> links = linkRepository.streamAllByOrderById()) {
+            for (ShortLink link : (Iterable<ShortLink>) links::iterator) {
+                buffered.write(recordWriter.writeValueAsBytes(new ShortLinkRecord(link)));
+                buffered.write('\n');
+                entityManager.detach(link);
+                exported++;
+                if (exported % progressEvery == 0) {
+                    logProgress("Exported", exported, start);
+                }
+            }
+        }
+        buffered.flush();
+
+        logProgress("Export finished,", exported, start);
+        return exported;
+    }
+
+    /**
+     * Reads NDJSON records and inserts them in batches of {@code shortme.links.transfer.batch-size}.
+     * Records whose id or code already exists are skipped, so an interrupted import can be re-run.
+     * Afterwards the id sequence is moved past the highest imported id.
+     */
+    public LinkImportResult importLinks(InputStream in, boolean warmCache) {
+        log.info("Starting link import (warm cache: {})", warmCache);
+        long start = System.nanoTime();
+        long imported = 0;
+        long skipped = 0;
+        long rejected = 0;
+        long read = 0;
+        long maxId = 0;
+
+        List<ShortLink> batch = new ArrayList<>(batchSize);
+        try (MappingIterator<ShortLinkRecord> records = recordReader.readValues(in)) {
+            while (records.hasNextValue()) {
+                ShortLinkRecord record = records.nextValue();
+                read++;
+                if (!isImportable(record)) {
+                    skipped++;
+                    continue;
+                }
+                String codeViolation = shortCodeViolation(record);
+                if (codeViolation != null) {
+                    rejected++;
+                    logRejected(record, read, codeViolation);
+                    continue;
+                }
+                try {
+                    record.setLongUrl(UrlNormalizer.normalize(record.getLongUrl()));
+                } catch (IllegalArgumentException e) {
+                    rejected++;
+                    logRejected(record, read, e.getMessage());
+                    continue;
+                }
+                batch.add(record.toShortLink());
+                maxId = Math.max(maxId, record.getId());
+
+                if (batch.size() >= batchSize) {
+                    int inserted = insertBatch(batch, warmCache);
+                    imported += inserted;
+                    skipped += batch.size() - inserted;
+                    batch.clear();
+                }
+                if (read % progressEvery == 0) {
+                    logProgress("Imported", imported, start);
+                }
+            }
+            if (!batch.isEmpty()) {
+                int inserted = insertBatch(batch, warmCache);
+                imported += inserted;
+                skipped += batch.size() - inserted;
+            }
+        } catch (JacksonException e) {
+            throw new IllegalArgumentException("Malformed NDJSON at item " + (read + 1)
+                    + ", " + imported + " links were imported before it");
+        } finally {
+            if (maxId > 0) {
+                idAllocator.reserveThrough(maxId);
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        importedCounter.increment(imported);
+        LinkImportResult result = new LinkImportResult(imported, skipped, rejected, elapsedMs);
+        log.info("Import finished, {} links imported, {} skipped, {} rejected in {} ms ({} links/s)",
+                imported, skipped, rejected, elapsedMs, result.getLinksPerSecond());
+        return result;
+    }
+
+    private static boolean isImportable(ShortLinkRecord record) {
+        return record != null && record.getId() > 0
+                && record.getShortCode() != null && !record.getShortCode().isBlank()
+                && record.getLongUrl() != null && !record.getLongUrl().isBlank();
+    }
+
+    // Generated codes can be shorter than a custom code may be, so they are recognised by decoding
+    private String shortCodeViolation(ShortLinkRecord record) {
+        if (shortCodeGenerator.decode(record.getShortCode()).equals(OptionalLong.of(record.getId()))) {
+            return null;
+        }
+        Set<ConstraintViolation<CreateShortLinkRequest>> violations =
+                validator.validateValue(CreateShortLinkRequest.class, "customShortCode", record.getShortCode());
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private void logRejected(ShortLinkRecord record, long item, String reason) {
+        if (rejectedLog.tryAcquire()) {
+            log.warn("Rejected link with code: {} at item {} ({} similar suppressed) - {}",
+                    record.getShortCode(), item, rejectedLog.drainSuppressed(), reason);
+        }
+    }
+
+    private int insertBatch(List<ShortLink> batch, boolean warmCache) {
+        List<ShortLink> fresh = withoutExisting(batch);
+        if (fresh.isEmpty()) {
+            return 0;
+        }
+
+        List<ShortLink> inserted = new ArrayList<>(fresh.size());
+        try {
+            linkRepository.saveAll(fresh);
+            inserted.addAll(fresh);
+        } catch (DataIntegrityViolationException e) {
+            // Rows written concurrently by someone else; insert individually and skip the conflicts
+            log.warn("Import batch of {} links hit a conflict, retrying row by row", fresh.size());
+            entityManager.clear();
+            for (ShortLink link : fresh) {
+                try {
+                    linkRepository.save(link);
+                    inserted.add(link);
+                } catch (DataIntegrityViolationException conflict) {
+                    log.debug("Skipping conflicting link with code: {}", link.getShortCode());
+                }
+            }
+        }
+        // Inserted entities stay managed under open-in-view; drop them so memory stays flat
+        entityManager.clear();
+
+        if (warmCache) {
+            redisCacheService.cacheShortLinks(inserted);
+        }
+        shortCodeFilter.announce(inserted.stream().map(ShortLink::getShortCode).toList());
+        return inserted.size();
+    }
+
+    private List<ShortLink> withoutExisting(List<ShortLink> batch) {
+        Set<String> codes = new HashSet<>();
+        Set<Long> ids = new HashSet<>();
+        for (ShortLink link : batch) {
+            codes.add(link.getShortCode());
+            ids.add(link.getId());
+        }
+        Set<String> takenCodes = new HashSet<>(linkRepository.findExistingShortCodes(codes));
+        Set<Long> takenIds = new HashSet<>(linkRepository.findExistingIds(ids));
+
+        List<ShortLink> fresh = new ArrayList<>(batch.size());
+        Set<String> seenCodes = new HashSet<>();
+        Set<Long> seenIds = new HashSet<>();
+        for (ShortLink link : batch) {
+            if (!takenCodes.contains(link.getShortCode()) && !takenIds.contains(link.getId())
+                    && seenCodes.add(link.getShortCode()) && seenIds.add(link.getId())) {
+                fresh.add(link);
+            }
+        }
+        return fresh;
+    }
+
+    private static void logProgress(String action, long rows, long startNanos) {
+        long elapsedMs = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        log.info("{} {} links in {} ms ({} links/s)", action, rows, elapsedMs, rows * 1000 / elapsedMs);
+    }
+}
@@ -0,0 +1,255 @@
+package com.sanuth.shortme.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.sanuth.shortme.model.cache.CachedShortLink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Node-local L1 tier in front of the Redis cache. Caffeine evicts by size using W-TinyLFU,
+ * so a small set of viral codes stays resident while one-off lookups are filtered out.
+ * Entries also expire after a short TTL, which bounds staleness if an invalidation message is lost.
+ *
+ * <p>Codes that resolved to nothing are remembered in a separate negative cache so repeated
+ * lookups of unknown codes do not reach the database. Every node announces the codes it creates
+ * on {@link #CREATED_CHANNEL}, which evicts them from the negative cache cluster-wide.
+ *
+ * <p>A fill loaded from Redis or the database is dropped if the code changed while it was loading.
+ * Changes are tracked per stripe of codes: invalidations guard both caches, creations only the
+ * negative cache, so creating links does not hold back filling the cache with other links.
+ *
+ * <p>Entries remember when the Redis copy behind them expires and how often they were hit, so
+ * {@link CacheRefresher} can refresh hot links before Redis drops them.
+ *
+ * <p>The cache only serves and accepts entries while this node is subscribed to the invalidation
+ * channels, and it is cleared whenever a subscription is (re)established, so invalidations missed
+ * while disconnected cannot leave stale entries behind.
+ */
+@Component
+public class LocalLinkCache implements MessageListener, SubscriptionListener {
+    private static final Logger log = LoggerFactory.getLogger(LocalLinkCache.class);
+
+    public static final String INVALIDATION_CHANNEL = "shortlinks:invalidate";
+    public static final String CREATED_CHANNEL = "shortlinks:created";
+    private static final List<String> CHANNELS = List.of(INVALIDATION_CHANNEL, CREATED_CHANNEL);
+
+    private final Cache<String, Entry> cache;
+    private final Cache<String, Boolean> missing;
+    private final Set<String> subscribedChannels = ConcurrentHashMap.newKeySet();
+
+    private static final int EPOCH_STRIPES = 1024;
+
+    // Bumped on invalidation so a load that raced with it does not re-insert a stale URL;
+    // invalidateAll bumps the generation, which counts for every stripe
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLongArray invalidations = new AtomicLongArray(EPOCH_STRIPES);
+    // Bumped on creation so a lookup that raced with it does not cache the code as missing
+    private final AtomicLongArray creations = new AtomicLongArray(EPOCH_STRIPES);
+
+    private volatile boolean subscribed;
+
+    public LocalLinkCache(@Value("${shortme.cache.local.maximum-size:10000}") long maximumSize,
+                          @Value("${shortme.cache.local.ttl-seconds:60}") long ttlSeconds,
+                          @Value("${shortme.cache.negative.maximum-size:100000}") long missingMaximumSize,
+                          @Value("${shortme.cache.negative.ttl-seconds:30}") long missingTtlSeconds) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+        this.missing = Caffeine.newBuilder()
+                .maximumSize(missingMaximumSize)
+                .expireAfterWrite(Duration.ofSeconds(missingTtlSeconds))
+                .build();
+    }
+
+    public Entry getEntry(String shortCode) {
+        if (!subscribed) {
+            return null;
+        }
+        return cache.getIfPresent(shortCode);
+    }
+
+    /** Read before loading {@code shortCode} and passed to {@link #putIfUnchanged}. */
+    public long epoch(String shortCode) {
+        return generation.get() + invalidations.get(stripe(shortCode));
+    }
+
+    /** Read before looking {@code shortCode} up and passed to {@link #putMissingIfUnchanged}. */
+    public long missingEpoch(String shortCode) {
+        return epoch(shortCode) + creations.get(stripe(shortCode));
+    }
+
+    // Each counter only grows, so a sum of them changes whenever one of them does
+    private static int stripe(String shortCode) {
+        int h = shortCode.hashCode();
+        return (h ^ (h >>> 16)) & (EPOCH_STRIPES - 1);
+    }
+
+    public void put(String shortCode, Entry entry) {
+        if (subscribed) {
+            cache.put(shortCode, entry);
+        }
+    }
+
+    /**
+     * Stores a value loaded from Redis only if {@code shortCode} was not invalidated since
+     * {@code loadEpoch} was read. Otherwise the loaded value may already be stale and is dropped.
+     * Returns whether the value was stored.
+     */
+    public boolean putIfUnchanged(String shortCode, Entry entry, long loadEpoch) {
+        if (!subscribed || epoch(shortCode) != loadEpoch) {
+            return false;
+        }
+        cache.put(shortCode, entry);
+        if (epoch(shortCode) != loadEpoch) {
+            cache.invalidate(shortCode);
+            return false;
+        }
+        return true;
+    }
+
+    public boolean isKnownMissing(String shortCode) {
+        return subscribed && missing.getIfPresent(shortCode) != null;
+    }
+
+    // Same guard as putIfUnchanged, against missingEpoch: a creation announced during the lookup must win
+    public void putMissingIfUnchanged(String shortCode, long loadEpoch) {
+        if (!subscribed || missingEpoch(shortCode) != loadEpoch) {
+            return;
+        }
+        missing.put(shortCode, Boolean.TRUE);
+        if (missingEpoch(shortCode) != loadEpoch) {
+            missing.invalidate(shortCode);
+        }
+    }
+
+    public void invalidate(String shortCode) {
+        invalidations.incrementAndGet(stripe(shortCode));
+        cache.invalidate(shortCode);
+        missing.invalidate(shortCode);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+        missing.invalidateAll();
+    }
+
+    public boolean isSubscribed() {
+        return subscribed;
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    // Invalidations and creations published by any node, including this one
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String channel = new String(message.getChannel(), StandardCharsets.UTF_8);
+        String shortCode = new String(message.getBody(), StandardCharsets.UTF_8);
+        if (CREATED_CHANNEL.equals(channel)) {
+            // A new code has no cached entry to go stale, only a cached "not found"
+            creations.incrementAndGet(stripe(shortCode));
+            missing.invalidate(shortCode);
+            return;
+        }
+        invalidate(shortCode);
+        log.debug("Invalidated local cache entry for code: {}", shortCode);
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        invalidateAll();
+        subscribedChannels.add(new String(channel, StandardCharsets.UTF_8));
+        if (subscribedChannels.containsAll(CHANNELS)) {
+            subscribed = true;
+            log.info("Local link cache enabled, subscribed to {}", CHANNELS);
+        }
+    }
+
+    @Override
+    public void onChannelUnsubscribed(byte[] channel, long count) {
+        subscribed = false;
+        subscribedChannels.remove(new String(channel, StandardCharsets.UTF_8));
+        invalidateAll();
+        log.warn("Local link cache disabled, unsubscribed from {}", new String(channel, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A cached target, whether it may be redirected to, and what is known about the Redis entry
+     * behind it. Inactive links are cached too, so they are rejected without another lookup.
+     */
+    public static final class Entry {
+        private final String longUrl;
+        private final boolean active;
+        private final long linkExpiresAtMs;
+        private final long ttlSeconds;
+        private volatile long redisExpiresAtMs;
+        private final AtomicInteger hits = new AtomicInteger();
+
+        /**
+         * @param linkExpiresAtMs  epoch millis at which the link itself expires, 0 if never
+         * @param ttlSeconds       effective TTL of the Redis entry, 0 if unknown
+         * @param redisExpiresAtMs epoch millis at which Redis drops it, 0 if unknown
+         */
+        public Entry(String longUrl, boolean active, long linkExpiresAtMs, long ttlSeconds, long redisExpiresAtMs) {
+            this.longUrl = longUrl;
+            this.active = active;
+            this.linkExpiresAtMs = linkExpiresAtMs;
+            this.ttlSeconds = ttlSeconds;
+            this.redisExpiresAtMs = redisExpiresAtMs;
+        }
+
+        public static Entry of(CachedShortLink cached, long ttlSeconds, long redisExpiresAtMs) {
+            return new Entry(cached.getLongUrl(), cached.hasActiveStatus(),
+                    cached.getExpiresAt() != null ? cached.getExpiresAt().toEpochMilli() : 0,
+                    ttlSeconds, redisExpiresAtMs);
+        }
+
+        public String longUrl() {
+            return longUrl;
+        }
+
+        public boolean isRedirectable(long nowMs) {
+            return active && (linkExpiresAtMs == 0 || nowMs < linkExpiresAtMs);
+        }
+
+        public long linkExpiresAtMs() {
+            return linkExpiresAtMs;
+        }
+
+        public long ttlSeconds() {
+            return ttlSeconds;
+        }
+
+        public long redisExpiresAtMs() {
+            return redisExpiresAtMs;
+        }
+
+        /** Counts a hit and returns the hits since this entry was cached or last extended. */
+        public int recordHit() {
+            return hits.incrementAndGet();
+        }
+
+        public void extendedTo(long redisExpiresAtMs) {
+            this.redisExpiresAtMs = redisExpiresAtMs;
+            hits.set(0);
+        }
+    }
+}
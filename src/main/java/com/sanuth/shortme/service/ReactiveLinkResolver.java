@@ -0,0 +1,138 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.model.cache.CachedShortLink;
+import com.sanuth.shortme.model.db.LinkStatus;
+import com.sanuth.shortme.repository.CompactShortLinkCacheStore;
+import com.sanuth.shortme.repository.HashShortLinkCacheStore;
+import com.sanuth.shortme.util.ShortLinkCacheCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of {@link LinkService#getTarget} for the reactive redirect server.
+ * Lookups go through the same tiers in the same order: short code filter, local cache, negative
+ * cache, Redis via {@link ReactiveStringRedisTemplate}, then Postgres via R2DBC. Status and
+ * expiry are read from whichever tier answers, so disabled and expired links resolve to nothing.
+ *
+ * <p>Everything that runs on the event loop is either in memory or non-blocking I/O. Writing a
+ * database hit back to Redis reuses the blocking {@link RedisCacheService}, so it is handed to
+ * {@link Schedulers#boundedElastic()} and not awaited.
+ */
+@Service
+@ConditionalOnProperty(name = "shortme.reactive.enabled", havingValue = "true")
+public class ReactiveLinkResolver {
+    private static final Logger log = LoggerFactory.getLogger(ReactiveLinkResolver.class);
+
+    private static final String SELECT_BY_CODE = "select id, short_code, long_url, created_at, expires_at, status, "
+            + "cache_ttl_seconds from short_link where short_code = $1";
+    private static final List<String> HASH_FIELDS = List.of("longUrl", "status", "expiresAt");
+
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final DatabaseClient databaseClient;
+    private final RedisCacheService redisCacheService;
+    private final LocalLinkCache localLinkCache;
+    private final ShortCodeFilter shortCodeFilter;
+    private final boolean compactBackend;
+
+    public ReactiveLinkResolver(ReactiveStringRedisTemplate redisTemplate,
+                                DatabaseClient databaseClient,
+                                RedisCacheService redisCacheService,
+                                LocalLinkCache localLinkCache,
+                                ShortCodeFilter shortCodeFilter,
+                                @Value("${shortme.cache.backend:hash}") String cacheBackend) {
+        this.redisTemplate = redisTemplate;
+        this.databaseClient = databaseClient;
+        this.redisCacheService = redisCacheService;
+        this.localLinkCache = localLinkCache;
+        this.shortCodeFilter = shortCodeFilter;
+        this.compactBackend = "compact".equals(cacheBackend);
+    }
+
+    /** Emits the long URL for {@code code}, or completes empty if the code does not exist. */
+    public Mono<String> resolve(String code) {
+        if (shortCodeFilter.isReady() && !shortCodeFilter.mightContain(code)) {
+            return Mono.empty();
+        }
+
+        LocalLinkCache.Entry local = localLinkCache.getEntry(code);
+        if (local != null) {
+            return redirectable(local);
+        }
+        if (localLinkCache.isKnownMissing(code)) {
+            return Mono.empty();
+        }
+
+        long loadEpoch = localLinkCache.epoch(code);
+        long missingEpoch = localLinkCache.missingEpoch(code);
+        // A disabled or expired Redis entry is an answer too; only a Redis miss goes to the database
+        return fromRedis(code)
+                .doOnNext(entry -> localLinkCache.putIfUnchanged(code, entry, loadEpoch))
+                .switchIfEmpty(Mono.defer(() -> fromDatabase(code, missingEpoch)))
+                .flatMap(ReactiveLinkResolver::redirectable);
+    }
+
+    private static Mono<String> redirectable(LocalLinkCache.Entry entry) {
+        return entry.isRedirectable(System.currentTimeMillis()) ? Mono.just(entry.longUrl()) : Mono.empty();
+    }
+
+    // Redis expiry is not fetched here, so these entries are never refreshed early
+    private Mono<LocalLinkCache.Entry> fromRedis(String code) {
+        Mono<LocalLinkCache.Entry> lookup = compactBackend
+                ? redisTemplate.opsForValue().get(CompactShortLinkCacheStore.KEY_PREFIX + code)
+                        .map(value -> LocalLinkCache.Entry.of(ShortLinkCacheCodec.decode(code, value), 0, 0))
+                : redisTemplate.<String, String>opsForHash()
+                        .multiGet(HashShortLinkCacheStore.KEY_PREFIX + code, HASH_FIELDS)
+                        .filter(fields -> fields.get(0) != null)
+                        .map(fields -> new LocalLinkCache.Entry(fields.get(0),
+                                fields.get(1) == null || LinkStatus.ACTIVE.name().equals(fields.get(1)),
+                                fields.get(2) != null ? Instant.parse(fields.get(2)).toEpochMilli() : 0, 0, 0));
+        return lookup.onErrorResume(e -> {
+            log.warn("Redis cache lookup failed for code: {} - {}", code, e.getMessage());
+            return Mono.empty();
+        });
+    }
+
+    private Mono<LocalLinkCache.Entry> fromDatabase(String code, long missingEpoch) {
+        return databaseClient.sql(SELECT_BY_CODE)
+                .bind(0, code)
+                .map((row, metadata) -> {
+                    String status = row.get("status", String.class);
+                    return new CachedShortLink(
+                            row.get("id", Long.class),
+                            row.get("short_code", String.class),
+                            row.get("long_url", String.class),
+                            row.get("created_at", Instant.class),
+                            row.get("expires_at", Instant.class),
+                            status != null ? LinkStatus.valueOf(status) : null,
+                            row.get("cache_ttl_seconds", Long.class));
+                })
+                .one()
+                .doOnNext(cached -> Mono.fromRunnable(() -> redisCacheService.cacheShortLink(cached))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .subscribe())
+                .switchIfEmpty(Mono.fromRunnable(() -> {
+                    log.debug("Short link not found for code: {}", code);
+                    if (shortCodeFilter.isReady()) {
+                        shortCodeFilter.recordFalsePositive();
+                    }
+                    localLinkCache.putMissingIfUnchanged(code, missingEpoch);
+                }))
+                .map(cached -> {
+                    // Expired but not swept yet; cacheShortLink skipped it, remember it locally instead
+                    if (!cached.isRedirectable(Instant.now()) && cached.hasActiveStatus()) {
+                        localLinkCache.putMissingIfUnchanged(code, missingEpoch);
+                    }
+                    return LocalLinkCache.Entry.of(cached, 0, 0);
+                });
+    }
+}
@@ -0,0 +1,47 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.util.LogRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sampled access log of resolved redirects, written to the {@code shortme.access} logger as
+ * {@code code=… outcome=… micros=… suppressed=…}. Only {@code shortme.access-log.sample-rate} of
+ * redirects are considered and at most {@code shortme.access-log.max-per-second} of those are
+ * written, so the cost per redirect stays a random draw however busy the node is. {@code suppressed}
+ * counts the sampled redirects the cap skipped since the previous line. Totals and latency
+ * percentiles come from the {@code shortme.redirect} timer; this log is for looking at examples.
+ *
+ * <p>logback-spring.xml routes the logger to its own asynchronous appender that drops events
+ * rather than blocking a request thread when the queue is full.
+ */
+@Component
+public class RedirectAccessLog {
+    private static final Logger accessLog = LoggerFactory.getLogger("shortme.access");
+
+    private final double sampleRate;
+    private final LogRateLimiter rateLimiter;
+
+    public RedirectAccessLog(@Value("${shortme.access-log.sample-rate:0.01}") double sampleRate,
+                             @Value("${shortme.access-log.max-per-second:100}") int maxPerSecond) {
+        this.sampleRate = sampleRate;
+        this.rateLimiter = new LogRateLimiter(maxPerSecond);
+    }
+
+    public void record(String code, String outcome, long elapsedNanos) {
+        if (sampleRate <= 0 || !accessLog.isInfoEnabled()) {
+            return;
+        }
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        if (rateLimiter.tryAcquire()) {
+            accessLog.info("code={} outcome={} micros={} suppressed={}", code, outcome, elapsedNanos / 1000,
+                    rateLimiter.drainSuppressed());
+        }
+    }
+}
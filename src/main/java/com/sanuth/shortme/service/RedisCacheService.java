@@ -2,58 +2,345 @@ package com.sanuth.shortme.service;
 
 import com.sanuth.shortme.model.cache.CachedShortLink;
 import com.sanuth.shortme.model.db.ShortLink;
-import com.sanuth.shortme.repository.CachedShortLinkRepository;
+import com.sanuth.shortme.repository.ShortLinkCacheStore;
+import com.sanuth.shortme.util.LogRateLimiter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Service
 public class RedisCacheService {
     private static final Logger log = LoggerFactory.getLogger(RedisCacheService.class);
-    private final CachedShortLinkRepository cachedShortLinkRepository;
+    private static final String LOAD_LEASE_PREFIX = "lease:shortlink:";
+    private static final long LEASE_POLL_INTERVAL_MS = 10;
+    private static final RedisScript<Long> RELEASE_LEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
 
-    public RedisCacheService(CachedShortLinkRepository cachedShortLinkRepository) {
-        this.cachedShortLinkRepository = cachedShortLinkRepository;
+    private final ShortLinkCacheStore cacheStore;
+    private final LocalLinkCache localLinkCache;
+    private final RedisTemplate<String, String> stringRedisTemplate;
+    private final CacheRefresher cacheRefresher;
+    // While Redis is down every lookup fails; one warning a second says as much as thousands
+    private final LogRateLimiter lookupFailureLog = new LogRateLimiter(1);
+
+    // Hit ratio per tier is hits / (hits + misses); a Redis miss falls through to the database
+    private final Counter localHitCounter;
+    private final Counter localMissCounter;
+    private final Counter redisHitCounter;
+    private final Counter redisMissCounter;
+    private final Counter redisErrorCounter;
+
+    public RedisCacheService(ShortLinkCacheStore cacheStore,
+                             LocalLinkCache localLinkCache,
+                             RedisTemplate<String, String> stringRedisTemplate,
+                             CacheRefresher cacheRefresher,
+                             MeterRegistry meterRegistry) {
+        this.cacheStore = cacheStore;
+        this.localLinkCache = localLinkCache;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.cacheRefresher = cacheRefresher;
+
+        this.localHitCounter = lookupCounter(meterRegistry, "local", "hit");
+        this.localMissCounter = lookupCounter(meterRegistry, "local", "miss");
+        this.redisHitCounter = lookupCounter(meterRegistry, "redis", "hit");
+        this.redisMissCounter = lookupCounter(meterRegistry, "redis", "miss");
+        this.redisErrorCounter = lookupCounter(meterRegistry, "redis", "error");
+        Gauge.builder("shortme.cache.local.size", localLinkCache, LocalLinkCache::size)
+                .description("Entries in the node-local link cache")
+                .register(meterRegistry);
+    }
+
+    private static Counter lookupCounter(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("shortme.cache.lookups")
+                .description("Short link cache lookups by tier and result")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
+    // Freshly created links go to Redis only, as in cacheShortLinks; the local tier fills on first read
     public void cacheShortLink(ShortLink shortLink) {
+        store(toCached(shortLink));
+    }
+
+    // A link just loaded for a lookup, so it is hot on this node and goes into the local tier too
+    public void cacheShortLink(CachedShortLink cached) {
+        long ttl = store(cached);
+        if (ttl > 0) {
+            localLinkCache.put(cached.getShortCode(),
+                    LocalLinkCache.Entry.of(cached, ttl, System.currentTimeMillis() + ttl * 1000));
+        }
+    }
+
+    // Returns the TTL it was stored with, 0 if it was not stored
+    private long store(CachedShortLink cached) {
         try {
-            CachedShortLink cached = new CachedShortLink(
-                    shortLink.getId(),
-                    shortLink.getShortCode(),
-                    shortLink.getLongUrl(),
-                    shortLink.getCreatedAt(),
-                    shortLink.getExpiresAt(),
-                    shortLink.getStatus()
-            );
-            cachedShortLinkRepository.save(cached);
-            log.debug("Cached short link with code: {}", shortLink.getShortCode());
+            long ttl = cacheRefresher.ttlSeconds(cached);
+            if (ttl <= 0) {
+                // Already expired, LinkExpirySweeper marks it and evicts any cached copy
+                return 0;
+            }
+            cached.setTtl(ttl);
+            cacheStore.save(cached);
+            log.debug("Cached short link with code: {}", cached.getShortCode());
+            return ttl;
+        } catch (Exception e) {
+            log.warn("Failed to cache short link with code: {} - {}", cached.getShortCode(), e.getMessage());
+            return 0;
+        }
+    }
+
+    // Warms Redis for freshly created links; like a single creation, not put in the local tier
+    public void cacheShortLinks(List<ShortLink> shortLinks) {
+        try {
+            List<CachedShortLink> cached = new ArrayList<>(shortLinks.size());
+            for (ShortLink shortLink : shortLinks) {
+                CachedShortLink link = toCached(shortLink);
+                long ttl = cacheRefresher.ttlSeconds(link);
+                if (ttl > 0) {
+                    link.setTtl(ttl);
+                    cached.add(link);
+                }
+            }
+            cacheStore.saveAll(cached);
+            log.debug("Cached {} short links", cached.size());
         } catch (Exception e) {
-            log.warn("Failed to cache short link with code: {} - {}", shortLink.getShortCode(), e.getMessage());
+            log.warn("Failed to cache {} short links - {}", shortLinks.size(), e.getMessage());
         }
     }
 
-    public Optional<String> getLongUrlByShortCode(String shortCode) {
+    private static CachedShortLink toCached(ShortLink shortLink) {
+        return new CachedShortLink(
+                shortLink.getId(),
+                shortLink.getShortCode(),
+                shortLink.getLongUrl(),
+                shortLink.getCreatedAt(),
+                shortLink.getExpiresAt(),
+                shortLink.getStatus(),
+                shortLink.getCacheTtlSeconds()
+        );
+    }
+
+    /**
+     * The cached entry for {@code shortCode}, including whether it may still be redirected to.
+     * Callers check {@link LocalLinkCache.Entry#isRedirectable} rather than looking the link up again.
+     */
+    public Optional<LocalLinkCache.Entry> getCachedTarget(String shortCode) {
+        LocalLinkCache.Entry local = localLinkCache.getEntry(shortCode);
+        if (local != null) {
+            localHitCounter.increment();
+            cacheRefresher.onHit(shortCode, local);
+            return Optional.of(local);
+        }
+        localMissCounter.increment();
+
         try {
-            Optional<CachedShortLink> cached = cachedShortLinkRepository.findById(shortCode);
+            long loadEpoch = localLinkCache.epoch(shortCode);
+            Optional<CachedShortLink> cached = cacheStore.findById(shortCode);
             if (cached.isPresent()) {
-                log.info("Cache hit for short code: {}", shortCode);
-                return Optional.of(cached.get().getLongUrl());
+                redisHitCounter.increment();
+                LocalLinkCache.Entry entry = toEntry(cached.get());
+                localLinkCache.putIfUnchanged(shortCode, entry, loadEpoch);
+                cacheRefresher.onHit(shortCode, entry);
+                return Optional.of(entry);
             } else {
+                redisMissCounter.increment();
                 log.debug("Cache miss for short code: {}", shortCode);
                 return Optional.empty();
             }
         } catch (Exception e) {
-            log.warn("Redis cache lookup failed for code: {} - {}", shortCode, e.getMessage());
+            redisErrorCounter.increment();
+            if (lookupFailureLog.tryAcquire()) {
+                log.warn("Redis cache lookup failed for code: {} ({} similar suppressed) - {}",
+                        shortCode, lookupFailureLog.drainSuppressed(), e.getMessage());
+            }
             return Optional.empty();
         }
     }
 
+    // Redis reports whole seconds, so assume the entry expires up to a second sooner
+    private LocalLinkCache.Entry toEntry(CachedShortLink cached) {
+        Long remaining = cached.getTtl();
+        long expiresAtMs = remaining == null ? 0
+                : System.currentTimeMillis() + Math.max(0, remaining - 1) * 1000;
+        return LocalLinkCache.Entry.of(cached, cacheRefresher.ttlSeconds(cached), expiresAtMs);
+    }
+
+    /**
+     * Loads codes that are not in the local cache yet from Redis into it, so the first request for
+     * a trending link on this node is served from memory. Not counted as hits for refresh purposes.
+     */
+    public int warmLocal(Collection<String> shortCodes) {
+        if (!localLinkCache.isSubscribed()) {
+            return 0;
+        }
+        int warmed = 0;
+        for (String shortCode : shortCodes) {
+            if (localLinkCache.getEntry(shortCode) != null) {
+                continue;
+            }
+            try {
+                long loadEpoch = localLinkCache.epoch(shortCode);
+                Optional<CachedShortLink> cached = cacheStore.findById(shortCode);
+                if (cached.isPresent()) {
+                    localLinkCache.putIfUnchanged(shortCode, toEntry(cached.get()), loadEpoch);
+                    warmed++;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to warm local cache for code: {} - {}", shortCode, e.getMessage());
+                break;
+            }
+        }
+        return warmed;
+    }
+
+    // Read before a database lookup and passed to cacheMissing, see LocalLinkCache#putMissingIfUnchanged
+    public long missingEpoch(String shortCode) {
+        return localLinkCache.missingEpoch(shortCode);
+    }
+
+    public boolean isKnownMissing(String shortCode) {
+        return localLinkCache.isKnownMissing(shortCode);
+    }
+
+    public void cacheMissing(String shortCode, long loadEpoch) {
+        localLinkCache.putMissingIfUnchanged(shortCode, loadEpoch);
+    }
+
+    /**
+     * Tells every node that these codes now exist, so none of them keeps serving a cached
+     * "not found" for a code that was probed before it was created. One pipeline for all codes.
+     * Returns whether the announcement was published; see {@link ShortCodeFilter#announce}.
+     */
+    public boolean publishCreated(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return true;
+        }
+        try {
+            publishAll(LocalLinkCache.CREATED_CHANNEL, shortCodes);
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to announce {} created short links - {}", shortCodes.size(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Batch form of {@link #invalidateCache}: one multi-key delete and one pipeline of
+     * invalidation messages for all codes.
+     */
+    public void evictAll(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+        shortCodes.forEach(localLinkCache::invalidate);
+        try {
+            cacheStore.deleteAll(shortCodes);
+            publishAll(LocalLinkCache.INVALIDATION_CHANNEL, shortCodes);
+            log.debug("Evicted {} short links from the cache", shortCodes.size());
+        } catch (Exception e) {
+            log.warn("Failed to evict {} short links from the cache - {}", shortCodes.size(), e.getMessage());
+        }
+    }
+
+    private void publishAll(String channel, Collection<String> shortCodes) {
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (String shortCode : shortCodes) {
+                    ops.convertAndSend(channel, shortCode);
+                }
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Claims the cluster-wide right to load {@code shortCode} from the database for {@code ttlMs}.
+     * Fails open: if Redis cannot be asked, the caller loads as if it held the lease.
+     */
+    public boolean tryAcquireLoadLease(String shortCode, String token, long ttlMs) {
+        try {
+            Boolean acquired = stringRedisTemplate.opsForValue()
+                    .setIfAbsent(LOAD_LEASE_PREFIX + shortCode, token, Duration.ofMillis(ttlMs));
+            return !Boolean.FALSE.equals(acquired);
+        } catch (Exception e) {
+            log.warn("Failed to acquire load lease for code: {} - {}", shortCode, e.getMessage());
+            return true;
+        }
+    }
+
+    // Only deletes the lease if it is still ours, it may have expired and been taken by another node
+    public void releaseLoadLease(String shortCode, String token) {
+        try {
+            stringRedisTemplate.execute(RELEASE_LEASE_SCRIPT, List.of(LOAD_LEASE_PREFIX + shortCode), token);
+        } catch (Exception e) {
+            log.warn("Failed to release load lease for code: {} - {}", shortCode, e.getMessage());
+        }
+    }
+
+    /**
+     * Polls the cache while another node holds the load lease, until the entry appears or
+     * {@code waitMs} passes. Empty means the caller should load it itself.
+     */
+    public Optional<LocalLinkCache.Entry> awaitCachedTarget(String shortCode, long waitMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(waitMs);
+        try {
+            while (System.nanoTime() < deadline) {
+                Thread.sleep(LEASE_POLL_INTERVAL_MS);
+                Optional<LocalLinkCache.Entry> cached = getCachedTarget(shortCode);
+                if (cached.isPresent()) {
+                    return cached;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Whether either cache tier holds an entry for {@code shortCode}, whatever its status. Unlike
+     * {@link #getCachedTarget} this is not a redirect, so it counts no hits and refreshes nothing.
+     * A Redis failure reads as not cached.
+     */
+    public boolean isCached(String shortCode) {
+        if (localLinkCache.getEntry(shortCode) != null) {
+            return true;
+        }
+        try {
+            return cacheStore.findById(shortCode).isPresent();
+        } catch (Exception e) {
+            log.debug("Redis cache lookup failed for code: {} - {}", shortCode, e.getMessage());
+            return false;
+        }
+    }
+
     public void invalidateCache(String shortCode) {
+        localLinkCache.invalidate(shortCode);
         try {
-            cachedShortLinkRepository.deleteById(shortCode);
+            cacheStore.deleteById(shortCode);
+            // Publish after the Redis delete so other nodes cannot reload the old entry from Redis
+            stringRedisTemplate.convertAndSend(LocalLinkCache.INVALIDATION_CHANNEL, shortCode);
             log.debug("Invalidated cache for short code: {}", shortCode);
         } catch (Exception e) {
             log.warn("Failed to invalidate cache for code: {} - {}", shortCode, e.getMessage());
@@ -62,8 +349,7 @@ public class RedisCacheService {
 
     public boolean isCacheAvailable() {
         try {
-            cachedShortLinkRepository.count();
-            return true;
+            return cacheStore.isAvailable();
         } catch (Exception e) {
             log.warn("Redis cache is not available: {}", e.getMessage());
             return false;
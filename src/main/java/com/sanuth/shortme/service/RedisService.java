@@ -1,33 +1,330 @@
 package com.sanuth.shortme.service;
 
+import com.sanuth.shortme.model.event.ClickBatch;
+import com.sanuth.shortme.model.event.ClickBreakdown;
+import com.sanuth.shortme.util.ClickBatchCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.connection.RedisStreamCommands.XAddOptions;
+import org.springframework.data.redis.core.RedisOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class RedisService {
     private static final Logger log = LoggerFactory.getLogger(RedisService.class);
+    public static final Duration DAILY_KEY_TTL = Duration.ofDays(30);
+    public static final Duration HOURLY_KEY_TTL = Duration.ofHours(48);
+    public static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH");
+    // Referrers and countries kept per link-day; the lowest are trimmed on every flush
+    static final int TOP_K_CAPACITY = 100;
+    // Codes kept per trending bucket, far more than are ever listed so trimming barely skews the merge
+    static final int TRENDING_MINUTE_CAPACITY = 1000;
+    static final int TRENDING_HOUR_CAPACITY = 2000;
+    private static final Duration TRENDING_MINUTE_TTL = Duration.ofMinutes(90);
+    private static final Duration TRENDING_HOUR_TTL = Duration.ofHours(25);
+    private static final DateTimeFormatter MINUTE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    // Durable log of flushed click batches, read by ClickStreamConsumer
+    public static final String CLICK_STREAM_KEY = "clicks:stream";
     private final RedisTemplate<String, String> stringRedisTemplate;
 
     public RedisService(RedisTemplate<String, String> stringRedisTemplate) {
         this.stringRedisTemplate = stringRedisTemplate;
     }
 
-    public void incrementClick(String code) {
-        String totalKey = "clicks:code:" + code + ":total";
-        String dailyKey = "clicks:code:" + code + ":day:" + LocalDate.now();
+    public static String totalKey(String code) {
+        return "clicks:code:" + code + ":total";
+    }
+
+    public static String dayKey(String code, LocalDate day) {
+        return "clicks:code:" + code + ":day:" + day;
+    }
+
+    public static String hourKey(String code, LocalDateTime hour) {
+        return "clicks:code:" + code + ":hour:" + HOUR_FORMAT.format(hour);
+    }
+
+    // HyperLogLog of visitor fingerprints: at most 12 KB per link-day however many visitors
+    public static String visitorsKey(String code, LocalDate day) {
+        return "clicks:code:" + code + ":uv:" + day;
+    }
+
+    public static String referrersKey(String code, LocalDate day) {
+        return "clicks:code:" + code + ":ref:" + day;
+    }
+
+    public static String countriesKey(String code, LocalDate day) {
+        return "clicks:code:" + code + ":country:" + day;
+    }
+
+    // Clicks per code in one minute and one hour of the whole service, merged by TrendingService
+    public static String trendingMinuteKey(LocalDateTime minute) {
+        return "trending:minute:" + MINUTE_FORMAT.format(minute);
+    }
+
+    public static String trendingHourKey(LocalDateTime hour) {
+        return "trending:hour:" + HOUR_FORMAT.format(hour);
+    }
+
+    // Codes clicked on a day, read by ClickRollupService to find that day's keys without a SCAN
+    public static String dayCodesKey(LocalDate day) {
+        return "clicks:day:" + day + ":codes";
+    }
+
+    public void incrementClicks(Map<String, Long> clicksByCode, LocalDateTime flushedAt) {
+        incrementClicks(clicksByCode, Map.of(), flushedAt);
+    }
+
+    /**
+     * Applies aggregated click counts in one pipelined round trip: INCRBY on the total, daily and
+     * hourly key of each code, and a single EXPIRE per daily and hourly key. Codes are also added
+     * to the day's code set for the monthly rollup. Failures propagate so the caller can account
+     * for the lost clicks.
+     *
+     * <p>Attributed clicks also PFADD their visitor fingerprints to the link-day HyperLogLog and
+     * ZINCRBY the link-day referrer and country sets, which are then trimmed to
+     * {@value #TOP_K_CAPACITY} members, so memory per link-day stays constant.
+     *
+     * <p>Every click also lands in the current trending minute and hour bucket, trimmed to
+     * {@value #TRENDING_MINUTE_CAPACITY} and {@value #TRENDING_HOUR_CAPACITY} codes.
+     */
+    public void incrementClicks(Map<String, Long> clicksByCode, Map<String, ClickBreakdown> breakdowns,
+                                LocalDateTime flushedAt) {
+        if (clicksByCode.isEmpty()) {
+            return;
+        }
+        LocalDate day = flushedAt.toLocalDate();
+        String dayCodesKey = dayCodesKey(day);
+        String minuteKey = trendingMinuteKey(flushedAt);
+        String trendingHourKey = trendingHourKey(flushedAt);
+
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (Map.Entry<String, Long> entry : clicksByCode.entrySet()) {
+                    String dailyKey = dayKey(entry.getKey(), day);
+                    String hourlyKey = hourKey(entry.getKey(), flushedAt);
+                    ops.opsForValue().increment(totalKey(entry.getKey()), entry.getValue());
+                    ops.opsForValue().increment(dailyKey, entry.getValue());
+                    ops.expire(dailyKey, DAILY_KEY_TTL);
+                    ops.opsForValue().increment(hourlyKey, entry.getValue());
+                    ops.expire(hourlyKey, HOURLY_KEY_TTL);
+                }
+                ops.opsForSet().add(dayCodesKey, clicksByCode.keySet().toArray(new String[0]));
+                ops.expire(dayCodesKey, DAILY_KEY_TTL);
+                for (Map.Entry<String, ClickBreakdown> entry : breakdowns.entrySet()) {
+                    writeBreakdown(ops, entry.getKey(), day, entry.getValue());
+                }
+                incrementAndTrim(ops, minuteKey, clicksByCode, TRENDING_MINUTE_CAPACITY, TRENDING_MINUTE_TTL);
+                incrementAndTrim(ops, trendingHourKey, clicksByCode, TRENDING_HOUR_CAPACITY, TRENDING_HOUR_TTL);
+                return null;
+            }
+        });
+        log.debug("Flushed clicks for {} codes", clicksByCode.size());
+    }
+
+    private static void writeBreakdown(RedisOperations<String, String> ops, String code, LocalDate day,
+                                       ClickBreakdown breakdown) {
+        if (!breakdown.getVisitors().isEmpty()) {
+            String key = visitorsKey(code, day);
+            ops.opsForHyperLogLog().add(key, breakdown.getVisitors().stream().map(Long::toHexString).toArray(String[]::new));
+            ops.expire(key, DAILY_KEY_TTL);
+        }
+        incrementAndTrim(ops, referrersKey(code, day), breakdown.getReferrers(), TOP_K_CAPACITY, DAILY_KEY_TTL);
+        incrementAndTrim(ops, countriesKey(code, day), breakdown.getCountries(), TOP_K_CAPACITY, DAILY_KEY_TTL);
+    }
+
+    // ZINCRBY each member, then drop all but the highest scored capacity members
+    private static void incrementAndTrim(RedisOperations<String, String> ops, String key, Map<String, Long> counts,
+                                         int capacity, Duration ttl) {
+        if (counts.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<String, Long> entry : counts.entrySet()) {
+            ops.opsForZSet().incrementScore(key, entry.getKey(), entry.getValue());
+        }
+        ops.opsForZSet().removeRange(key, 0, -capacity - 1);
+        ops.expire(key, ttl);
+    }
+
+    /**
+     * Merges each group of trending buckets with ZUNIONSTORE into its destination key and reads
+     * back the top {@code size} codes, all in one pipeline. Results are in the order of
+     * {@code bucketsByDestination}; destinations expire after {@code ttl} if no longer refreshed.
+     */
+    public List<Map<String, Long>> mergeTrending(Map<String, List<String>> bucketsByDestination, int size, Duration ttl) {
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (Map.Entry<String, List<String>> entry : bucketsByDestination.entrySet()) {
+                    List<String> buckets = entry.getValue();
+                    ops.opsForZSet().unionAndStore(buckets.get(0), buckets.subList(1, buckets.size()), entry.getKey());
+                    ops.expire(entry.getKey(), ttl);
+                    ops.opsForZSet().reverseRangeWithScores(entry.getKey(), 0, size - 1);
+                }
+                return null;
+            }
+        });
+
+        List<Map<String, Long>> merged = new ArrayList<>(bucketsByDestination.size());
+        for (int i = 0; i < bucketsByDestination.size(); i++) {
+            Map<String, Long> top = new LinkedHashMap<>();
+            mergeScores(results.get(i * 3 + 2), top);
+            merged.add(top);
+        }
+        return merged;
+    }
+
+    /**
+     * Reads everything the analytics API needs in one pipelined round trip: {@code counterKeys}
+     * with MGET, then for {@code days} the unique visitors per day and across all of them, and
+     * the referrers and countries merged over those days.
+     */
+    public LinkStats getLinkStats(List<String> counterKeys, String code, List<LocalDate> days) {
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForValue().multiGet(counterKeys);
+                if (days.isEmpty()) {
+                    return null;
+                }
+                for (LocalDate day : days) {
+                    ops.opsForHyperLogLog().size(visitorsKey(code, day));
+                }
+                ops.opsForHyperLogLog().size(days.stream().map(day -> visitorsKey(code, day)).toArray(String[]::new));
+                for (LocalDate day : days) {
+                    ops.opsForZSet().reverseRangeWithScores(referrersKey(code, day), 0, -1);
+                }
+                for (LocalDate day : days) {
+                    ops.opsForZSet().reverseRangeWithScores(countriesKey(code, day), 0, -1);
+                }
+                return null;
+            }
+        });
+
+        LinkStats stats = new LinkStats(counterKeys.size(), days.size());
+        int next = 0;
+        if (results.get(next++) instanceof List<?> values) {
+            for (int i = 0; i < values.size(); i++) {
+                stats.counts[i] = values.get(i) instanceof String value ? Long.parseLong(value) : 0;
+            }
+        }
+        if (days.isEmpty()) {
+            return stats;
+        }
+        for (int i = 0; i < days.size(); i++) {
+            stats.dailyVisitors[i] = asLong(results.get(next++));
+        }
+        stats.visitors = asLong(results.get(next++));
+        for (int i = 0; i < days.size(); i++) {
+            mergeScores(results.get(next++), stats.referrers);
+        }
+        for (int i = 0; i < days.size(); i++) {
+            mergeScores(results.get(next++), stats.countries);
+        }
+        return stats;
+    }
+
+    private static long asLong(Object result) {
+        return result instanceof Long value ? value : 0;
+    }
+
+    private static void mergeScores(Object result, Map<String, Long> target) {
+        if (result instanceof Set<?> tuples) {
+            for (Object tuple : tuples) {
+                if (tuple instanceof ZSetOperations.TypedTuple<?> scored
+                        && scored.getValue() instanceof String member && scored.getScore() != null) {
+                    target.merge(member, scored.getScore().longValue(), Long::sum);
+                }
+            }
+        }
+    }
+
+    /** Result of {@link #getLinkStats}, in the order of the keys and days asked for. */
+    public static final class LinkStats {
+        private final long[] counts;
+        private final long[] dailyVisitors;
+        private long visitors;
+        private final Map<String, Long> referrers = new HashMap<>();
+        private final Map<String, Long> countries = new HashMap<>();
 
-        try {
-            stringRedisTemplate.opsForValue().increment(totalKey);
-            stringRedisTemplate.opsForValue().increment(dailyKey);
-            stringRedisTemplate.expire(dailyKey, Duration.ofDays(30));
-            log.debug("Incremented click for code: {}", code);
-        } catch (Exception e) {
-            log.warn("Failed to increment click for code: {} - {}", code, e.getMessage());
+        public LinkStats(int keys, int days) {
+            this.counts = new long[keys];
+            this.dailyVisitors = new long[days];
+        }
+
+        public long[] counts() {
+            return counts;
+        }
+
+        public long[] dailyVisitors() {
+            return dailyVisitors;
+        }
+
+        /** Unique visitors across all the days, not the sum of the daily counts. */
+        public long visitors() {
+            return visitors;
+        }
+
+        public Map<String, Long> referrers() {
+            return referrers;
+        }
+
+        public Map<String, Long> countries() {
+            return countries;
+        }
+    }
+
+    /**
+     * Appends click batches to {@link #CLICK_STREAM_KEY} in one pipeline. The stream is trimmed to
+     * about {@code maxLength} entries; trimming is approximate so it only happens on whole nodes.
+     */
+    public void appendClickBatches(List<ClickBatch> batches, long maxLength) {
+        XAddOptions options = XAddOptions.maxlen(maxLength).approximateTrimming(true);
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (ClickBatch batch : batches) {
+                    ops.opsForStream().add(CLICK_STREAM_KEY, ClickBatchCodec.toFields(batch), options);
+                }
+                return null;
+            }
+        });
+    }
+
+    /** Reads click counters with a single MGET; absent keys count as zero. */
+    public long[] getClickCounts(List<String> keys) {
+        long[] counts = new long[keys.size()];
+        List<String> values = stringRedisTemplate.opsForValue().multiGet(keys);
+        if (values == null) {
+            return counts;
+        }
+        for (int i = 0; i < counts.length; i++) {
+            String value = values.get(i);
+            counts[i] = value != null ? Long.parseLong(value) : 0;
         }
+        return counts;
     }
 }
@@ -0,0 +1,64 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.util.Base62Encoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The code is the id in Base62, optionally left-padded to {@code shortme.codes.width} so codes
+ * sort by id. Short, but consecutive links get adjacent codes. Ids past {@code 62^width} get
+ * longer codes rather than failing, which ends the sort order; a warning is logged once.
+ */
+@Component
+@ConditionalOnProperty(name = "shortme.codes.generator", havingValue = "sequential", matchIfMissing = true)
+public class SequentialShortCodeGenerator implements ShortCodeGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(SequentialShortCodeGenerator.class);
+
+    private final int width;
+    // First id that needs more than width characters
+    private final long widthCapacity;
+    private final AtomicBoolean widthExceeded = new AtomicBoolean();
+
+    public SequentialShortCodeGenerator(@Value("${shortme.codes.width:0}") int width) {
+        if (width < 0 || width > Base62Encoder.MAX_LENGTH) {
+            throw new IllegalArgumentException("shortme.codes.width must be between 0 and " + Base62Encoder.MAX_LENGTH);
+        }
+        this.width = width;
+        long capacity = Long.MAX_VALUE;
+        if (width > 0 && width < Base62Encoder.MAX_LENGTH) {
+            capacity = 1;
+            for (int i = 0; i < width; i++) {
+                capacity *= 62;
+            }
+        }
+        this.widthCapacity = capacity;
+    }
+
+    @Override
+    public String generate(long id) {
+        if (id >= widthCapacity && widthExceeded.compareAndSet(false, true)) {
+            log.warn("Link id {} no longer fits in shortme.codes.width={}; new codes are longer and do not sort with older ones",
+                    id, width);
+        }
+        return Base62Encoder.encode(id, width);
+    }
+
+    @Override
+    public OptionalLong decode(String code) {
+        if (code.length() < width || code.length() > Base62Encoder.MAX_LENGTH || !Base62Encoder.isValid(code)) {
+            return OptionalLong.empty();
+        }
+        try {
+            return OptionalLong.of(Base62Encoder.decode(code));
+        } catch (IllegalArgumentException e) {
+            return OptionalLong.empty();
+        }
+    }
+}
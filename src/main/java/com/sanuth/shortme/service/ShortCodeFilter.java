@@ -0,0 +1,339 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.repository.LinkRepository;
+import com.sanuth.shortme.util.BloomFilter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.SubscriptionListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Node-local {@link BloomFilter} of every existing short code, so redirects for codes that were
+ * never created are rejected without touching Redis or Postgres.
+ *
+ * <p>The filter is rebuilt from a streamed scan of the link table every
+ * {@code shortme.bloom.rebuild-interval-ms}, or earlier once it has filled past its sizing.
+ * Between rebuilds it grows incrementally: codes created on this node are added directly, codes
+ * created elsewhere arrive on {@link LocalLinkCache#CREATED_CHANNEL}.
+ *
+ * <p>A missed creation message would make the filter reject a real link, so it is only consulted
+ * while that channel is subscribed, and a fresh subscription triggers a rebuild before the filter
+ * is trusted again. Messages can still be lost without a resubscription: the creating node failed
+ * to publish, or the row was written by a node that does not announce creations, such as an older
+ * version during a rolling deploy. So two more safeguards apply:
+ * <ul>
+ *   <li>Announcements that fail to publish are retried every second by the node that created the
+ *       codes, see {@link #announce}.</li>
+ *   <li>Every {@code shortme.bloom.catch-up-interval-ms} the filter adds the codes of rows inserted
+ *       since the previous catch-up, by the database's insert timestamp rather than
+ *       {@code createdAt}, which imported rows keep from their source. An overlap covers skew
+ *       between the database and node clocks and commit lag. The filter is
+ *       not consulted while catch-up has fallen behind, so a code whose announcement was lost can
+ *       be rejected for at most about one interval instead of until the next rebuild.</li>
+ * </ul>
+ */
+@Service
+public class ShortCodeFilter implements MessageListener, SubscriptionListener {
+    private static final Logger log = LoggerFactory.getLogger(ShortCodeFilter.class);
+
+    private static final long CHECK_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+    private static final long ANNOUNCE_RETRY_INTERVAL_MS = 1000;
+    private static final long CATCH_UP_OVERLAP_MS = TimeUnit.SECONDS.toMillis(30);
+    private static final int MAX_UNANNOUNCED = 100_000;
+
+    private final LinkRepository linkRepository;
+    private final RedisCacheService redisCacheService;
+    private final TransactionTemplate readOnlyTransaction;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final long minExpectedCodes;
+    private final long rebuildIntervalMs;
+    private final long catchUpIntervalMs;
+    private final ScheduledExecutorService rebuildExecutor;
+    private final Set<String> unannounced = ConcurrentHashMap.newKeySet();
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+    private volatile long expectedCodes;
+    private volatile long builtAtMs;
+    // Start of the last rebuild or catch-up scan; rows created before it are in the filter
+    private volatile long caughtUpAtMs;
+    private volatile boolean ready;
+    private volatile boolean subscribed;
+    private final AtomicLong subscriptionEpoch = new AtomicLong();
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    private final Counter rejectedCounter;
+    private final Counter falsePositiveCounter;
+    private final Counter unannouncedDroppedCounter;
+
+    public ShortCodeFilter(LinkRepository linkRepository,
+                           RedisCacheService redisCacheService,
+                           PlatformTransactionManager transactionManager,
+                           MeterRegistry meterRegistry,
+                           @Value("${shortme.bloom.enabled:true}") boolean enabled,
+                           @Value("${shortme.bloom.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${shortme.bloom.min-expected-codes:1000000}") long minExpectedCodes,
+                           @Value("${shortme.bloom.rebuild-interval-ms:3600000}") long rebuildIntervalMs,
+                           @Value("${shortme.bloom.catch-up-interval-ms:5000}") long catchUpIntervalMs) {
+        this.linkRepository = linkRepository;
+        this.redisCacheService = redisCacheService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minExpectedCodes = minExpectedCodes;
+        this.rebuildIntervalMs = rebuildIntervalMs;
+        this.catchUpIntervalMs = catchUpIntervalMs;
+
+        this.rejectedCounter = Counter.builder("shortme.bloom.rejected")
+                .description("Redirects rejected by the Bloom filter without a cache or database lookup")
+                .register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("shortme.bloom.false.positives")
+                .description("Codes the Bloom filter let through that did not exist")
+                .register(meterRegistry);
+        this.unannouncedDroppedCounter = Counter.builder("shortme.bloom.unannounced.dropped")
+                .description("Created codes given up on announcing because too many were pending; catch-up adds them")
+                .register(meterRegistry);
+        Gauge.builder("shortme.bloom.unannounced", unannounced, Set::size)
+                .description("Codes created on this node whose announcement to other nodes is being retried")
+                .register(meterRegistry);
+        Gauge.builder("shortme.bloom.size.bits", this, f -> f.filter == null ? 0 : f.filter.bitSize())
+                .description("Size of the Bloom filter bit array")
+                .register(meterRegistry);
+        Gauge.builder("shortme.bloom.codes", this, f -> f.filter == null ? 0 : f.filter.approximateElementCount())
+                .description("Approximate number of codes in the Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("shortme.bloom.false.positive.rate", this,
+                        f -> f.filter == null ? 1 : f.filter.expectedFalsePositiveRate())
+                .description("False-positive rate implied by the Bloom filter fill ratio")
+                .register(meterRegistry);
+        Gauge.builder("shortme.bloom.ready", this, f -> f.isReady() ? 1 : 0)
+                .description("Whether redirects are currently checked against the Bloom filter")
+                .register(meterRegistry);
+
+        // Two threads, so catch-up and announcement retries keep running during a long rebuild
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.rebuildExecutor = Executors.newScheduledThreadPool(2, r -> {
+            Thread thread = new Thread(r, "code-filter-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Other nodes' negative caches also rely on announcements, so retries run with the filter off too
+        rebuildExecutor.scheduleWithFixedDelay(this::retryAnnouncements,
+                ANNOUNCE_RETRY_INTERVAL_MS, ANNOUNCE_RETRY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (enabled) {
+            rebuildExecutor.scheduleWithFixedDelay(this::rebuildIfDue, 0, CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            rebuildExecutor.scheduleWithFixedDelay(this::catchUpSafely,
+                    catchUpIntervalMs, catchUpIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public boolean isReady() {
+        return ready && subscribed && System.currentTimeMillis() - caughtUpAtMs <= 3 * catchUpIntervalMs;
+    }
+
+    /** {@code false} means the code definitely does not exist. Only meaningful while {@link #isReady()}. */
+    public boolean mightContain(String shortCode) {
+        BloomFilter current = filter;
+        if (current == null || current.mightContain(shortCode)) {
+            return true;
+        }
+        rejectedCounter.increment();
+        return false;
+    }
+
+    public void add(String shortCode) {
+        // Also feed a rebuild in progress, in case its scan started before this code was committed.
+        // Read before the live filter: rebuild() publishes the new filter before clearing building.
+        BloomFilter next = building;
+        if (next != null) {
+            next.put(shortCode);
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(shortCode);
+        }
+    }
+
+    public void addAll(Collection<String> shortCodes) {
+        for (String shortCode : shortCodes) {
+            add(shortCode);
+        }
+    }
+
+    /**
+     * Adds codes just created on this node and announces them on {@link LocalLinkCache#CREATED_CHANNEL}.
+     * If the announcement cannot be published it is retried in the background.
+     */
+    public void announce(Collection<String> shortCodes) {
+        if (shortCodes.isEmpty()) {
+            return;
+        }
+        addAll(shortCodes);
+        if (!redisCacheService.publishCreated(shortCodes)) {
+            if (unannounced.size() + shortCodes.size() > MAX_UNANNOUNCED) {
+                unannouncedDroppedCounter.increment(shortCodes.size());
+                return;
+            }
+            unannounced.addAll(shortCodes);
+        }
+    }
+
+    private void retryAnnouncements() {
+        if (unannounced.isEmpty()) {
+            return;
+        }
+        List<String> shortCodes = List.copyOf(unannounced);
+        if (redisCacheService.publishCreated(shortCodes)) {
+            shortCodes.forEach(unannounced::remove);
+            log.info("Announced {} created short links after an earlier failure", shortCodes.size());
+        }
+    }
+
+    public void recordFalsePositive() {
+        falsePositiveCounter.increment();
+    }
+
+    private void rebuildIfDue() {
+        if (!subscribed) {
+            return;
+        }
+        BloomFilter current = filter;
+        boolean due = current == null
+                || rebuildRequested.getAndSet(false)
+                || System.currentTimeMillis() - builtAtMs >= rebuildIntervalMs
+                || current.approximateElementCount() > expectedCodes;
+        if (!due) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("Short code filter rebuild failed - {}", e.getMessage());
+        }
+    }
+
+    private void catchUpSafely() {
+        try {
+            catchUp();
+        } catch (Exception e) {
+            log.warn("Short code filter catch-up failed - {}", e.getMessage());
+        }
+    }
+
+    // Rows that were never announced, or whose announcement was lost, become visible here
+    private void catchUp() {
+        if (filter == null) {
+            return;
+        }
+        long startMs = System.currentTimeMillis();
+        List<String> shortCodes = linkRepository.findShortCodesInsertedSince(
+                Instant.ofEpochMilli(caughtUpAtMs - CATCH_UP_OVERLAP_MS));
+        addAll(shortCodes);
+        caughtUpAtMs = startMs;
+        log.debug("Short code filter caught up with {} recently inserted codes", shortCodes.size());
+    }
+
+    private void rebuild() {
+        long epoch = subscriptionEpoch.get();
+        long start = System.nanoTime();
+        long startMs = System.currentTimeMillis();
+
+        // Headroom so incremental adds do not degrade the filter before the next rebuild
+        long expected = Math.max(minExpectedCodes, linkRepository.count() * 2);
+        BloomFilter next = BloomFilter.create(expected, falsePositiveRate);
+        building = next;
+        long codes;
+        try {
+            codes = readOnlyTransaction.execute(status -> {
+                long scanned = 0;
+                try (Stream<String> shortCodes = linkRepository.streamAllShortCodes()) {
+                    for (String shortCode : (Iterable<String>) shortCodes::iterator) {
+                        next.put(shortCode);
+                        scanned++;
+                    }
+                }
+                return scanned;
+            });
+            filter = next;
+        } finally {
+            building = null;
+        }
+
+        expectedCodes = expected;
+        builtAtMs = System.currentTimeMillis();
+        caughtUpAtMs = startMs;
+        // If the subscription dropped during the scan, creation messages may have been missed
+        ready = subscribed && subscriptionEpoch.get() == epoch;
+        log.info("Rebuilt short code filter with {} codes, {} bits, {} hashes in {} ms",
+                codes, next.bitSize(), next.hashCount(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void requestRebuild() {
+        rebuildRequested.set(true);
+        try {
+            rebuildExecutor.execute(this::rebuildIfDue);
+        } catch (RejectedExecutionException e) {
+            log.debug("Short code filter rebuild not scheduled, executor stopped");
+        }
+    }
+
+    // Codes created on any node, including this one
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        add(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void onChannelSubscribed(byte[] channel, long count) {
+        subscriptionEpoch.incrementAndGet();
+        subscribed = true;
+        if (enabled) {
+            requestRebuild();
+        }
+    }
+
+    @Override
+    public void onChannelUnsubscribed(byte[] channel, long count) {
+        subscriptionEpoch.incrementAndGet();
+        subscribed = false;
+        ready = false;
+        log.warn("Short code filter disabled until resubscribed to {}", LocalLinkCache.CREATED_CHANNEL);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,16 @@
+package com.sanuth.shortme.service;
+
+import java.util.OptionalLong;
+
+/**
+ * Turns a link id into its generated short code. Implementations must be bijective, so every id
+ * gets a distinct code and {@link #decode} can recover the id without a lookup.
+ * The backend is chosen with {@code shortme.codes.generator}.
+ */
+public interface ShortCodeGenerator {
+
+    String generate(long id);
+
+    /** The id a code was generated from, or empty if this generator cannot have produced it. */
+    OptionalLong decode(String code);
+}
@@ -0,0 +1,117 @@
+package com.sanuth.shortme.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out {@code ShortLink} ids from blocks leased off a database sequence, in the style of
+ * Hibernate's pooled-lo optimizer. The sequence increments by the block size, so one
+ * {@code nextval} reserves {@code [value, value + blockSize)} for this node and ids are known
+ * before the row is inserted.
+ */
+@Service
+public class ShortLinkIdAllocator {
+    private static final Logger log = LoggerFactory.getLogger(ShortLinkIdAllocator.class);
+
+    static final String SEQUENCE_NAME = "short_link_id_seq";
+    private static final long MAX_BLOCKS_PER_BUMP = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int configuredBlockSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private int blockSize;
+    private long next;
+    private long limit;
+
+    public ShortLinkIdAllocator(JdbcTemplate jdbcTemplate,
+                                @Value("${shortme.ids.block-size:50}") int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.configuredBlockSize = blockSize;
+    }
+
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next >= limit) {
+                leaseBlock();
+            }
+            return next++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the sequence past {@code maxId} after rows with foreign ids were inserted, e.g. by an
+     * import, and drops this node's current block if it could overlap them. Blocks already leased
+     * by other nodes are not affected.
+     *
+     * <p>The sequence is advanced with {@code nextval} only, never {@code setval}: a {@code setval}
+     * racing another node's {@code nextval} could move the sequence back and lease that block
+     * twice. The blocks skipped over are simply never used.
+     */
+    public void reserveThrough(long maxId) {
+        lock.lock();
+        try {
+            if (blockSize == 0) {
+                blockSize = ensureSequence();
+            }
+            // last_value is only an estimate of how far to go; the values nextval returns decide
+            Long current = jdbcTemplate.queryForObject("select last_value from " + SEQUENCE_NAME, Long.class);
+            long reached = current != null ? current : 0;
+            do {
+                long blocks = Math.max(1, Math.min(MAX_BLOCKS_PER_BUMP, (maxId - reached) / blockSize + 1));
+                Long value = jdbcTemplate.queryForObject("select max(nextval('" + SEQUENCE_NAME
+                        + "')) from generate_series(1, ?)", Long.class, blocks);
+                if (value == null) {
+                    throw new IllegalStateException("Sequence " + SEQUENCE_NAME + " returned no value");
+                }
+                reached = value;
+            } while (reached + blockSize <= maxId);
+            if (maxId >= next) {
+                next = limit;
+            }
+            log.debug("Reserved ids through {}", maxId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void leaseBlock() {
+        if (blockSize == 0) {
+            blockSize = ensureSequence();
+        }
+        Long start = jdbcTemplate.queryForObject("select nextval('" + SEQUENCE_NAME + "')", Long.class);
+        if (start == null) {
+            throw new IllegalStateException("Sequence " + SEQUENCE_NAME + " returned no value");
+        }
+        next = start;
+        limit = start + blockSize;
+        log.debug("Leased id block [{}, {})", next, limit);
+    }
+
+    // An existing sequence wins over the configured size, otherwise nodes would lease overlapping blocks
+    private int ensureSequence() {
+        jdbcTemplate.execute("create sequence if not exists " + SEQUENCE_NAME
+                + " start with 1 increment by " + configuredBlockSize);
+        List<Long> increments = jdbcTemplate.queryForList(
+                "select cast(increment as bigint) from information_schema.sequences where lower(sequence_name) = ?",
+                Long.class, SEQUENCE_NAME);
+        if (increments.isEmpty()) {
+            return configuredBlockSize;
+        }
+        int actual = increments.get(0).intValue();
+        if (actual != configuredBlockSize) {
+            log.warn("Sequence {} increments by {}, ignoring configured block size {}",
+                    SEQUENCE_NAME, actual, configuredBlockSize);
+        }
+        return actual;
+    }
+}
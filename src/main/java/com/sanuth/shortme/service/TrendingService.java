@@ -0,0 +1,173 @@
+package com.sanuth.shortme.service;
+
+import com.sanuth.shortme.model.dto.TrendingLink;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Most clicked links over the last 5 minutes, hour and day. {@link RedisService#incrementClicks}
+ * adds every flush to a per-minute and a per-hour sorted set; every
+ * {@code shortme.trending.refresh-interval-ms} this service merges the buckets of each window with
+ * ZUNIONSTORE and keeps the top {@code shortme.trending.max-size} codes in memory, so a query never
+ * touches Redis.
+ *
+ * <p>Windows are aligned to whole buckets and include the current, partial one. The top
+ * {@code shortme.trending.warm-size} codes of the 5 minute window are then loaded into the local
+ * cache, so a link going viral is already in memory on every node before most of its traffic arrives.
+ * If Redis is unreachable the previous leaderboard is kept.
+ */
+@Service
+public class TrendingService {
+    private static final Logger log = LoggerFactory.getLogger(TrendingService.class);
+
+    // Merged sets are rewritten on every refresh, this only cleans up after the last node stops
+    private static final Duration MERGED_TTL = Duration.ofMinutes(5);
+
+    public enum Window {
+        FIVE_MINUTES("5m", 5, ChronoUnit.MINUTES),
+        ONE_HOUR("1h", 60, ChronoUnit.MINUTES),
+        ONE_DAY("24h", 24, ChronoUnit.HOURS);
+
+        private final String label;
+        private final int buckets;
+        private final ChronoUnit unit;
+
+        Window(String label, int buckets, ChronoUnit unit) {
+            this.label = label;
+            this.buckets = buckets;
+            this.unit = unit;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        public static Window fromLabel(String label) {
+            for (Window window : values()) {
+                if (window.label.equalsIgnoreCase(label)) {
+                    return window;
+                }
+            }
+            throw new IllegalArgumentException("Unknown trending window: " + label + ", expected 5m, 1h or 24h");
+        }
+
+        String mergedKey() {
+            return "trending:" + label;
+        }
+
+        List<String> bucketKeys(LocalDateTime now) {
+            LocalDateTime current = now.truncatedTo(unit);
+            List<String> keys = new ArrayList<>(buckets);
+            for (int i = 0; i < buckets; i++) {
+                LocalDateTime bucket = current.minus(i, unit);
+                keys.add(unit == ChronoUnit.MINUTES
+                        ? RedisService.trendingMinuteKey(bucket)
+                        : RedisService.trendingHourKey(bucket));
+            }
+            return keys;
+        }
+    }
+
+    private final RedisService redisService;
+    private final RedisCacheService redisCacheService;
+    private final boolean enabled;
+    private final int maxSize;
+    private final int warmSize;
+
+    private volatile Map<Window, List<TrendingLink>> leaderboards = emptyLeaderboards();
+
+    private final Timer refreshTimer;
+
+    public TrendingService(RedisService redisService,
+                           RedisCacheService redisCacheService,
+                           MeterRegistry meterRegistry,
+                           @Value("${shortme.trending.enabled:true}") boolean enabled,
+                           @Value("${shortme.trending.max-size:100}") int maxSize,
+                           @Value("${shortme.trending.warm-size:50}") int warmSize) {
+        this.redisService = redisService;
+        this.redisCacheService = redisCacheService;
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.warmSize = Math.min(warmSize, maxSize);
+
+        this.refreshTimer = Timer.builder("shortme.trending.refresh")
+                .description("Time spent merging the trending buckets of all windows")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${shortme.trending.refresh-interval-ms:10000}")
+    void refreshSafely() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            refresh(LocalDateTime.now());
+        } catch (Exception e) {
+            log.warn("Trending refresh failed, keeping the previous leaderboard - {}", e.getMessage());
+        }
+    }
+
+    /** Recomputes every window as of {@code now} and warms the local cache with the hottest codes. */
+    public void refresh(LocalDateTime now) {
+        long start = System.nanoTime();
+        Map<String, List<String>> bucketsByKey = new LinkedHashMap<>();
+        for (Window window : Window.values()) {
+            bucketsByKey.put(window.mergedKey(), window.bucketKeys(now));
+        }
+        List<Map<String, Long>> merged;
+        try {
+            merged = redisService.mergeTrending(bucketsByKey, maxSize, MERGED_TTL);
+        } finally {
+            refreshTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        Map<Window, List<TrendingLink>> refreshed = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            List<TrendingLink> links = new ArrayList<>();
+            merged.get(window.ordinal()).forEach((code, clicks) -> links.add(new TrendingLink(code, clicks)));
+            refreshed.put(window, List.copyOf(links));
+        }
+        leaderboards = refreshed;
+
+        List<String> hottest = refreshed.get(Window.FIVE_MINUTES).stream()
+                .limit(warmSize)
+                .map(TrendingLink::getShortCode)
+                .toList();
+        int warmed = redisCacheService.warmLocal(hottest);
+        if (warmed > 0) {
+            log.debug("Warmed local cache with {} trending links", warmed);
+        }
+    }
+
+    /** The {@code limit} most clicked links in {@code window}, as of the last refresh. */
+    public List<TrendingLink> getTrending(Window window, int limit) {
+        if (limit < 1 || limit > maxSize) {
+            throw new IllegalArgumentException("limit must be between 1 and " + maxSize);
+        }
+        List<TrendingLink> links = leaderboards.get(window);
+        return links.size() <= limit ? links : links.subList(0, limit);
+    }
+
+    private static Map<Window, List<TrendingLink>> emptyLeaderboards() {
+        Map<Window, List<TrendingLink>> empty = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            empty.put(window, List.of());
+        }
+        return empty;
+    }
+}
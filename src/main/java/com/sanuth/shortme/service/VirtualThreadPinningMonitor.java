@@ -0,0 +1,115 @@
+package com.sanuth.shortme.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Counts virtual threads that stayed pinned to their carrier, from the JFR
+ * {@code jdk.VirtualThreadPinned} event. A pinned virtual thread blocks its carrier, so a few
+ * slow pinned calls can stall every request once all carriers are taken.
+ *
+ * <p>Each distinct pinning site is logged once with its stack trace, up to
+ * {@value #MAX_LOGGED_SITES} sites, so the offending lock can be found without a JFR recording.
+ * The top frames are always the JDK parking the thread, so a site is the first frame outside the
+ * JDK, or the whole logged stack if there is none.
+ */
+@Service
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int MAX_LOGGED_SITES = 100;
+    private static final int LOGGED_FRAMES = 20;
+
+    private final Duration threshold;
+    private final Counter pinnedCounter;
+    private final Timer pinnedTimer;
+    private final Set<String> loggedSites = ConcurrentHashMap.newKeySet();
+
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                       @Value("${shortme.virtual-threads.pinned-threshold-ms:20}") long thresholdMs) {
+        this.threshold = Duration.ofMillis(thresholdMs);
+        this.pinnedCounter = Counter.builder("shortme.virtualthreads.pinned")
+                .description("Virtual threads pinned to their carrier for longer than the threshold")
+                .register(meterRegistry);
+        this.pinnedTimer = Timer.builder("shortme.virtualthreads.pinned.duration")
+                .description("How long pinned virtual threads held their carrier")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            recordingStream = new RecordingStream();
+            recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            recordingStream.onEvent(PINNED_EVENT, this::onPinned);
+            recordingStream.startAsync();
+            log.info("Monitoring virtual thread pinning longer than {} ms", threshold.toMillis());
+        } catch (Exception e) {
+            // JFR may be unavailable, e.g. on a trimmed runtime image
+            log.warn("Virtual thread pinning monitor not started - {}", e.getMessage());
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+        pinnedTimer.record(event.getDuration());
+
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace == null || stackTrace.getFrames().isEmpty() || loggedSites.size() >= MAX_LOGGED_SITES) {
+            return;
+        }
+        List<String> frames = stackTrace.getFrames().stream().limit(LOGGED_FRAMES)
+                .map(VirtualThreadPinningMonitor::describe).toList();
+        String site = site(frames);
+        if (loggedSites.add(site)) {
+            StringBuilder trace = new StringBuilder();
+            frames.forEach(frame -> trace.append("\n\tat ").append(frame));
+            log.warn("Virtual thread pinned for {} ms at {}{}", event.getDuration().toMillis(),
+                    site.lines().findFirst().orElse(site), trace);
+        }
+    }
+
+    static String site(List<String> frames) {
+        for (String frame : frames) {
+            if (!frame.startsWith("java.") && !frame.startsWith("jdk.") && !frame.startsWith("sun.")) {
+                return frame;
+            }
+        }
+        return String.join("\n", frames);
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (recordingStream != null) {
+            recordingStream.close();
+        }
+    }
+}
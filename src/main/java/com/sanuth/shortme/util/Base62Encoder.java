@@ -1,25 +1,127 @@
 package com.sanuth.shortme.util;
 
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Base62 codec for non-negative longs using the alphabet {@code 0-9A-Za-z}. The alphabet is in
+ * ASCII order, so codes of equal width sort the same way as the numbers they encode; the
+ * {@code width} overloads left-pad with {@code '0'} for that purpose. A number that needs more
+ * than {@code width} digits is written in full, so it is longer than the padded codes and no
+ * longer sorts with them.
+ *
+ * <p>Digits are written back to front into a buffer sized for the result, and decoding uses a
+ * 128-entry reverse lookup table over any {@link CharSequence} without allocating. Characters
+ * outside the alphabet and values that overflow a {@code long} are rejected with
+ * {@link IllegalArgumentException}.
+ */
 public class Base62Encoder {
 
-    private static final String CHARACTERS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    /** Length of {@code Long.MAX_VALUE} in base62. */
+    public static final int MAX_LENGTH = 11;
+
+    private static final byte[] DIGITS =
+            "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] VALUES = new byte[128];
+    private static final long MAX_BEFORE_MULTIPLY = Long.MAX_VALUE / 62;
+
+    static {
+        Arrays.fill(VALUES, (byte) -1);
+        for (int i = 0; i < DIGITS.length; i++) {
+            VALUES[DIGITS[i]] = (byte) i;
+        }
+    }
 
     public static String encode(long number) {
-        if (number == 0) return "0";
+        return encode(number, 0);
+    }
 
-        StringBuilder sb = new StringBuilder();
-        while (number > 0) {
-            sb.append(CHARACTERS.charAt((int) (number % 62)));
+    /** Encodes left-padded with {@code '0'} to at least {@code width} characters, longer if the number needs it. */
+    public static String encode(long number, int width) {
+        int length = encodedLength(number, width);
+        byte[] buffer = new byte[length];
+        writeDigits(number, buffer, length);
+        return new String(buffer, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes the code as ASCII bytes at the buffer's position, without creating a {@code String}.
+     *
+     * @return the number of bytes written
+     * @throws BufferOverflowException if the buffer has too little space left
+     */
+    public static int encodeTo(long number, ByteBuffer target) {
+        return encodeTo(number, 0, target);
+    }
+
+    public static int encodeTo(long number, int width, ByteBuffer target) {
+        int length = encodedLength(number, width);
+        if (target.remaining() < length) {
+            throw new BufferOverflowException();
+        }
+        int start = target.position();
+        for (int i = start + length - 1; i >= start; i--) {
+            target.put(i, DIGITS[(int) (number % 62)]);
             number /= 62;
         }
-        return sb.reverse().toString();
+        target.position(start + length);
+        return length;
     }
 
-    public static long decode(String encoded) {
+    public static long decode(CharSequence encoded) {
+        int length = encoded.length();
+        if (length == 0) {
+            throw new IllegalArgumentException("Empty Base62 code");
+        }
         long number = 0;
-        for (char c : encoded.toCharArray()) {
-            number = number * 62 + CHARACTERS.indexOf(c);
+        for (int i = 0; i < length; i++) {
+            char c = encoded.charAt(i);
+            int digit = c < 128 ? VALUES[c] : -1;
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid Base62 character '" + c + "' at index " + i);
+            }
+            if (number > MAX_BEFORE_MULTIPLY || number * 62 > Long.MAX_VALUE - digit) {
+                throw new IllegalArgumentException("Base62 code overflows a long: " + encoded);
+            }
+            number = number * 62 + digit;
         }
         return number;
     }
-}
\ No newline at end of file
+
+    public static boolean isValid(CharSequence encoded) {
+        int length = encoded.length();
+        if (length == 0) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char c = encoded.charAt(i);
+            if (c >= 128 || VALUES[c] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int encodedLength(long number, int width) {
+        if (number < 0) {
+            throw new IllegalArgumentException("Cannot encode negative number: " + number);
+        }
+        if (width < 0 || width > MAX_LENGTH) {
+            throw new IllegalArgumentException("Width must be between 0 and " + MAX_LENGTH + ": " + width);
+        }
+        int digits = 1;
+        for (long rest = number / 62; rest > 0; rest /= 62) {
+            digits++;
+        }
+        return Math.max(digits, width);
+    }
+
+    private static void writeDigits(long number, byte[] buffer, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            buffer[i] = DIGITS[(int) (number % 62)];
+            number /= 62;
+        }
+    }
+}
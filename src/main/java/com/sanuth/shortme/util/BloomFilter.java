@@ -0,0 +1,107 @@
+package com.sanuth.shortme.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free Bloom filter over strings. Bits live in an {@link AtomicLongArray} so concurrent
+ * {@link #put} calls never lose each other's bits, and {@link #mightContain} never sees a torn
+ * word. Probe positions use double hashing ({@code h1 + i * h2}) over a 64-bit FNV-1a hash
+ * finished with the MurmurHash3 mixer.
+ */
+public final class BloomFilter {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+    private final LongAdder bitsSet = new LongAdder();
+
+    private BloomFilter(long bitSize, int hashCount) {
+        this.words = new AtomicLongArray(Math.toIntExact((bitSize + 63) / 64));
+        this.bitSize = (long) words.length() * 64;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Sizes a filter so that after {@code expectedInsertions} distinct puts the false-positive
+     * rate is about {@code falsePositiveRate}.
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            throw new IllegalArgumentException("Expected insertions must be positive");
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+        int hashes = (int) Math.max(1, Math.round((double) bits / expectedInsertions * ln2));
+        return new BloomFilter(Math.max(64, bits), hashes);
+    }
+
+    public void put(CharSequence value) {
+        long h1 = hash(value);
+        long h2 = Hashing.fmix64(h1 + GOLDEN_GAMMA) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word = words.get(index);
+            while ((word & mask) == 0) {
+                long witness = words.compareAndExchange(index, word, word | mask);
+                if (witness == word) {
+                    bitsSet.increment();
+                    break;
+                }
+                word = witness;
+            }
+        }
+    }
+
+    public boolean mightContain(CharSequence value) {
+        long h1 = hash(value);
+        long h2 = Hashing.fmix64(h1 + GOLDEN_GAMMA) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bitSize;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    /** False-positive rate implied by the current fill ratio, {@code (bitsSet / bitSize) ^ k}. */
+    public double expectedFalsePositiveRate() {
+        return Math.pow((double) bitsSet.sum() / bitSize, hashCount);
+    }
+
+    /** Approximate number of distinct values added, derived from the fill ratio. */
+    public long approximateElementCount() {
+        double fill = (double) bitsSet.sum() / bitSize;
+        if (fill >= 1) {
+            return Long.MAX_VALUE;
+        }
+        return Math.round(-bitSize * Math.log1p(-fill) / hashCount);
+    }
+
+    private static long hash(CharSequence value) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return Hashing.fmix64(h);
+    }
+}
@@ -0,0 +1,69 @@
+package com.sanuth.shortme.util;
+
+import java.net.URI;
+import java.util.Locale;
+
+/**
+ * Derives the per-click attributes kept for analytics from request headers. Nothing that
+ * identifies a visitor is stored: the fingerprint is a salted 64-bit hash of the client address
+ * and user agent, only good for telling visitors apart within the unique-visitor estimate.
+ */
+public final class ClickAttribution {
+
+    /** Fingerprint of a click without visitor information. */
+    public static final long NO_VISITOR = 0;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final int MAX_HOST_LENGTH = 253;
+
+    private ClickAttribution() {
+    }
+
+    /** Salted FNV-1a of address and user agent, never {@link #NO_VISITOR}. */
+    public static long fingerprint(String salt, String clientAddress, String userAgent) {
+        long h = FNV_OFFSET;
+        h = update(h, salt);
+        h = update(h, clientAddress);
+        h = update(h, userAgent);
+        h = Hashing.fmix64(h);
+        return h != NO_VISITOR ? h : 1;
+    }
+
+    /** Lower-cased host of the Referer header, or null if absent or not an absolute URL. */
+    public static String referrerHost(String referer) {
+        if (referer == null || referer.isEmpty()) {
+            return null;
+        }
+        try {
+            String host = URI.create(referer).getHost();
+            if (host == null || host.length() > MAX_HOST_LENGTH) {
+                return null;
+            }
+            return host.toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** ISO 3166 alpha-2 code from a geo header set by the CDN or proxy, or null. */
+    public static String countryCode(String header) {
+        if (header == null || header.length() != 2
+                || !Character.isLetter(header.charAt(0)) || !Character.isLetter(header.charAt(1))) {
+            return null;
+        }
+        return header.toUpperCase(Locale.ROOT);
+    }
+
+    private static long update(long h, String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= FNV_PRIME;
+            }
+        }
+        // Separator so ("ab", "c") and ("a", "bc") differ
+        h ^= 0xff;
+        return h * FNV_PRIME;
+    }
+}
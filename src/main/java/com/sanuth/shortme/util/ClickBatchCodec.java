@@ -0,0 +1,91 @@
+package com.sanuth.shortme.util;
+
+import com.sanuth.shortme.model.event.ClickBatch;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Text form of a {@link ClickBatch}. In the click stream it is three fields: {@code id},
+ * {@code hour} ({@code yyyy-MM-dd'T'HH}) and {@code clicks} ({@code code=count,code=count});
+ * in a spool segment the same three values on one line, separated by spaces. Short codes never
+ * contain {@code =}, {@code ,} or whitespace.
+ */
+public class ClickBatchCodec {
+
+    public static final String ID_FIELD = "id";
+    public static final String HOUR_FIELD = "hour";
+    public static final String CLICKS_FIELD = "clicks";
+
+    private static final DateTimeFormatter HOUR_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH");
+
+    public static Map<String, String> toFields(ClickBatch batch) {
+        return Map.of(
+                ID_FIELD, batch.getBatchId(),
+                HOUR_FIELD, HOUR_FORMAT.format(batch.getHour()),
+                CLICKS_FIELD, encodeClicks(batch.getClicks()));
+    }
+
+    public static ClickBatch fromFields(Map<?, ?> fields) {
+        Object id = fields.get(ID_FIELD);
+        Object hour = fields.get(HOUR_FIELD);
+        Object clicks = fields.get(CLICKS_FIELD);
+        if (id == null || hour == null || clicks == null) {
+            throw new IllegalArgumentException("Incomplete click batch: " + fields.keySet());
+        }
+        return new ClickBatch(id.toString(), parseHour(hour.toString()), decodeClicks(clicks.toString()));
+    }
+
+    public static String toLine(ClickBatch batch) {
+        return batch.getBatchId() + ' ' + HOUR_FORMAT.format(batch.getHour()) + ' ' + encodeClicks(batch.getClicks());
+    }
+
+    public static ClickBatch fromLine(String line) {
+        int first = line.indexOf(' ');
+        int second = first < 0 ? -1 : line.indexOf(' ', first + 1);
+        if (second < 0) {
+            throw new IllegalArgumentException("Malformed click batch line");
+        }
+        return new ClickBatch(line.substring(0, first), parseHour(line.substring(first + 1, second)),
+                decodeClicks(line.substring(second + 1)));
+    }
+
+    static String encodeClicks(Map<String, Long> clicks) {
+        StringBuilder sb = new StringBuilder(clicks.size() * 12);
+        for (Map.Entry<String, Long> entry : clicks.entrySet()) {
+            if (!sb.isEmpty()) {
+                sb.append(',');
+            }
+            sb.append(entry.getKey()).append('=').append(entry.getValue());
+        }
+        return sb.toString();
+    }
+
+    static Map<String, Long> decodeClicks(String value) {
+        Map<String, Long> clicks = new HashMap<>();
+        int start = 0;
+        while (start < value.length()) {
+            int end = value.indexOf(',', start);
+            if (end < 0) {
+                end = value.length();
+            }
+            int equals = value.lastIndexOf('=', end - 1);
+            if (equals <= start) {
+                throw new IllegalArgumentException("Malformed click count at offset " + start);
+            }
+            try {
+                clicks.merge(value.substring(start, equals), Long.parseLong(value, equals + 1, end, 10), Long::sum);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed click count at offset " + start);
+            }
+            start = end + 1;
+        }
+        return clicks;
+    }
+
+    private static LocalDateTime parseHour(String hour) {
+        return LocalDateTime.parse(hour + ":00");
+    }
+}
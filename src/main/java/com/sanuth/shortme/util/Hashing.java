@@ -0,0 +1,21 @@
+package com.sanuth.shortme.util;
+
+/**
+ * Bit mixing shared by the hand-rolled hashes: visitor hashes, Bloom filter probes and the
+ * Feistel rounds of generated short codes.
+ */
+public final class Hashing {
+
+    private Hashing() {
+    }
+
+    /** MurmurHash3 fmix64 finalizer: a bijection on 64-bit values where every input bit affects every output bit. */
+    public static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,55 @@
+package com.sanuth.shortme.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps how often one category of log statement is written: at most {@code permitsPerSecond} per
+ * wall-clock second, the rest are counted and skipped. {@link #drainSuppressed()} hands the count
+ * to the next statement written, so a burst shows up as one line with the number it stood for.
+ */
+public final class LogRateLimiter {
+
+    private static final int USED_BITS = 20;
+    private static final long USED_MASK = (1L << USED_BITS) - 1;
+
+    private final long permitsPerSecond;
+    // Current second and permits used in it, packed so both are swapped in one CAS
+    private final AtomicLong window = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    public LogRateLimiter(int permitsPerSecond) {
+        if (permitsPerSecond < 0 || permitsPerSecond > USED_MASK) {
+            throw new IllegalArgumentException("permitsPerSecond must be between 0 and " + USED_MASK);
+        }
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    public boolean tryAcquire() {
+        return tryAcquire(System.currentTimeMillis());
+    }
+
+    public boolean tryAcquire(long nowMs) {
+        long second = nowMs / 1000;
+        while (permitsPerSecond > 0) {
+            long current = window.get();
+            long next;
+            if (current >>> USED_BITS != second) {
+                next = second << USED_BITS | 1;
+            } else if ((current & USED_MASK) < permitsPerSecond) {
+                next = current + 1;
+            } else {
+                break;
+            }
+            if (window.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+        suppressed.incrementAndGet();
+        return false;
+    }
+
+    /** Statements skipped since the last call. */
+    public long drainSuppressed() {
+        return suppressed.getAndSet(0);
+    }
+}
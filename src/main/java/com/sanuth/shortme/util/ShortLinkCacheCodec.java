@@ -0,0 +1,86 @@
+package com.sanuth.shortme.util;
+
+import com.sanuth.shortme.model.cache.CachedShortLink;
+import com.sanuth.shortme.model.db.LinkStatus;
+
+import java.time.Instant;
+
+/**
+ * Single-string encoding of the fields the redirect path needs:
+ * {@code <version><status ordinal>[expiresAt epoch seconds]|<longUrl>}, e.g. {@code 10|https://example.com}.
+ * Links with their own cache TTL use version 2, which appends it as {@code ;<seconds>} before the
+ * separator, e.g. {@code 20;600|https://example.com}; other links keep the version 1 form.
+ * The id and createdAt are not cached since nothing on the read path uses them.
+ */
+public class ShortLinkCacheCodec {
+
+    private static final char VERSION = '1';
+    private static final char VERSION_WITH_TTL = '2';
+    private static final char SEPARATOR = '|';
+    private static final char TTL_PREFIX = ';';
+    private static final LinkStatus[] STATUSES = LinkStatus.values();
+
+    public static String encode(CachedShortLink cached) {
+        String longUrl = cached.getLongUrl();
+        StringBuilder sb = new StringBuilder(longUrl.length() + 16);
+        sb.append(cached.getCacheTtlSeconds() != null ? VERSION_WITH_TTL : VERSION);
+        LinkStatus status = cached.getStatus() != null ? cached.getStatus() : LinkStatus.ACTIVE;
+        sb.append((char) ('0' + status.ordinal()));
+        if (cached.getExpiresAt() != null) {
+            sb.append(cached.getExpiresAt().getEpochSecond());
+        }
+        if (cached.getCacheTtlSeconds() != null) {
+            sb.append(TTL_PREFIX).append(cached.getCacheTtlSeconds());
+        }
+        sb.append(SEPARATOR).append(longUrl);
+        return sb.toString();
+    }
+
+    public static CachedShortLink decode(String shortCode, String value) {
+        int separator = value.indexOf(SEPARATOR);
+        char version = separator < 2 ? 0 : value.charAt(0);
+        if (version != VERSION && version != VERSION_WITH_TTL) {
+            throw new IllegalArgumentException("Unsupported cache value for code: " + shortCode);
+        }
+
+        int statusOrdinal = value.charAt(1) - '0';
+        if (statusOrdinal < 0 || statusOrdinal >= STATUSES.length) {
+            throw new IllegalArgumentException("Invalid cached status for code: " + shortCode);
+        }
+
+        int expiryEnd = separator;
+        Long cacheTtlSeconds = null;
+        if (version == VERSION_WITH_TTL) {
+            expiryEnd = value.lastIndexOf(TTL_PREFIX, separator);
+            if (expiryEnd < 2 || expiryEnd == separator - 1) {
+                throw new IllegalArgumentException("Missing cached TTL for code: " + shortCode);
+            }
+            cacheTtlSeconds = parseDigits(value, expiryEnd + 1, separator, "TTL", shortCode);
+        }
+
+        Instant expiresAt = null;
+        if (expiryEnd > 2) {
+            expiresAt = Instant.ofEpochSecond(parseDigits(value, 2, expiryEnd, "expiry", shortCode));
+        }
+
+        CachedShortLink cached = new CachedShortLink();
+        cached.setShortCode(shortCode);
+        cached.setLongUrl(value.substring(separator + 1));
+        cached.setExpiresAt(expiresAt);
+        cached.setStatus(STATUSES[statusOrdinal]);
+        cached.setCacheTtlSeconds(cacheTtlSeconds);
+        return cached;
+    }
+
+    private static long parseDigits(String value, int from, int to, String field, String shortCode) {
+        long number = 0;
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Invalid cached " + field + " for code: " + shortCode);
+            }
+            number = number * 10 + (c - '0');
+        }
+        return number;
+    }
+}
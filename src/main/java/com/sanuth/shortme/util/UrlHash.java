@@ -0,0 +1,47 @@
+package com.sanuth.shortme.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Fixed-width key for looking links up by target URL: the first {@value #LENGTH} bytes of the
+ * SHA-256 of the {@linkplain #canonical canonical} URL. Indexing these 16 bytes keeps the index
+ * small however long URLs get; a lookup still compares the stored URL, so a collision can cost a
+ * missed dedup but never a wrong redirect.
+ */
+public final class UrlHash {
+
+    public static final int LENGTH = 16;
+
+    private UrlHash() {
+    }
+
+    public static byte[] of(String url) {
+        if (url == null) {
+            return null;
+        }
+        return Arrays.copyOf(sha256().digest(canonical(url).getBytes(StandardCharsets.UTF_8)), LENGTH);
+    }
+
+    /**
+     * The URL in {@link UrlNormalizer} form. Links created through the API are stored normalized
+     * already; imported ones may not be, and are hashed as they are if they do not normalize.
+     */
+    public static String canonical(String url) {
+        try {
+            return UrlNormalizer.normalize(url);
+        } catch (IllegalArgumentException e) {
+            return url;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.sanuth.shortme.util;
+
+import java.net.IDN;
+import java.util.Locale;
+
+/**
+ * Validates a target URL and brings it into the form links are stored and deduplicated in, in one
+ * pass over the string. Accepts what {@link java.net.URI} parses as an {@code http} or
+ * {@code https} URI with a server-based authority whose host is a domain name or an IPv4 address
+ * containing a dot; IPv6 literals and ports above 65535 are rejected. A URL without a scheme gets
+ * {@code https://}.
+ *
+ * <p>Normalizing lower-cases the scheme and host, converts internationalized host names to
+ * punycode and drops an empty or default port. Path, query and fragment are kept as they are,
+ * escapes included. A URL already in normal form is returned as the same instance.
+ */
+public final class UrlNormalizer {
+
+    public static final int MAX_LENGTH = 2048;
+
+    private static final String HTTP = "http://";
+    private static final String HTTPS = "https://";
+
+    // ASCII classes of RFC 2396 as java.net.URI applies them; '%' and non-ASCII are handled separately
+    private static final boolean[] USER_INFO = chars(alphanumeric() + "-_.!~*'()" + ";:&=+$,");
+    private static final boolean[] PATH = chars(alphanumeric() + "-_.!~*'()" + ":@&=+$," + ";/");
+    private static final boolean[] URIC = chars(alphanumeric() + "-_.!~*'()" + ";/?:@&=+$,[]");
+
+    private UrlNormalizer() {
+    }
+
+    /**
+     * Returns {@code url} in normal form, or throws {@link IllegalArgumentException} with a message
+     * fit for the API client if it is not an acceptable target.
+     */
+    public static String normalize(String url) {
+        if (url == null || url.isBlank()) {
+            throw new IllegalArgumentException("URL cannot be empty");
+        }
+        if (url.length() > MAX_LENGTH) {
+            throw new IllegalArgumentException("URL too long (max " + MAX_LENGTH + " characters)");
+        }
+
+        boolean https;
+        if (url.regionMatches(true, 0, HTTPS, 0, HTTPS.length())) {
+            https = true;
+        } else if (url.regionMatches(true, 0, HTTP, 0, HTTP.length())) {
+            https = false;
+        } else if (hasScheme(url)) {
+            throw new IllegalArgumentException("URL must start with http:// or https://");
+        } else {
+            return normalize(HTTPS + url);
+        }
+        int authorityStart = https ? HTTPS.length() : HTTP.length();
+        boolean changed = !url.startsWith(https ? HTTPS : HTTP);
+
+        // Reject double-prefixed URLs (e.g. "https://https://example.com")
+        if (url.regionMatches(true, authorityStart, HTTPS, 0, HTTPS.length())
+                || url.regionMatches(true, authorityStart, HTTP, 0, HTTP.length())) {
+            throw new IllegalArgumentException("Invalid URL: double protocol prefix");
+        }
+
+        int length = url.length();
+        int authorityEnd = authorityStart;
+        int at = -1;
+        int colon = -1;
+        boolean nonAscii = false;
+        for (; authorityEnd < length; authorityEnd++) {
+            char c = url.charAt(authorityEnd);
+            if (c == '/' || c == '?' || c == '#') {
+                break;
+            }
+            if (c == '@' && at < 0) {
+                at = authorityEnd;
+                colon = -1;
+                nonAscii = false;
+            } else if (c == ':') {
+                colon = authorityEnd;
+            } else if (c >= 0x80) {
+                nonAscii = true;
+            }
+        }
+
+        int hostStart = authorityStart;
+        if (at >= 0) {
+            if (!matches(url, authorityStart, at, USER_INFO)) {
+                throw invalidFormat();
+            }
+            hostStart = at + 1;
+        }
+        if (hostStart < authorityEnd && url.charAt(hostStart) == '[') {
+            // IPv6 literal; its colons would be taken for the port separator below
+            throw invalidFormat();
+        }
+        int hostEnd = colon >= 0 ? colon : authorityEnd;
+
+        String host = url.substring(hostStart, hostEnd);
+        if (nonAscii) {
+            try {
+                host = IDN.toASCII(host, IDN.ALLOW_UNASSIGNED);
+            } catch (IllegalArgumentException e) {
+                throw invalidFormat();
+            }
+            changed = true;
+        }
+        // Reject URLs with no valid host (must contain a dot, e.g. "example.com")
+        if (host.indexOf('.') < 0) {
+            throw new IllegalArgumentException("Invalid URL: missing domain");
+        }
+        if (!isIPv4(host) && !isHostname(host)) {
+            throw invalidFormat();
+        }
+        for (int i = 0; i < host.length() && !changed; i++) {
+            char c = host.charAt(i);
+            changed = c >= 'A' && c <= 'Z';
+        }
+
+        int port = -1;
+        if (hostEnd < authorityEnd) {
+            port = parsePort(url, hostEnd + 1, authorityEnd);
+            if (port < 0 || port == (https ? 443 : 80) || authorityEnd - hostEnd - 1 != digits(port)) {
+                changed = true;
+            }
+        }
+
+        checkRest(url, authorityEnd);
+        if (!changed) {
+            return url;
+        }
+
+        StringBuilder sb = new StringBuilder(length + 8)
+                .append(https ? HTTPS : HTTP);
+        if (at >= 0) {
+            sb.append(url, authorityStart, hostStart);
+        }
+        sb.append(host.toLowerCase(Locale.ROOT));
+        if (port >= 0 && port != (https ? 443 : 80)) {
+            sb.append(':').append(port);
+        }
+        return sb.append(url, authorityEnd, length).toString();
+    }
+
+    // A scheme name followed by "://", so "localhost:8080/x" and "user:pass@host" are not taken for one
+    private static boolean hasScheme(String url) {
+        int i = 0;
+        while (i < url.length() && isSchemeChar(url.charAt(i), i == 0)) {
+            i++;
+        }
+        return i > 0 && url.startsWith("://", i);
+    }
+
+    private static boolean isSchemeChar(char c, boolean first) {
+        boolean alpha = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        return first ? alpha : alpha || (c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.';
+    }
+
+    // Path up to '?' or '#', then query up to '#', then fragment; a second '#' is not allowed
+    private static void checkRest(String url, int from) {
+        int length = url.length();
+        int end = from;
+        while (end < length && url.charAt(end) != '?' && url.charAt(end) != '#') {
+            end++;
+        }
+        if (!matches(url, from, end, PATH)) {
+            throw invalidFormat();
+        }
+        if (end < length && url.charAt(end) == '?') {
+            int queryEnd = url.indexOf('#', end + 1);
+            if (queryEnd < 0) {
+                queryEnd = length;
+            }
+            if (!matches(url, end + 1, queryEnd, URIC)) {
+                throw invalidFormat();
+            }
+            end = queryEnd;
+        }
+        if (end < length && !matches(url, end + 1, length, URIC)) {
+            throw invalidFormat();
+        }
+    }
+
+    // Characters of the class, escapes of two hex digits and non-ASCII characters other than spaces and controls
+    private static boolean matches(String url, int from, int to, boolean[] allowed) {
+        for (int i = from; i < to; i++) {
+            char c = url.charAt(i);
+            if (c < 0x80 && allowed[c]) {
+                continue;
+            }
+            if (c == '%') {
+                if (i + 2 >= to || !isHex(url.charAt(i + 1)) || !isHex(url.charAt(i + 2))) {
+                    return false;
+                }
+                i += 2;
+            } else if (c < 0x80 || Character.isSpaceChar(c) || Character.isISOControl(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Four decimal bytes; leading zeros are allowed, as java.net.URI allows them
+    private static boolean isIPv4(String host) {
+        int parts = 0;
+        int value = -1;
+        for (int i = 0; i < host.length(); i++) {
+            char c = host.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = Math.max(value, 0) * 10 + (c - '0');
+                if (value > 255) {
+                    return false;
+                }
+            } else if (c == '.' && value >= 0 && parts < 3) {
+                parts++;
+                value = -1;
+            } else {
+                return false;
+            }
+        }
+        return parts == 3 && value >= 0;
+    }
+
+    /**
+     * Labels of letters, digits and inner hyphens separated by single dots, optionally ending in a
+     * dot; with more than one label the last must start with a letter, so "1.2.3" is not a host.
+     */
+    private static boolean isHostname(String host) {
+        int length = host.length();
+        int labelStart = 0;
+        int lastLabel = -1;
+        while (labelStart < length) {
+            int i = labelStart;
+            while (i < length && (isAlphanumeric(host.charAt(i)) || (i > labelStart && host.charAt(i) == '-'))) {
+                i++;
+            }
+            if (i == labelStart || host.charAt(i - 1) == '-') {
+                return false;
+            }
+            lastLabel = labelStart;
+            if (i < length && host.charAt(i) != '.') {
+                return false;
+            }
+            labelStart = i + 1;
+        }
+        return lastLabel == 0 || isLetter(host.charAt(lastLabel));
+    }
+
+    // Digits only, empty for no port (-1); above 65535 is rejected
+    private static int parsePort(String url, int from, int to) {
+        if (from == to) {
+            return -1;
+        }
+        int port = 0;
+        for (int i = from; i < to; i++) {
+            char c = url.charAt(i);
+            if (c < '0' || c > '9') {
+                throw invalidFormat();
+            }
+            port = port * 10 + (c - '0');
+            if (port > 65535) {
+                throw invalidFormat();
+            }
+        }
+        return port;
+    }
+
+    private static int digits(int value) {
+        return value < 10 ? 1 : value < 100 ? 2 : value < 1000 ? 3 : value < 10000 ? 4 : 5;
+    }
+
+    private static boolean isHex(char c) {
+        return (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAlphanumeric(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9');
+    }
+
+    private static IllegalArgumentException invalidFormat() {
+        return new IllegalArgumentException("Invalid URL format");
+    }
+
+    private static String alphanumeric() {
+        return "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    }
+
+    private static boolean[] chars(String allowed) {
+        boolean[] table = new boolean[128];
+        for (int i = 0; i < allowed.length(); i++) {
+            table[allowed.charAt(i)] = true;
+        }
+        return table;
+    }
+}
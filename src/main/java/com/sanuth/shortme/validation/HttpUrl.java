@@ -0,0 +1,28 @@
+package com.sanuth.shortme.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * The value starts with {@code http://} or {@code https://}, in any case; {@code null} is valid.
+ * Only the scheme is checked here, {@link com.sanuth.shortme.util.UrlNormalizer} validates the rest
+ * when the link is created.
+ */
+@Documented
+@Constraint(validatedBy = HttpUrlValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HttpUrl {
+
+    String message() default "URL must start with http:// or https://";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,24 @@
+package com.sanuth.shortme.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/** The value consists of ASCII letters, digits, hyphens and underscores; {@code null} is valid. */
+@Documented
+@Constraint(validatedBy = ShortCodeCharsValidator.class)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShortCodeChars {
+
+    String message() default "Short code can only contain alphanumeric characters, hyphens, and underscores";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
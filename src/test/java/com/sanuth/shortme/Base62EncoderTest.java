@@ -0,0 +1,79 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.util.Base62Encoder;
+import org.junit.jupiter.api.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class Base62EncoderTest {
+
+    @Test
+    void encode_knownValues() {
+        assertEquals("0", Base62Encoder.encode(0));
+        assertEquals("z", Base62Encoder.encode(61));
+        assertEquals("10", Base62Encoder.encode(62));
+        assertEquals("AzL8n0Y58m7", Base62Encoder.encode(Long.MAX_VALUE));
+    }
+
+    @Test
+    void roundTrip_randomValues() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 10_000; i++) {
+            long value = random.nextLong(0, Long.MAX_VALUE);
+            assertEquals(value, Base62Encoder.decode(Base62Encoder.encode(value)));
+        }
+        assertEquals(Long.MAX_VALUE, Base62Encoder.decode("AzL8n0Y58m7"));
+    }
+
+    @Test
+    void fixedWidth_padsAndSortsNumerically() {
+        assertEquals("0000010", Base62Encoder.encode(62, 7));
+        assertEquals(62, Base62Encoder.decode("0000010"));
+        assertTrue(Base62Encoder.encode(61, 7).compareTo(Base62Encoder.encode(62, 7)) < 0);
+        assertTrue(Base62Encoder.encode(3843, 7).compareTo(Base62Encoder.encode(3844, 7)) < 0);
+    }
+
+    @Test
+    void fixedWidth_growsWhenNumberNeedsMoreDigits() {
+        assertEquals("10", Base62Encoder.encode(62, 1));
+        assertEquals(62, Base62Encoder.decode(Base62Encoder.encode(62, 1)));
+    }
+
+    @Test
+    void encodeTo_writesAsciiAtPosition() {
+        ByteBuffer buffer = ByteBuffer.allocate(16);
+        buffer.put((byte) '/');
+
+        assertEquals(2, Base62Encoder.encodeTo(62, buffer));
+        assertEquals(3, buffer.position());
+        assertEquals("/10", new String(buffer.array(), 0, 3, StandardCharsets.US_ASCII));
+        assertThrows(BufferOverflowException.class, () -> Base62Encoder.encodeTo(62, ByteBuffer.allocate(1)));
+    }
+
+    @Test
+    void decode_acceptsAnyCharSequence() {
+        assertEquals(62, Base62Encoder.decode(new StringBuilder("10")));
+    }
+
+    @Test
+    void decode_rejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> Base62Encoder.decode(""));
+        assertThrows(IllegalArgumentException.class, () -> Base62Encoder.decode("my-sale"));
+        assertThrows(IllegalArgumentException.class, () -> Base62Encoder.decode("ab_c"));
+        assertThrows(IllegalArgumentException.class, () -> Base62Encoder.decode("é"));
+        assertThrows(IllegalArgumentException.class, () -> Base62Encoder.decode("AzL8n0Y58m8"));
+        assertThrows(IllegalArgumentException.class, () -> Base62Encoder.decode("zzzzzzzzzzzz"));
+        assertFalse(Base62Encoder.isValid("my-sale"));
+        assertTrue(Base62Encoder.isValid("mySale"));
+    }
+
+    @Test
+    void encode_rejectsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> Base62Encoder.encode(-1));
+    }
+}
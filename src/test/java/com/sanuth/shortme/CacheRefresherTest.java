@@ -0,0 +1,138 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.model.cache.CachedShortLink;
+import com.sanuth.shortme.model.db.LinkStatus;
+import com.sanuth.shortme.repository.LinkRepository;
+import com.sanuth.shortme.repository.ShortLinkCacheStore;
+import com.sanuth.shortme.service.CacheRefresher;
+import com.sanuth.shortme.service.LocalLinkCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CacheRefresherTest {
+
+    @Mock
+    private LinkRepository linkRepository;
+
+    @Mock
+    private ShortLinkCacheStore cacheStore;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final LocalLinkCache localLinkCache = new LocalLinkCache(100, 60, 100, 30);
+    private CacheRefresher refresher;
+
+    @BeforeEach
+    void createRefresher() {
+        refresher = new CacheRefresher(linkRepository, cacheStore, localLinkCache, meterRegistry,
+                3600, true, 1.0, 100, 1, 10);
+    }
+
+    @AfterEach
+    void shutdown() {
+        refresher.shutdown();
+    }
+
+    @Test
+    void ttl_prefersLinkOverride() {
+        assertEquals(3600, refresher.ttlSeconds(link(null)));
+        assertEquals(600, refresher.ttlSeconds(link(600L)));
+    }
+
+    @Test
+    void ttl_boundedByLinkExpiry() {
+        CachedShortLink expiring = new CachedShortLink(1L, "abc", "https://example.com", Instant.now(),
+                Instant.now().plusSeconds(120), LinkStatus.ACTIVE, null);
+        CachedShortLink expired = new CachedShortLink(1L, "abc", "https://example.com", Instant.now(),
+                Instant.now().minusSeconds(1), LinkStatus.ACTIVE, null);
+
+        assertTrue(refresher.ttlSeconds(expiring) <= 120 && refresher.ttlSeconds(expiring) >= 119);
+        assertTrue(refresher.ttlSeconds(expired) <= 0);
+    }
+
+    @Test
+    void freshEntry_isNotRefreshed() {
+        LocalLinkCache.Entry entry = new LocalLinkCache.Entry("https://example.com", true, 0, 3600,
+                System.currentTimeMillis() + 3_500_000);
+        for (int i = 0; i < 100; i++) {
+            refresher.onHit("abc", entry);
+        }
+
+        verifyNoInteractions(linkRepository, cacheStore);
+    }
+
+    @Test
+    void hotEntry_pastHalfItsTtl_getsSlidingExtension() {
+        LocalLinkCache.Entry entry = new LocalLinkCache.Entry("https://example.com", true, 0, 3600,
+                System.currentTimeMillis() + 1_000_000);
+        for (int i = 0; i < 10; i++) {
+            refresher.onHit("abc", entry);
+        }
+
+        verify(cacheStore, timeout(1000)).expire("abc", Duration.ofSeconds(3600));
+        verifyNoInteractions(linkRepository);
+        long deadline = System.currentTimeMillis() + 1000;
+        while (entry.redisExpiresAtMs() < System.currentTimeMillis() + 3_000_000 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(entry.redisExpiresAtMs() > System.currentTimeMillis() + 3_000_000);
+    }
+
+    @Test
+    void expiringEntry_isReloadedFromDatabase() {
+        when(linkRepository.findCachedByShortCode("abc")).thenReturn(Optional.of(link(600L)));
+        LocalLinkCache.Entry entry = new LocalLinkCache.Entry("https://example.com", true, 0, 600,
+                System.currentTimeMillis() - 1);
+
+        refresher.onHit("abc", entry);
+
+        verify(cacheStore, timeout(1000)).save(argThat(cached -> cached.getTtl() == 600L));
+        verify(cacheStore, never()).expire(any(), any());
+        awaitRefreshCount("early", 1.0);
+    }
+
+    @Test
+    void deletedLink_reloadNotCounted() throws InterruptedException {
+        when(linkRepository.findCachedByShortCode("abc")).thenReturn(Optional.empty());
+        LocalLinkCache.Entry entry = new LocalLinkCache.Entry("https://example.com", true, 0, 600,
+                System.currentTimeMillis() - 1);
+
+        refresher.onHit("abc", entry);
+
+        verify(linkRepository, timeout(1000)).findCachedByShortCode("abc");
+        Thread.sleep(100);
+        verify(cacheStore, never()).save(any());
+        assertEquals(0.0, refreshCount("early"));
+    }
+
+    private void awaitRefreshCount(String type, double expected) {
+        long deadline = System.currentTimeMillis() + 1000;
+        while (refreshCount(type) < expected && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(expected, refreshCount(type));
+    }
+
+    private double refreshCount(String type) {
+        return meterRegistry.get("shortme.cache.refreshes").tag("type", type).counter().count();
+    }
+
+    private static CachedShortLink link(Long cacheTtlSeconds) {
+        return new CachedShortLink(1L, "abc", "https://example.com", Instant.now(), null,
+                LinkStatus.ACTIVE, cacheTtlSeconds);
+    }
+}
@@ -0,0 +1,158 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.model.event.ClickBreakdown;
+import com.sanuth.shortme.service.ClickAggregationService;
+import com.sanuth.shortme.service.ClickEventLog;
+import com.sanuth.shortme.service.RedisService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ClickAggregationServiceTest {
+
+    @Mock
+    private RedisService redisService;
+
+    @Mock
+    private ClickEventLog clickEventLog;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ClickAggregationService service;
+
+    // Long interval so only explicit flushes run during the test
+    private void setup(long flushThreshold, int maxPendingCodes) {
+        setup(flushThreshold, maxPendingCodes, 1000);
+    }
+
+    private void setup(long flushThreshold, int maxPendingCodes, int maxAttributionPerCode) {
+        service = new ClickAggregationService(redisService, clickEventLog, meterRegistry, 60_000, flushThreshold,
+                maxPendingCodes, maxAttributionPerCode);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        service.shutdown();
+    }
+
+    @Test
+    void flush_aggregatesClicksPerCode() {
+        setup(1000, 100);
+        service.record("abc");
+        service.record("abc");
+        service.record("def");
+
+        service.flush();
+
+        verify(redisService).incrementClicks(eq(Map.of("abc", 2L, "def", 1L)), eq(Map.of()), any(LocalDateTime.class));
+        verify(clickEventLog).append(eq(Map.of("abc", 2L, "def", 1L)), any(LocalDateTime.class));
+        assertEquals(3.0, meterRegistry.counter("shortme.clicks.flushed").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_collectsAttributionPerCode() {
+        setup(1000, 100);
+        service.record("abc", 1, 11L, "news.example.org", "NZ");
+        service.record("abc", 1, 11L, "news.example.org", "AU");
+        service.record("abc", 2, 12L, null, "NZ");
+
+        service.flush();
+
+        ArgumentCaptor<Map<String, ClickBreakdown>> breakdowns = ArgumentCaptor.forClass(Map.class);
+        verify(redisService).incrementClicks(eq(Map.of("abc", 4L)), breakdowns.capture(), any(LocalDateTime.class));
+        ClickBreakdown abc = breakdowns.getValue().get("abc");
+        assertEquals(Set.of(11L, 12L), abc.getVisitors());
+        assertEquals(Map.of("news.example.org", 2L), abc.getReferrers());
+        assertEquals(Map.of("NZ", 3L, "AU", 1L), abc.getCountries());
+    }
+
+    @Test
+    void flush_nothingPending_skipsRedis() {
+        setup(1000, 100);
+        service.flush();
+
+        verify(redisService, never()).incrementClicks(anyMap(), anyMap(), any());
+    }
+
+    @Test
+    void record_beyondMaxPendingCodes_dropsNewCodes() {
+        setup(1000, 1);
+        service.record("abc");
+        service.record("def");
+
+        assertEquals(1.0, meterRegistry.counter("shortme.clicks.dropped").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void record_beyondMaxAttributionPerCode_dropsNewValuesButCountsClicks() {
+        setup(1000, 100, 2);
+        service.record("abc", 1, 11L, "a.example.org", "NZ");
+        service.record("abc", 1, 12L, "b.example.org", "AU");
+        service.record("abc", 1, 13L, "c.example.org", "US");
+        service.record("abc", 1, 11L, "a.example.org", "NZ");
+
+        assertEquals(1.0, meterRegistry.counter("shortme.clicks.attribution.dropped", "kind", "visitor").count());
+        assertEquals(1.0, meterRegistry.counter("shortme.clicks.attribution.dropped", "kind", "referrer").count());
+        assertEquals(1.0, meterRegistry.counter("shortme.clicks.attribution.dropped", "kind", "country").count());
+
+        // The full collection requested an early flush, which may already have run
+        service.flush();
+        ArgumentCaptor<Map<String, Long>> batches = ArgumentCaptor.forClass(Map.class);
+        ArgumentCaptor<Map<String, ClickBreakdown>> breakdowns = ArgumentCaptor.forClass(Map.class);
+        verify(redisService, atLeastOnce()).incrementClicks(batches.capture(), breakdowns.capture(), any(LocalDateTime.class));
+        assertEquals(4L, batches.getAllValues().stream().mapToLong(batch -> batch.getOrDefault("abc", 0L)).sum());
+        Set<Long> visitors = new HashSet<>();
+        breakdowns.getAllValues().forEach(b -> visitors.addAll(b.getOrDefault("abc", new ClickBreakdown()).getVisitors()));
+        assertEquals(Set.of(11L, 12L), visitors);
+    }
+
+    @Test
+    void flush_redisFails_countsClicksAsDropped() {
+        setup(1000, 100);
+        doThrow(new RuntimeException("connection refused")).when(redisService).incrementClicks(anyMap(), anyMap(), any());
+        service.record("abc");
+
+        service.flush();
+
+        assertEquals(1.0, meterRegistry.counter("shortme.clicks.dropped").count());
+    }
+
+    @Test
+    void flush_redisFailsButClicksReachedStream_notCountedAsDropped() {
+        setup(1000, 100);
+        doThrow(new RuntimeException("connection refused")).when(redisService).incrementClicks(anyMap(), anyMap(), any());
+        when(clickEventLog.append(anyMap(), any(LocalDateTime.class))).thenReturn(true);
+        service.record("abc");
+
+        service.flush();
+
+        assertEquals(0.0, meterRegistry.counter("shortme.clicks.dropped").count());
+    }
+
+    @Test
+    void shutdown_drainsPendingClicks() throws InterruptedException {
+        setup(1000, 100);
+        service.record("abc");
+
+        service.shutdown();
+
+        verify(redisService).incrementClicks(eq(Map.of("abc", 1L)), anyMap(), any(LocalDateTime.class));
+    }
+}
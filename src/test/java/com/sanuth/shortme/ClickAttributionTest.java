@@ -0,0 +1,40 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.util.ClickAttribution;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClickAttributionTest {
+
+    @Test
+    void fingerprint_stableAndSalted() {
+        long hash = ClickAttribution.fingerprint("salt", "203.0.113.7", "Mozilla/5.0");
+
+        assertEquals(hash, ClickAttribution.fingerprint("salt", "203.0.113.7", "Mozilla/5.0"));
+        assertNotEquals(hash, ClickAttribution.fingerprint("other", "203.0.113.7", "Mozilla/5.0"));
+        assertNotEquals(hash, ClickAttribution.fingerprint("salt", "203.0.113.8", "Mozilla/5.0"));
+        assertNotEquals(ClickAttribution.NO_VISITOR, ClickAttribution.fingerprint("", "", null));
+    }
+
+    @Test
+    void fingerprint_fieldBoundariesMatter() {
+        assertNotEquals(ClickAttribution.fingerprint("", "ab", "c"), ClickAttribution.fingerprint("", "a", "bc"));
+    }
+
+    @Test
+    void referrerHost_lowerCasedHostOnly() {
+        assertEquals("news.example.org", ClickAttribution.referrerHost("https://News.Example.org/a?b=c"));
+        assertNull(ClickAttribution.referrerHost(null));
+        assertNull(ClickAttribution.referrerHost("android-app"));
+        assertNull(ClickAttribution.referrerHost("not a url"));
+    }
+
+    @Test
+    void countryCode_twoLettersOnly() {
+        assertEquals("NZ", ClickAttribution.countryCode("nz"));
+        assertNull(ClickAttribution.countryCode("XX1"));
+        assertNull(ClickAttribution.countryCode("1A"));
+        assertNull(ClickAttribution.countryCode(null));
+    }
+}
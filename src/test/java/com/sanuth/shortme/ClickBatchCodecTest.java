@@ -0,0 +1,53 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.model.event.ClickBatch;
+import com.sanuth.shortme.util.ClickBatchCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ClickBatchCodecTest {
+
+    private static final LocalDateTime HOUR = LocalDateTime.of(2026, 2, 5, 13, 0);
+
+    @Test
+    void roundTrip_streamFields() {
+        ClickBatch batch = new ClickBatch("b-1", HOUR, Map.of("abc", 3L, "my-code_2", 1L));
+
+        Map<String, String> fields = ClickBatchCodec.toFields(batch);
+        ClickBatch decoded = ClickBatchCodec.fromFields(fields);
+
+        assertEquals("2026-02-05T13", fields.get(ClickBatchCodec.HOUR_FIELD));
+        assertEquals("b-1", decoded.getBatchId());
+        assertEquals(HOUR, decoded.getHour());
+        assertEquals(Map.of("abc", 3L, "my-code_2", 1L), decoded.getClicks());
+    }
+
+    @Test
+    void roundTrip_spoolLine() {
+        ClickBatch batch = new ClickBatch("b-2", HOUR, Map.of("abc", 42L));
+
+        String line = ClickBatchCodec.toLine(batch);
+        ClickBatch decoded = ClickBatchCodec.fromLine(line);
+
+        assertEquals("b-2 2026-02-05T13 abc=42", line);
+        assertEquals(Map.of("abc", 42L), decoded.getClicks());
+        assertEquals(42, decoded.totalClicks());
+    }
+
+    @Test
+    void fromFields_missingField_throws() {
+        assertThrows(IllegalArgumentException.class,
+                () -> ClickBatchCodec.fromFields(Map.of("id", "b-1", "hour", "2026-02-05T13")));
+    }
+
+    @Test
+    void fromLine_truncatedLine_throws() {
+        assertThrows(IllegalArgumentException.class, () -> ClickBatchCodec.fromLine("b-1 2026-02-05T13"));
+        assertThrows(IllegalArgumentException.class, () -> ClickBatchCodec.fromLine("b-1 2026-02-05T13 abc=4,de"));
+        assertThrows(IllegalArgumentException.class, () -> ClickBatchCodec.fromLine("b-1 2026-02-05T13 abc="));
+    }
+}
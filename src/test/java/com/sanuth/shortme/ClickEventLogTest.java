@@ -0,0 +1,142 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.model.event.ClickBatch;
+import com.sanuth.shortme.service.ClickEventLog;
+import com.sanuth.shortme.service.RedisService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ClickEventLogTest {
+
+    private static final LocalDateTime FLUSHED_AT = LocalDateTime.of(2026, 2, 5, 13, 20);
+
+    @Mock
+    private RedisService redisService;
+
+    @TempDir
+    private Path spoolDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ClickEventLog eventLog(int maxCodesPerBatch) {
+        return new ClickEventLog(redisService, meterRegistry, true, maxCodesPerBatch, 1000, spoolDir.toString(),
+                1 << 20, 72);
+    }
+
+    private static String segmentName(long startedAtMs) {
+        return String.format("segment-%013d-000000.log", startedAtMs);
+    }
+
+    private long segments() throws IOException {
+        try (Stream<Path> files = Files.list(spoolDir)) {
+            return files.count();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void append_splitsLargeFlushIntoBatches() {
+        Map<String, Long> clicks = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            clicks.put("code" + i, 1L);
+        }
+
+        eventLog(2).append(clicks, FLUSHED_AT);
+
+        ArgumentCaptor<List<ClickBatch>> batches = ArgumentCaptor.forClass(List.class);
+        verify(redisService).appendClickBatches(batches.capture(), eq(1000L));
+        assertEquals(3, batches.getValue().size());
+        assertEquals(LocalDateTime.of(2026, 2, 5, 13, 0), batches.getValue().get(0).getHour());
+        assertEquals(5, batches.getValue().stream().mapToLong(ClickBatch::totalClicks).sum());
+        assertEquals(3, batches.getValue().stream().map(ClickBatch::getBatchId).distinct().count());
+    }
+
+    @Test
+    void append_redisDown_spoolsToSegment() throws IOException {
+        doThrow(new RedisConnectionFailureException("down")).when(redisService).appendClickBatches(anyList(), anyLong());
+
+        eventLog(1000).append(Map.of("abc", 3L), FLUSHED_AT);
+
+        assertEquals(1, segments());
+        assertEquals(1.0, meterRegistry.counter("shortme.clicks.stream.spooled").count());
+        assertTrue(meterRegistry.get("shortme.clicks.stream.spool.bytes").gauge().value() > 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void replay_appendsSpooledBatchesWithSameIdsAndDeletesSegment() throws IOException {
+        ClickEventLog eventLog = eventLog(1000);
+        ArgumentCaptor<List<ClickBatch>> attempted = ArgumentCaptor.forClass(List.class);
+        doThrow(new RedisConnectionFailureException("down"))
+                .doNothing()
+                .when(redisService).appendClickBatches(attempted.capture(), anyLong());
+        eventLog.append(Map.of("abc", 3L), FLUSHED_AT);
+
+        assertEquals(1, eventLog.replay());
+
+        List<ClickBatch> spooled = attempted.getAllValues().get(0);
+        List<ClickBatch> replayed = attempted.getAllValues().get(1);
+        assertEquals(spooled.get(0).getBatchId(), replayed.get(0).getBatchId());
+        assertEquals(Map.of("abc", 3L), replayed.get(0).getClicks());
+        assertEquals(0, segments());
+        assertEquals(0.0, meterRegistry.get("shortme.clicks.stream.spool.bytes").gauge().value());
+    }
+
+    @Test
+    void replay_redisStillDown_keepsSegment() throws IOException {
+        ClickEventLog eventLog = eventLog(1000);
+        doThrow(new RedisConnectionFailureException("down")).when(redisService).appendClickBatches(anyList(), anyLong());
+        eventLog.append(Map.of("abc", 3L), FLUSHED_AT);
+
+        assertThrows(RedisConnectionFailureException.class, eventLog::replay);
+
+        assertEquals(1, segments());
+    }
+
+    @Test
+    void replay_skipsTruncatedLine() throws IOException {
+        Files.writeString(spoolDir.resolve(segmentName(System.currentTimeMillis())),
+                "b-1 2026-02-05T13 abc=2\nb-2 2026-02-05T13 de");
+
+        assertEquals(1, eventLog(1000).replay());
+
+        verify(redisService).appendClickBatches(anyList(), eq(1000L));
+        assertEquals(0, segments());
+    }
+
+    @Test
+    void replay_segmentOlderThanDedupRetention_quarantined() throws IOException {
+        long started = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(72);
+        Files.writeString(spoolDir.resolve(segmentName(started)), "b-1 2026-02-05T13 abc=2\n");
+
+        assertEquals(0, eventLog(1000).replay());
+
+        verifyNoInteractions(redisService);
+        assertTrue(Files.exists(spoolDir.resolve("quarantined-" + segmentName(started))));
+        assertEquals(1.0, meterRegistry.counter("shortme.clicks.stream.quarantined").count());
+        assertEquals(0.0, meterRegistry.get("shortme.clicks.stream.spool.bytes").gauge().value());
+    }
+}
@@ -0,0 +1,102 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.service.ClickAggregationService;
+import com.sanuth.shortme.service.ClickRecorder;
+import com.sanuth.shortme.service.ClickRecorder.OverflowPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ClickRecorderTest {
+
+    @Mock
+    private ClickAggregationService clickAggregationService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    // No consumer threads, so events stay queued until shutdown drains them
+    private ClickRecorder recorder(int capacity, OverflowPolicy policy) {
+        return new ClickRecorder(clickAggregationService, meterRegistry, capacity, 0, policy, 10, 1, "salt", "CF-IPCountry");
+    }
+
+    @Test
+    void record_queuesWithoutTouchingAggregator() throws InterruptedException {
+        ClickRecorder recorder = recorder(8, OverflowPolicy.DROP);
+        recorder.record("abc");
+
+        assertEquals(1, recorder.depth());
+        verifyNoInteractions(clickAggregationService);
+
+        recorder.shutdown();
+        verify(clickAggregationService).record("abc", 1L);
+    }
+
+    @Test
+    void record_idleConsumerIsWokenForNewClick() throws InterruptedException {
+        ClickRecorder recorder = new ClickRecorder(clickAggregationService, meterRegistry, 8, 1,
+                OverflowPolicy.DROP, 10, 1, "salt", "CF-IPCountry");
+        Thread.sleep(50);
+
+        recorder.record("abc");
+
+        verify(clickAggregationService, timeout(1000)).record("abc", 1L);
+        recorder.shutdown();
+    }
+
+    @Test
+    void queueLag_reportsAgeOfOldestQueuedEvent() throws InterruptedException {
+        ClickRecorder recorder = recorder(8, OverflowPolicy.DROP);
+        assertEquals(0.0, meterRegistry.get("shortme.clicks.queue.lag").gauge().value());
+
+        recorder.record("abc");
+        Thread.sleep(20);
+
+        assertTrue(meterRegistry.get("shortme.clicks.queue.lag").gauge().value() >= 0.02);
+        recorder.shutdown();
+    }
+
+    @Test
+    void record_queueFull_dropPolicyDiscards() throws InterruptedException {
+        ClickRecorder recorder = recorder(1, OverflowPolicy.DROP);
+        recorder.record("abc");
+        recorder.record("def");
+
+        assertEquals(1.0, meterRegistry.counter("shortme.clicks.queue.dropped").count());
+        recorder.shutdown();
+        verify(clickAggregationService, never()).record("def", 1L);
+    }
+
+    @Test
+    void record_queueFull_blockPolicyGivesUpAfterTimeout() throws InterruptedException {
+        ClickRecorder recorder = recorder(1, OverflowPolicy.BLOCK);
+        recorder.record("abc");
+        recorder.record("def");
+
+        assertEquals(1.0, meterRegistry.counter("shortme.clicks.queue.dropped").count());
+        recorder.shutdown();
+    }
+
+    @Test
+    void record_aboveHighWatermark_samplePolicyWeightsKeptEvents() throws InterruptedException {
+        ClickRecorder recorder = recorder(5, OverflowPolicy.SAMPLE);
+        for (int i = 0; i < 4; i++) {
+            recorder.record("abc");
+        }
+        for (int i = 0; i < 200; i++) {
+            recorder.record("hot");
+        }
+
+        double sampled = meterRegistry.counter("shortme.clicks.queue.sampled").count();
+        recorder.shutdown();
+        verify(clickAggregationService, times(4)).record("abc", 1L);
+        verify(clickAggregationService, atMost(1)).record("hot", 10L);
+        assertTrue(sampled > 150);
+    }
+}
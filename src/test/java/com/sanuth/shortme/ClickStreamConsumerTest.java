@@ -0,0 +1,193 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.service.ClickStreamConsumer;
+import com.sanuth.shortme.service.RedisService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.PendingMessagesSummary;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ClickStreamConsumerTest {
+
+    private static final String KEY = RedisService.CLICK_STREAM_KEY;
+    private static final String GROUP = "click-rollup";
+
+    @Mock
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOps;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private ClickStreamConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForStream()).thenReturn(streamOps);
+        lenient().when(streamOps.pending(eq(KEY), eq(GROUP), any(Range.class), anyLong(), any(Duration.class)))
+                .thenReturn(new PendingMessages(GROUP, List.of()));
+        when(streamOps.pending(KEY, GROUP)).thenReturn(new PendingMessagesSummary(GROUP, 0, Range.unbounded(), Map.of()));
+        consumer = new ClickStreamConsumer(redisTemplate, jdbcTemplate, transactionManager, meterRegistry,
+                false, GROUP, "node-1", 200, 60_000, 1000, 72, "hourly");
+    }
+
+    private static MapRecord<String, Object, Object> entry(String id, String batchId, String clicks) {
+        Map<Object, Object> fields = Map.of("id", batchId, "hour", "2026-02-05T13", "clicks", clicks);
+        return StreamRecords.newRecord().in(KEY).withId(RecordId.of(id)).ofMap(fields);
+    }
+
+    @SafeVarargs
+    @SuppressWarnings("unchecked")
+    private void read(MapRecord<String, Object, Object>... records) {
+        when(streamOps.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenReturn(Arrays.asList(records));
+    }
+
+    private void newBatchIds(String... batchIds) {
+        when(jdbcTemplate.queryForList(contains("click_stream_batch"), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of(batchIds));
+    }
+
+    @Test
+    void poll_sumsNewBatchesPerCodeHourThenAcknowledges() {
+        read(entry("1-0", "b-1", "abc=2,def=1"), entry("2-0", "b-2", "abc=3"));
+        newBatchIds("b-1", "b-2");
+
+        assertEquals(2, consumer.poll());
+
+        ArgumentCaptor<Object[]> args = ArgumentCaptor.forClass(Object[].class);
+        verify(jdbcTemplate).update(contains("hourly_clicks"), args.capture());
+        List<Object> values = Arrays.asList(args.getValue());
+        Timestamp hour = Timestamp.valueOf(LocalDateTime.of(2026, 2, 5, 13, 0));
+        int abc = values.indexOf("abc");
+        assertEquals(6, values.size());
+        assertEquals(hour, values.get(abc + 1));
+        assertEquals(5L, values.get(abc + 2));
+        verify(streamOps).acknowledge(KEY, GROUP, RecordId.of("1-0"), RecordId.of("2-0"));
+        assertEquals(6.0, meterRegistry.counter("shortme.clicks.stream.consumed").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void poll_batchForDayAlreadyRolledUp_addedToMonthlyClicks() {
+        read(entry("1-0", "b-1", "abc=2,def=1"));
+        newBatchIds("b-1");
+        when(jdbcTemplate.queryForList(contains("click_rollup_run"), eq(Date.class), any(Object[].class)))
+                .thenReturn(List.of(Date.valueOf(LocalDate.of(2026, 2, 5))));
+
+        consumer.poll();
+
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).query(contains("pg_advisory_xact_lock"), any(RowCallbackHandler.class), any(Object[].class));
+        verify(jdbcTemplate).batchUpdate(contains("monthly_clicks"), rows.capture());
+        assertEquals(2, rows.getValue().size());
+        Date month = Date.valueOf(LocalDate.of(2026, 2, 1));
+        assertTrue(rows.getValue().stream().anyMatch(row -> Arrays.equals(row, new Object[] {"abc", month, 2L})));
+    }
+
+    @Test
+    void poll_batchForDayNotRolledUp_leftToTheRollup() {
+        read(entry("1-0", "b-1", "abc=2"));
+        newBatchIds("b-1");
+
+        consumer.poll();
+
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void poll_redeliveredBatch_skippedButAcknowledged() {
+        read(entry("1-0", "b-1", "abc=2"));
+        newBatchIds();
+
+        assertEquals(0, consumer.poll());
+
+        verify(jdbcTemplate, never()).update(contains("hourly_clicks"), any(Object[].class));
+        verify(streamOps).acknowledge(KEY, GROUP, RecordId.of("1-0"));
+        assertEquals(1.0, meterRegistry.counter("shortme.clicks.stream.duplicates").count());
+    }
+
+    @Test
+    void poll_malformedEntry_acknowledgedWithoutWrite() {
+        MapRecord<String, Object, Object> malformed = StreamRecords.newRecord().in(KEY)
+                .withId(RecordId.of("1-0")).ofMap(Map.<Object, Object>of("id", "b-1"));
+        read(malformed);
+
+        consumer.poll();
+
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(String.class), any(Object[].class));
+        verify(streamOps).acknowledge(KEY, GROUP, RecordId.of("1-0"));
+        assertEquals(1.0, meterRegistry.counter("shortme.clicks.stream.malformed").count());
+    }
+
+    @Test
+    void poll_claimsEntriesLeftByDeadConsumer() {
+        PendingMessage stale = new PendingMessage(RecordId.of("1-0"), Consumer.from(GROUP, "node-2"),
+                Duration.ofMinutes(5), 1);
+        when(streamOps.pending(eq(KEY), eq(GROUP), any(Range.class), anyLong(), any(Duration.class)))
+                .thenReturn(new PendingMessages(GROUP, List.of(stale)));
+        when(streamOps.claim(KEY, GROUP, "node-1", Duration.ofMinutes(1), RecordId.of("1-0")))
+                .thenReturn(List.of(entry("1-0", "b-1", "abc=2")));
+        read();
+        newBatchIds("b-1");
+
+        assertEquals(1, consumer.poll());
+
+        verify(streamOps).acknowledge(KEY, GROUP, RecordId.of("1-0"));
+    }
+
+    @Test
+    void poll_reportsLagOfNewestEntryRead() {
+        long tenSecondsAgo = System.currentTimeMillis() - 10_000;
+        read(entry(tenSecondsAgo + "-0", "b-1", "abc=1"));
+        newBatchIds("b-1");
+
+        consumer.poll();
+
+        assertTrue(meterRegistry.get("shortme.clicks.stream.lag").gauge().value() >= 10.0);
+    }
+}
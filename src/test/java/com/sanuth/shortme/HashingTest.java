@@ -0,0 +1,17 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.util.Hashing;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class HashingTest {
+
+    // Generated short codes and persisted visitor hashes depend on these exact values
+    @Test
+    void fmix64_matchesMurmurHash3() {
+        assertEquals(0L, Hashing.fmix64(0));
+        assertEquals(0xb456bcfc34c2cb2cL, Hashing.fmix64(1));
+        assertEquals(0x87cbfbfe89022ceaL, Hashing.fmix64(0x123456789abcdefL));
+    }
+}
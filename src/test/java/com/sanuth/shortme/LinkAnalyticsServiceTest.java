@@ -0,0 +1,196 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.model.db.MonthlyClicks;
+import com.sanuth.shortme.model.dto.LinkAnalyticsResponse;
+import com.sanuth.shortme.model.dto.LinkAnalyticsResponse.ClickCount;
+import com.sanuth.shortme.model.dto.LinkAnalyticsResponse.RankedCount;
+import com.sanuth.shortme.repository.ClickRollupRunRepository;
+import com.sanuth.shortme.repository.LinkRepository;
+import com.sanuth.shortme.repository.MonthlyClicksRepository;
+import com.sanuth.shortme.service.LinkAnalyticsService;
+import com.sanuth.shortme.service.RedisCacheService;
+import com.sanuth.shortme.service.RedisService;
+import com.sanuth.shortme.service.ShortCodeFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LinkAnalyticsServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 2, 5, 13, 20);
+
+    @Mock
+    private LinkRepository linkRepository;
+
+    @Mock
+    private MonthlyClicksRepository monthlyClicksRepository;
+
+    @Mock
+    private ClickRollupRunRepository rollupRunRepository;
+
+    @Mock
+    private RedisService redisService;
+
+    @Mock
+    private RedisCacheService redisCacheService;
+
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+
+    private LinkAnalyticsService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new LinkAnalyticsService(linkRepository, monthlyClicksRepository, rollupRunRepository, redisService,
+                redisCacheService, shortCodeFilter, 2, 60);
+    }
+
+    // Total, 30 day keys from 2026-01-07, 48 hour keys from 2026-02-03T14
+    private RedisService.LinkStats stats(long total, int days) {
+        RedisService.LinkStats stats = new RedisService.LinkStats(1 + 30 + 48, days);
+        stats.counts()[0] = total;
+        return stats;
+    }
+
+    @Test
+    void oneYearRange_singleRedisRead() {
+        when(linkRepository.existsByShortCode("abc")).thenReturn(true);
+        when(redisService.getLinkStats(anyList(), eq("abc"), anyList())).thenReturn(stats(5, 30));
+
+        LinkAnalyticsResponse response = service.getAnalytics("abc",
+                LocalDate.of(2025, 2, 6), LocalDate.of(2026, 2, 5), NOW).orElseThrow();
+
+        verify(redisService, times(1)).getLinkStats(anyList(), eq("abc"), anyList());
+        assertEquals(5, response.getTotal());
+        assertEquals(30, response.getDaily().size());
+        assertEquals(48, response.getHourly().size());
+        assertEquals(13, response.getMonthly().size());
+        assertEquals("2025-02", response.getMonthly().get(0).getPeriod());
+    }
+
+    @Test
+    void monthly_addsDaysNotRolledUpYet() {
+        when(linkRepository.existsByShortCode("abc")).thenReturn(true);
+        RedisService.LinkStats stats = stats(100, 5);
+        long[] counts = stats.counts();
+        counts[1 + 27] = 4;  // 2026-02-03, already rolled up
+        counts[1 + 28] = 6;  // 2026-02-04
+        counts[1 + 29] = 3;  // 2026-02-05, today
+        stats.dailyVisitors()[4] = 2;
+        when(redisService.getLinkStats(anyList(), eq("abc"), eq(List.of(LocalDate.of(2026, 2, 1),
+                LocalDate.of(2026, 2, 2), LocalDate.of(2026, 2, 3), LocalDate.of(2026, 2, 4), LocalDate.of(2026, 2, 5)))))
+                .thenReturn(stats);
+        when(monthlyClicksRepository.findByShortCodeAndMonthStartBetween("abc",
+                LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 1)))
+                .thenReturn(List.of(new MonthlyClicks("abc", LocalDate.of(2026, 2, 1), 20)));
+        when(rollupRunRepository.findRolledUpDays(LocalDate.of(2026, 1, 7), LocalDate.of(2026, 2, 5)))
+                .thenReturn(List.of(LocalDate.of(2026, 2, 3)));
+
+        LinkAnalyticsResponse response = service.getAnalytics("abc",
+                LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 5), NOW).orElseThrow();
+
+        ClickCount february = response.getMonthly().get(0);
+        assertEquals("2026-02", february.getPeriod());
+        assertEquals(29, february.getClicks());
+        assertEquals(List.of("2026-02-01", "2026-02-02", "2026-02-03", "2026-02-04", "2026-02-05"),
+                response.getDaily().stream().map(ClickCount::getPeriod).toList());
+        assertEquals(3, response.getDaily().get(4).getClicks());
+        assertEquals(2, response.getDaily().get(4).getUniqueVisitors());
+    }
+
+    @Test
+    void topReferrers_rankedAndLimited() {
+        when(linkRepository.existsByShortCode("abc")).thenReturn(true);
+        RedisService.LinkStats stats = stats(10, 30);
+        stats.referrers().putAll(Map.of("a.example", 3L, "b.example", 5L, "c.example", 1L));
+        stats.countries().put("NZ", 9L);
+        when(redisService.getLinkStats(anyList(), eq("abc"), anyList())).thenReturn(stats);
+
+        LinkAnalyticsResponse response = service.getAnalytics("abc", null, null, NOW).orElseThrow();
+
+        assertEquals(List.of("b.example", "a.example"),
+                response.getTopReferrers().stream().map(RankedCount::getName).toList());
+        assertEquals(9, response.getTopCountries().get(0).getClicks());
+    }
+
+    @Test
+    void unknownCode_empty() {
+        assertEquals(Optional.empty(), service.getAnalytics("nope", null, null, NOW));
+        verify(redisService, never()).getLinkStats(anyList(), anyString(), anyList());
+    }
+
+    @Test
+    void unknownCode_cachedAsMissing() {
+        when(redisCacheService.missingEpoch("nope")).thenReturn(7L);
+
+        service.getAnalytics("nope", null, null, NOW);
+
+        verify(redisCacheService).cacheMissing("nope", 7L);
+    }
+
+    @Test
+    void codeRejectedByFilter_databaseNotQueried() {
+        when(shortCodeFilter.isReady()).thenReturn(true);
+        when(shortCodeFilter.mightContain("nope")).thenReturn(false);
+
+        assertEquals(Optional.empty(), service.getAnalytics("nope", null, null, NOW));
+        verifyNoInteractions(linkRepository, redisCacheService, redisService);
+    }
+
+    @Test
+    void knownMissingCode_databaseNotQueried() {
+        when(redisCacheService.isKnownMissing("nope")).thenReturn(true);
+
+        assertEquals(Optional.empty(), service.getAnalytics("nope", null, null, NOW));
+        verifyNoInteractions(linkRepository);
+    }
+
+    @Test
+    void cachedCode_existsWithoutDatabaseLookup() {
+        when(redisCacheService.isCached("abc")).thenReturn(true);
+        when(redisService.getLinkStats(anyList(), eq("abc"), anyList())).thenReturn(stats(1, 30));
+
+        assertTrue(service.getAnalytics("abc", null, null, NOW).isPresent());
+        verify(linkRepository, never()).existsByShortCode(anyString());
+    }
+
+    @Test
+    void rolledUpDays_readOncePerDay() {
+        when(redisCacheService.isCached(anyString())).thenReturn(true);
+        when(redisService.getLinkStats(anyList(), anyString(), anyList())).thenReturn(stats(1, 30));
+        when(rollupRunRepository.findRolledUpDays(any(), any())).thenReturn(List.of(LocalDate.of(2026, 2, 3)));
+
+        service.getAnalytics("abc", null, null, NOW);
+        service.getAnalytics("def", null, null, NOW.plusHours(1));
+        service.getAnalytics("abc", null, null, NOW.plusDays(1));
+
+        verify(rollupRunRepository).findRolledUpDays(LocalDate.of(2026, 1, 7), LocalDate.of(2026, 2, 5));
+        verify(rollupRunRepository).findRolledUpDays(LocalDate.of(2026, 1, 8), LocalDate.of(2026, 2, 6));
+        verifyNoMoreInteractions(rollupRunRepository);
+    }
+
+    @Test
+    void invalidRange_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> service.getAnalytics("abc",
+                LocalDate.of(2026, 2, 5), LocalDate.of(2026, 2, 1), NOW));
+        assertThrows(IllegalArgumentException.class, () -> service.getAnalytics("abc",
+                LocalDate.of(2024, 1, 1), LocalDate.of(2026, 2, 1), NOW));
+        verify(linkRepository, never()).existsByShortCode(anyString());
+    }
+}
@@ -0,0 +1,87 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.repository.LinkRepository;
+import com.sanuth.shortme.service.LinkExpirySweeper;
+import com.sanuth.shortme.service.RedisCacheService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LinkExpirySweeperTest {
+
+    @Mock
+    private LinkRepository linkRepository;
+
+    @Mock
+    private RedisCacheService redisCacheService;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private LinkExpirySweeper sweeper(int batchSize, int maxBatchesPerSweep) {
+        return new LinkExpirySweeper(linkRepository, redisCacheService, meterRegistry, true, batchSize,
+                maxBatchesPerSweep);
+    }
+
+    @Test
+    void sweep_walksChunksUntilAShortOne() {
+        when(linkRepository.findExpiredShortCodes(any(Instant.class), eq(Limit.of(2))))
+                .thenReturn(List.of("a", "b")).thenReturn(List.of("c", "d")).thenReturn(List.of("e"));
+        when(linkRepository.markExpired(anyCollection())).thenReturn(2, 2, 1);
+
+        assertEquals(5, sweeper(2, 100).sweep());
+
+        verify(linkRepository, times(3)).findExpiredShortCodes(any(Instant.class), eq(Limit.of(2)));
+        verify(redisCacheService).evictAll(List.of("a", "b"));
+        verify(redisCacheService).evictAll(List.of("c", "d"));
+        verify(redisCacheService).evictAll(List.of("e"));
+        assertEquals(5, meterRegistry.counter("shortme.links.expired").count());
+    }
+
+    @Test
+    void sweep_stopsAtMaxBatchesPerSweep() {
+        when(linkRepository.findExpiredShortCodes(any(Instant.class), eq(Limit.of(2))))
+                .thenReturn(List.of("a", "b")).thenReturn(List.of("c", "d")).thenReturn(List.of("e", "f"));
+        when(linkRepository.markExpired(anyCollection())).thenReturn(2);
+
+        assertEquals(4, sweeper(2, 2).sweep());
+
+        verify(linkRepository, times(2)).findExpiredShortCodes(any(Instant.class), eq(Limit.of(2)));
+        verify(redisCacheService, never()).evictAll(List.of("e", "f"));
+    }
+
+    @Test
+    void sweep_nothingExpired_noWritesOrEvictions() {
+        when(linkRepository.findExpiredShortCodes(any(Instant.class), eq(Limit.of(500)))).thenReturn(List.of());
+
+        assertEquals(0, sweeper(500, 100).sweep());
+
+        verify(linkRepository, never()).markExpired(anyCollection());
+        verifyNoInteractions(redisCacheService);
+    }
+
+    @Test
+    void sweep_markFails_codesNotEvictedAndTimerStillRecorded() {
+        when(linkRepository.findExpiredShortCodes(any(Instant.class), eq(Limit.of(2)))).thenReturn(List.of("a", "b"));
+        when(linkRepository.markExpired(anyCollection())).thenThrow(new IllegalStateException("db down"));
+
+        LinkExpirySweeper sweeper = sweeper(2, 100);
+        assertThrows(IllegalStateException.class, sweeper::sweep);
+
+        verifyNoInteractions(redisCacheService);
+        assertEquals(1, meterRegistry.timer("shortme.links.expiry.sweep").count());
+    }
+}
@@ -1,12 +1,21 @@
 package com.sanuth.shortme;
 
+import com.sanuth.shortme.model.cache.CachedShortLink;
 import com.sanuth.shortme.model.db.LinkStatus;
 import com.sanuth.shortme.model.db.ShortLink;
+import com.sanuth.shortme.model.dto.BulkCreateResult;
 import com.sanuth.shortme.model.dto.CreateShortLinkRequest;
 import com.sanuth.shortme.model.dto.ShortLinkResponse;
 import com.sanuth.shortme.repository.LinkRepository;
 import com.sanuth.shortme.service.LinkService;
+import com.sanuth.shortme.service.LocalLinkCache;
+import com.sanuth.shortme.service.RedirectAccessLog;
 import com.sanuth.shortme.service.RedisCacheService;
+import com.sanuth.shortme.service.ShortCodeFilter;
+import com.sanuth.shortme.service.ShortCodeGenerator;
+import com.sanuth.shortme.service.ShortLinkIdAllocator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,13 +25,27 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 
 import org.springframework.dao.DataIntegrityViolationException;
 
+import java.net.URI;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -37,6 +60,32 @@ public class LinkServiceTest {
     @MockitoBean
     RedisCacheService redisCacheService;
 
+    @MockitoBean
+    ShortLinkIdAllocator idAllocator;
+
+    @MockitoBean
+    ShortCodeFilter shortCodeFilter;
+
+    @Autowired
+    ShortCodeGenerator shortCodeGenerator;
+
+    @Autowired
+    RedirectAccessLog accessLog;
+
+    @Autowired
+    Validator validator;
+
+    private LinkService dedupLinkService() {
+        return new LinkService(linkRepository, redisCacheService, idAllocator, shortCodeGenerator, shortCodeFilter,
+                accessLog, validator, new SimpleMeterRegistry(), 10000, 500, true, false, 2000, 200);
+    }
+
+    private static ShortLink existingLink(long id, String code, String longUrl) {
+        ShortLink link = ShortLink.create(new CreateShortLinkRequest(longUrl, code, null));
+        link.setId(id);
+        return link;
+    }
+
     @Test
     void testEmptyUrl(){
         assertThrows(IllegalArgumentException.class,
@@ -51,11 +100,8 @@ public class LinkServiceTest {
 
     @Test
     void Urlwithouthttp(){
-        ShortLink saved = new ShortLink();
-        saved.setId(1L);
-        saved.setLongUrl("local.com");
-        saved.setStatus(com.sanuth.shortme.model.db.LinkStatus.ACTIVE);
-        when(linkRepository.save(any())).thenReturn(saved);
+        when(idAllocator.nextId()).thenReturn(1L);
+        when(linkRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
 
         ShortLinkResponse response = linkService.createShortLink(new CreateShortLinkRequest("local.com", "", null));
 
@@ -63,6 +109,176 @@ public class LinkServiceTest {
         assertNotNull(response.getShortCode());
     }
 
+    @Test
+    void generatedCode_derivedFromAllocatedId_singleSave(){
+        when(idAllocator.nextId()).thenReturn(62L);
+        when(linkRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ShortLinkResponse response = linkService.createShortLink(new CreateShortLinkRequest("https://example.com", null, null));
+
+        assertEquals("10", response.getShortCode());
+        verify(linkRepository, times(1)).save(any());
+    }
+
+    @Test
+    void getTarget_customCodeResolvedByCode(){
+        CachedShortLink link = new CachedShortLink(7L, "my-sale", "https://shop.example.com",
+                Instant.now(), null, LinkStatus.ACTIVE);
+        when(linkRepository.findCachedByShortCode("my-sale")).thenReturn(Optional.of(link));
+
+        assertEquals(URI.create("https://shop.example.com"), linkService.getTarget("my-sale"));
+        verify(linkRepository, never()).findById(anyLong());
+        verify(redisCacheService).cacheShortLink(link);
+    }
+
+    @Test
+    void getTarget_unknownCodeCachedAsMissing(){
+        when(redisCacheService.missingEpoch("nope")).thenReturn(3L);
+        when(linkRepository.findCachedByShortCode("nope")).thenReturn(Optional.empty());
+
+        assertEquals(URI.create("/error"), linkService.getTarget("nope"));
+        verify(redisCacheService).cacheMissing("nope", 3L);
+
+        when(redisCacheService.isKnownMissing("nope")).thenReturn(true);
+        assertEquals(URI.create("/error"), linkService.getTarget("nope"));
+        verify(linkRepository, times(1)).findCachedByShortCode(eq("nope"));
+    }
+
+    @Test
+    void getTarget_expiredLinkRejected(){
+        when(redisCacheService.missingEpoch("promo")).thenReturn(5L);
+        CachedShortLink link = new CachedShortLink(8L, "promo", "https://shop.example.com",
+                Instant.now().minusSeconds(7200), Instant.now().minusSeconds(60), LinkStatus.ACTIVE);
+        when(linkRepository.findCachedByShortCode("promo")).thenReturn(Optional.of(link));
+
+        assertEquals(URI.create("/error"), linkService.getTarget("promo"));
+        verify(redisCacheService).cacheMissing("promo", 5L);
+    }
+
+    @Test
+    void getTarget_disabledLinkRejectedFromCache(){
+        when(redisCacheService.getCachedTarget("gone")).thenReturn(Optional.of(
+                new LocalLinkCache.Entry("https://shop.example.com", false, 0, 3600, 0)));
+
+        assertEquals(URI.create("/error"), linkService.getTarget("gone"));
+        verify(linkRepository, never()).findCachedByShortCode(any());
+    }
+
+    @Test
+    void getTarget_concurrentMissesLoadOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        when(linkRepository.findCachedByShortCode("viral")).thenAnswer(invocation -> {
+            loads.incrementAndGet();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(new CachedShortLink(1L, "viral", "https://example.com/viral",
+                    Instant.now(), null, LinkStatus.ACTIVE));
+        });
+
+        int callers = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            List<Future<URI>> results = new ArrayList<>();
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> linkService.getTarget("viral")));
+            }
+            // Hold the first load until every other caller has had time to miss as well
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<URI> result : results) {
+                assertEquals(URI.create("https://example.com/viral"), result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+        verify(redisCacheService, times(1)).cacheShortLink(any(CachedShortLink.class));
+    }
+
+    @Test
+    void getTarget_codeRejectedByFilter_skipsAllLookups(){
+        when(shortCodeFilter.isReady()).thenReturn(true);
+        when(shortCodeFilter.mightContain("scan1")).thenReturn(false);
+
+        assertEquals(URI.create("/error"), linkService.getTarget("scan1"));
+        verify(redisCacheService, never()).getCachedTarget(any());
+        verify(linkRepository, never()).findCachedByShortCode(any());
+    }
+
+    @Test
+    void bulkCreate_reportsErrorsPerItem(){
+        when(idAllocator.nextId()).thenReturn(1L, 2L);
+        when(linkRepository.findExistingShortCodes(anyCollection())).thenReturn(List.of("taken"));
+        when(linkRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BulkCreateResult> results = linkService.createShortLinks(List.of(
+                new CreateShortLinkRequest("https://example.com", null, null),
+                new CreateShortLinkRequest("https://example", null, null),
+                new CreateShortLinkRequest("https://a.example.com", "mine", null),
+                new CreateShortLinkRequest("https://b.example.com", "mine", null),
+                new CreateShortLinkRequest("https://c.example.com", "taken", null)));
+
+        assertEquals(5, results.size());
+        assertTrue(results.get(0).isSuccess());
+        assertEquals("1", results.get(0).getData().getShortCode());
+        assertEquals("Invalid URL: missing domain", results.get(1).getError());
+        assertTrue(results.get(2).isSuccess());
+        assertEquals("mine", results.get(2).getData().getShortCode());
+        assertEquals("Short code 'mine' is duplicated in this request", results.get(3).getError());
+        assertEquals("Short code 'taken' is already in use", results.get(4).getError());
+        verify(linkRepository, times(1)).saveAll(any());
+    }
+
+    @Test
+    void dedup_sameUrl_returnsExistingLinkWithoutInsert(){
+        when(linkRepository.findByLongUrlHashIn(anyCollection()))
+                .thenReturn(List.of(existingLink(7L, "seven", "https://Example.com/page")));
+
+        ShortLinkResponse response = dedupLinkService()
+                .createShortLink(new CreateShortLinkRequest("https://example.com/page", null, null));
+
+        assertEquals("seven", response.getShortCode());
+        verify(linkRepository, never()).save(any());
+    }
+
+    @Test
+    void dedup_differentExpiryOrCustomCode_createsNewLink(){
+        when(idAllocator.nextId()).thenReturn(62L, 63L);
+        when(linkRepository.findByLongUrlHashIn(anyCollection()))
+                .thenReturn(List.of(existingLink(7L, "seven", "https://example.com/page")));
+        when(linkRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        LinkService service = dedupLinkService();
+
+        ShortLinkResponse expiring = service.createShortLink(new CreateShortLinkRequest(
+                "https://example.com/page", null, Instant.now().plusSeconds(3600)));
+        ShortLinkResponse custom = service.createShortLink(new CreateShortLinkRequest(
+                "https://example.com/page", "mine", null));
+
+        assertEquals("10", expiring.getShortCode());
+        assertEquals("mine", custom.getShortCode());
+        verify(linkRepository, times(2)).save(any());
+    }
+
+    @Test
+    void dedup_bulkRepeatsInRequest_shareOneInsertedLink(){
+        when(idAllocator.nextId()).thenReturn(62L);
+        when(linkRepository.findByLongUrlHashIn(anyCollection()))
+                .thenReturn(List.of(existingLink(7L, "seven", "https://example.com/old")));
+        when(linkRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        List<BulkCreateResult> results = dedupLinkService().createShortLinks(List.of(
+                new CreateShortLinkRequest("https://example.com/old", null, null),
+                new CreateShortLinkRequest("https://example.com/new", null, null),
+                new CreateShortLinkRequest("https://EXAMPLE.com/new", null, null)));
+
+        assertEquals("seven", results.get(0).getData().getShortCode());
+        assertEquals("10", results.get(1).getData().getShortCode());
+        assertEquals("10", results.get(2).getData().getShortCode());
+        assertEquals(2, results.get(2).getIndex());
+        verify(idAllocator, times(1)).nextId();
+    }
+
     @Test
     void validateDoublePrefix(){
         assertThrows(IllegalArgumentException.class,()->linkService.createShortLink(new CreateShortLinkRequest("https://https://example.com", "", null)));
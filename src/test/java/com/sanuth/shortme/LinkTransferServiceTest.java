@@ -0,0 +1,154 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.model.dto.LinkImportResult;
+import com.sanuth.shortme.repository.LinkRepository;
+import com.sanuth.shortme.service.LinkTransferService;
+import com.sanuth.shortme.service.RedisCacheService;
+import com.sanuth.shortme.service.SequentialShortCodeGenerator;
+import com.sanuth.shortme.service.ShortCodeFilter;
+import com.sanuth.shortme.service.ShortLinkIdAllocator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class LinkTransferServiceTest {
+
+    @Mock
+    private LinkRepository linkRepository;
+
+    @Mock
+    private RedisCacheService redisCacheService;
+
+    @Mock
+    private ShortLinkIdAllocator idAllocator;
+
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Captor
+    private ArgumentCaptor<List<String>> announced;
+
+    private LinkTransferService service;
+
+    @BeforeEach
+    void createService() {
+        service = new LinkTransferService(linkRepository, redisCacheService, idAllocator, shortCodeFilter,
+                new SequentialShortCodeGenerator(0), Validation.buildDefaultValidatorFactory().getValidator(),
+                JsonMapper.builder().build(), new SimpleMeterRegistry(), 2, 100_000);
+        ReflectionTestUtils.setField(service, "entityManager", entityManager);
+    }
+
+    @Test
+    void importLinks_generatedAndCustomCodes_insertedAndSequenceReserved() {
+        when(linkRepository.findExistingShortCodes(anyCollection())).thenReturn(List.of());
+        when(linkRepository.findExistingIds(anyCollection())).thenReturn(List.of());
+
+        LinkImportResult result = service.importLinks(ndjson(
+                record(1, "1", "https://example.com/a"),
+                record(2, "my-link_2", "https://example.com/b"),
+                record(70, "my-other-link", "https://example.com/c")), true);
+
+        assertEquals(3, result.getImported());
+        assertEquals(0, result.getSkipped());
+        assertEquals(0, result.getRejected());
+        verify(linkRepository, times(2)).saveAll(anyCollection());
+        verify(redisCacheService, times(2)).cacheShortLinks(anyList());
+        verify(idAllocator).reserveThrough(70);
+    }
+
+    @Test
+    void importLinks_invalidCustomCodes_rejected() {
+        when(linkRepository.findExistingShortCodes(anyCollection())).thenReturn(List.of());
+        when(linkRepository.findExistingIds(anyCollection())).thenReturn(List.of());
+
+        LinkImportResult result = service.importLinks(ndjson(
+                record(5, "ab", "https://example.com/a"),
+                record(6, "a".repeat(21), "https://example.com/b"),
+                record(7, "has space", "https://example.com/c"),
+                record(8, "../admin", "https://example.com/d"),
+                record(9, "valid-code", "https://example.com/e")), false);
+
+        assertEquals(1, result.getImported());
+        assertEquals(4, result.getRejected());
+        assertEquals(0, result.getSkipped());
+        verify(shortCodeFilter).announce(announced.capture());
+        assertEquals(List.of("valid-code"), announced.getValue());
+        verify(idAllocator).reserveThrough(9);
+    }
+
+    @Test
+    void importLinks_generatedCodeOfAnotherId_validatedAsCustomCode() {
+        LinkImportResult result = service.importLinks(ndjson(record(5, "1", "https://example.com/a")), false);
+
+        assertEquals(0, result.getImported());
+        assertEquals(1, result.getRejected());
+        verifyNoInteractions(linkRepository, idAllocator);
+    }
+
+    @Test
+    void importLinks_invalidUrl_rejected() {
+        LinkImportResult result = service.importLinks(ndjson(record(5, "valid-code", "ftp://example.com")), false);
+
+        assertEquals(1, result.getRejected());
+        verify(linkRepository, never()).saveAll(anyCollection());
+    }
+
+    @Test
+    void importLinks_missingFieldsAndExistingRows_skipped() {
+        when(linkRepository.findExistingShortCodes(anyCollection())).thenReturn(List.of("taken"));
+        when(linkRepository.findExistingIds(anyCollection())).thenReturn(List.of());
+
+        LinkImportResult result = service.importLinks(ndjson(
+                record(0, "no-id", "https://example.com/a"),
+                "{\"id\":4,\"longUrl\":\"https://example.com/b\"}",
+                record(5, "taken", "https://example.com/c")), false);
+
+        assertEquals(0, result.getImported());
+        assertEquals(3, result.getSkipped());
+        assertEquals(0, result.getRejected());
+        verify(linkRepository, never()).saveAll(anyCollection());
+        verify(idAllocator).reserveThrough(5);
+    }
+
+    @Test
+    void importLinks_malformedLine_failsWithItemNumber() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.importLinks(ndjson("{\"id\":"), false));
+
+        assertEquals("Malformed NDJSON at item 1, 0 links were imported before it", e.getMessage());
+        verify(linkRepository, never()).saveAll(any());
+    }
+
+    private static String record(long id, String shortCode, String longUrl) {
+        return "{\"id\":" + id + ",\"shortCode\":\"" + shortCode + "\",\"longUrl\":\"" + longUrl
+                + "\",\"status\":\"ACTIVE\"}";
+    }
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,153 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.service.LocalLinkCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LocalLinkCacheTest {
+
+    private final LocalLinkCache cache = new LocalLinkCache(100, 60, 100, 30);
+
+    private static final LocalLinkCache.Entry ENTRY = new LocalLinkCache.Entry("https://example.com", true, 0, 0, 0);
+
+    @BeforeEach
+    void subscribe() {
+        cache.onChannelSubscribed(bytes(LocalLinkCache.INVALIDATION_CHANNEL), 1);
+        cache.onChannelSubscribed(bytes(LocalLinkCache.CREATED_CHANNEL), 2);
+    }
+
+    private void publish(String channel, String shortCode) {
+        cache.onMessage(new DefaultMessage(bytes(channel), bytes(shortCode)), null);
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void put_servedWhileSubscribed() {
+        cache.put("abc", ENTRY);
+
+        assertSame(ENTRY, cache.getEntry("abc"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void put_beforeAllChannelsSubscribed_notStored() {
+        LocalLinkCache fresh = new LocalLinkCache(100, 60, 100, 30);
+        fresh.onChannelSubscribed(bytes(LocalLinkCache.INVALIDATION_CHANNEL), 1);
+
+        fresh.put("abc", ENTRY);
+
+        assertFalse(fresh.isSubscribed());
+        assertNull(fresh.getEntry("abc"));
+    }
+
+    @Test
+    void invalidationMessage_evictsOnlyThatCode() {
+        cache.put("abc", ENTRY);
+        cache.put("xyz", ENTRY);
+
+        publish(LocalLinkCache.INVALIDATION_CHANNEL, "abc");
+
+        assertNull(cache.getEntry("abc"));
+        assertNotNull(cache.getEntry("xyz"));
+    }
+
+    @Test
+    void unsubscribed_stopsServingAndClears() {
+        cache.put("abc", ENTRY);
+
+        cache.onChannelUnsubscribed(bytes(LocalLinkCache.INVALIDATION_CHANNEL), 1);
+
+        assertFalse(cache.isSubscribed());
+        assertNull(cache.getEntry("abc"));
+        cache.put("abc", ENTRY);
+        assertNull(cache.getEntry("abc"));
+    }
+
+    @Test
+    void resubscribed_startsEmpty() {
+        cache.put("abc", ENTRY);
+        cache.onChannelUnsubscribed(bytes(LocalLinkCache.INVALIDATION_CHANNEL), 1);
+
+        cache.onChannelSubscribed(bytes(LocalLinkCache.INVALIDATION_CHANNEL), 2);
+
+        assertTrue(cache.isSubscribed());
+        assertNull(cache.getEntry("abc"));
+    }
+
+    @Test
+    void putIfUnchanged_noInvalidationDuringLoad_stored() {
+        assertTrue(cache.putIfUnchanged("abc", ENTRY, cache.epoch("abc")));
+        assertSame(ENTRY, cache.getEntry("abc"));
+    }
+
+    @Test
+    void entry_inactiveOrExpired_notRedirectable() {
+        long now = System.currentTimeMillis();
+
+        assertTrue(new LocalLinkCache.Entry("https://example.com", true, now + 1000, 0, 0).isRedirectable(now));
+        assertFalse(new LocalLinkCache.Entry("https://example.com", true, now, 0, 0).isRedirectable(now));
+        assertFalse(new LocalLinkCache.Entry("https://example.com", false, 0, 0, 0).isRedirectable(now));
+    }
+
+    @Test
+    void putIfUnchanged_creationsDuringLoad_stillFill() {
+        long loadEpoch = cache.epoch("abc");
+        for (int i = 0; i < 10_000; i++) {
+            publish(LocalLinkCache.CREATED_CHANNEL, "new" + i);
+        }
+        publish(LocalLinkCache.CREATED_CHANNEL, "abc");
+
+        assertTrue(cache.putIfUnchanged("abc", ENTRY, loadEpoch));
+        assertNotNull(cache.getEntry("abc"));
+    }
+
+    @Test
+    void putIfUnchanged_invalidatedDuringLoad_dropped() {
+        long loadEpoch = cache.epoch("abc");
+        publish(LocalLinkCache.INVALIDATION_CHANNEL, "abc");
+
+        assertFalse(cache.putIfUnchanged("abc", ENTRY, loadEpoch));
+        assertNull(cache.getEntry("abc"));
+    }
+
+    @Test
+    void putIfUnchanged_invalidateAllDuringLoad_dropped() {
+        long loadEpoch = cache.epoch("abc");
+        cache.invalidateAll();
+
+        assertFalse(cache.putIfUnchanged("abc", ENTRY, loadEpoch));
+    }
+
+    @Test
+    void putMissingIfUnchanged_createdDuringLookup_notCachedAsMissing() {
+        long loadEpoch = cache.missingEpoch("abc");
+        publish(LocalLinkCache.CREATED_CHANNEL, "abc");
+
+        cache.putMissingIfUnchanged("abc", loadEpoch);
+        assertFalse(cache.isKnownMissing("abc"));
+    }
+
+    @Test
+    void created_evictsOnlyThatCodeFromNegativeCache() {
+        cache.putMissingIfUnchanged("abc", cache.missingEpoch("abc"));
+        cache.putMissingIfUnchanged("xyz", cache.missingEpoch("xyz"));
+
+        publish(LocalLinkCache.CREATED_CHANNEL, "abc");
+
+        assertFalse(cache.isKnownMissing("abc"));
+        assertTrue(cache.isKnownMissing("xyz"));
+    }
+}
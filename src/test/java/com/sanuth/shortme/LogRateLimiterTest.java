@@ -0,0 +1,41 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.util.LogRateLimiter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LogRateLimiterTest {
+
+    private static final long SECOND = 1_700_000_000_000L;
+
+    @Test
+    void tryAcquire_allowsPermitsPerSecondThenCountsSuppressed() {
+        LogRateLimiter limiter = new LogRateLimiter(2);
+
+        assertTrue(limiter.tryAcquire(SECOND));
+        assertTrue(limiter.tryAcquire(SECOND + 400));
+        assertFalse(limiter.tryAcquire(SECOND + 800));
+        assertFalse(limiter.tryAcquire(SECOND + 999));
+
+        assertEquals(2, limiter.drainSuppressed());
+        assertEquals(0, limiter.drainSuppressed());
+    }
+
+    @Test
+    void tryAcquire_nextSecond_startsAFreshWindow() {
+        LogRateLimiter limiter = new LogRateLimiter(1);
+
+        assertTrue(limiter.tryAcquire(SECOND));
+        assertFalse(limiter.tryAcquire(SECOND + 500));
+        assertTrue(limiter.tryAcquire(SECOND + 1000));
+    }
+
+    @Test
+    void tryAcquire_zeroPermits_suppressesEverything() {
+        LogRateLimiter limiter = new LogRateLimiter(0);
+
+        assertFalse(limiter.tryAcquire(SECOND));
+        assertEquals(1, limiter.drainSuppressed());
+    }
+}
@@ -0,0 +1,225 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.model.cache.CachedShortLink;
+import com.sanuth.shortme.model.db.LinkStatus;
+import com.sanuth.shortme.repository.CompactShortLinkCacheStore;
+import com.sanuth.shortme.repository.HashShortLinkCacheStore;
+import com.sanuth.shortme.service.LocalLinkCache;
+import com.sanuth.shortme.service.ReactiveLinkResolver;
+import com.sanuth.shortme.service.RedisCacheService;
+import com.sanuth.shortme.service.ShortCodeFilter;
+import com.sanuth.shortme.util.ShortLinkCacheCodec;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import io.r2dbc.spi.Row;
+import io.r2dbc.spi.RowMetadata;
+import org.springframework.data.redis.core.ReactiveHashOperations;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ReactiveValueOperations;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.r2dbc.core.RowsFetchSpec;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveLinkResolverTest {
+
+    @Mock
+    private ReactiveStringRedisTemplate redisTemplate;
+
+    @Mock
+    private ReactiveValueOperations<String, String> valueOperations;
+
+    @Mock
+    private ReactiveHashOperations<String, String, String> hashOperations;
+
+    @Mock
+    private DatabaseClient databaseClient;
+
+    @Mock
+    private DatabaseClient.GenericExecuteSpec executeSpec;
+
+    @Mock
+    private RowsFetchSpec<CachedShortLink> fetchSpec;
+
+    @Mock
+    private Row row;
+
+    @Mock
+    private RedisCacheService redisCacheService;
+
+    @Mock
+    private ShortCodeFilter shortCodeFilter;
+
+    private final LocalLinkCache localLinkCache = new LocalLinkCache(100, 60, 100, 30);
+    private ReactiveLinkResolver resolver;
+
+    @BeforeEach
+    void createResolver() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        resolver = new ReactiveLinkResolver(redisTemplate, databaseClient, redisCacheService, localLinkCache,
+                shortCodeFilter, "compact");
+        localLinkCache.onChannelSubscribed(LocalLinkCache.INVALIDATION_CHANNEL.getBytes(StandardCharsets.UTF_8), 1);
+        localLinkCache.onChannelSubscribed(LocalLinkCache.CREATED_CHANNEL.getBytes(StandardCharsets.UTF_8), 2);
+    }
+
+    @Test
+    void resolve_rejectedByFilter_noLookups() {
+        when(shortCodeFilter.isReady()).thenReturn(true);
+        when(shortCodeFilter.mightContain("abc")).thenReturn(false);
+
+        assertNull(resolver.resolve("abc").block());
+        verifyNoInteractions(redisTemplate, databaseClient);
+    }
+
+    @Test
+    void resolve_localHit_noLookups() {
+        localLinkCache.put("abc", new LocalLinkCache.Entry("https://example.com", true, 0, 0, 0));
+
+        assertEquals("https://example.com", resolver.resolve("abc").block());
+        verifyNoInteractions(redisTemplate, databaseClient);
+    }
+
+    @Test
+    void resolve_knownMissing_noLookups() {
+        localLinkCache.putMissingIfUnchanged("abc", localLinkCache.missingEpoch("abc"));
+
+        assertNull(resolver.resolve("abc").block());
+        verifyNoInteractions(redisTemplate, databaseClient);
+    }
+
+    @Test
+    void resolve_redisHit_filledIntoLocalCache() {
+        cacheInRedis(LinkStatus.ACTIVE, null);
+
+        resolver.resolve("abc").block();
+
+        assertEquals("https://example.com", localLinkCache.getEntry("abc").longUrl());
+    }
+
+    @Test
+    void resolve_hashBackend_readsHashFields() {
+        ReactiveLinkResolver hashResolver = new ReactiveLinkResolver(redisTemplate, databaseClient,
+                redisCacheService, localLinkCache, shortCodeFilter, "hash");
+        doReturn(hashOperations).when(redisTemplate).opsForHash();
+        when(hashOperations.multiGet(HashShortLinkCacheStore.KEY_PREFIX + "abc",
+                List.of("longUrl", "status", "expiresAt")))
+                .thenReturn(Mono.just(Arrays.asList("https://example.com", "ACTIVE", null)));
+
+        assertEquals("https://example.com", hashResolver.resolve("abc").block());
+        verifyNoInteractions(databaseClient);
+    }
+
+    @Test
+    void resolve_redisMiss_loadsFromDatabaseAndCachesInRedis() {
+        when(valueOperations.get(anyString())).thenReturn(Mono.empty());
+        rowInDatabase(LinkStatus.ACTIVE, null);
+
+        assertEquals("https://example.com", resolver.resolve("abc").block());
+        verify(executeSpec).bind(0, "abc");
+        verify(redisCacheService, timeout(1000)).cacheShortLink(any(CachedShortLink.class));
+    }
+
+    @Test
+    void resolve_redisFails_fallsBackToDatabase() {
+        when(valueOperations.get(anyString())).thenReturn(Mono.error(new IllegalStateException("down")));
+        rowInDatabase(LinkStatus.ACTIVE, null);
+
+        assertEquals("https://example.com", resolver.resolve("abc").block());
+    }
+
+    @Test
+    void resolve_expiredInDatabase_rememberedAsMissing() {
+        when(valueOperations.get(anyString())).thenReturn(Mono.empty());
+        rowInDatabase(LinkStatus.ACTIVE, Instant.now().minusSeconds(1));
+
+        assertNull(resolver.resolve("abc").block());
+        assertTrue(localLinkCache.isKnownMissing("abc"));
+    }
+
+    @Test
+    void resolve_notInDatabase_cachedAsMissingAndCountedAsFalsePositive() {
+        when(shortCodeFilter.isReady()).thenReturn(true);
+        when(shortCodeFilter.mightContain("abc")).thenReturn(true);
+        when(valueOperations.get(anyString())).thenReturn(Mono.empty());
+        queryReturns(Mono.empty());
+
+        assertNull(resolver.resolve("abc").block());
+        verify(shortCodeFilter).recordFalsePositive();
+        assertTrue(localLinkCache.isKnownMissing("abc"));
+        verifyNoInteractions(redisCacheService);
+    }
+
+    @Test
+    void resolve_activeRedisEntry_returnsUrl() {
+        cacheInRedis(LinkStatus.ACTIVE, null);
+
+        assertEquals("https://example.com", resolver.resolve("abc").block());
+        verifyNoInteractions(databaseClient);
+    }
+
+    @Test
+    void resolve_disabledRedisEntry_notLookedUpInDatabase() {
+        cacheInRedis(LinkStatus.DISABLED, null);
+
+        assertNull(resolver.resolve("abc").block());
+        verifyNoInteractions(databaseClient, redisCacheService);
+    }
+
+    @Test
+    void resolve_expiredRedisEntry_notLookedUpInDatabase() {
+        cacheInRedis(LinkStatus.ACTIVE, Instant.now().minusSeconds(1));
+
+        assertNull(resolver.resolve("abc").block());
+        verifyNoInteractions(databaseClient, redisCacheService);
+    }
+
+    private void rowInDatabase(LinkStatus status, Instant expiresAt) {
+        when(row.get("id", Long.class)).thenReturn(1L);
+        when(row.get("short_code", String.class)).thenReturn("abc");
+        when(row.get("long_url", String.class)).thenReturn("https://example.com");
+        when(row.get("created_at", Instant.class)).thenReturn(Instant.now());
+        when(row.get("expires_at", Instant.class)).thenReturn(expiresAt);
+        when(row.get("status", String.class)).thenReturn(status.name());
+        when(row.get("cache_ttl_seconds", Long.class)).thenReturn(null);
+        when(executeSpec.<CachedShortLink>map(ArgumentMatchers.<BiFunction<Row, RowMetadata, CachedShortLink>>any()))
+                .thenAnswer(invocation -> {
+                    BiFunction<Row, RowMetadata, CachedShortLink> mapper = invocation.getArgument(0);
+                    when(fetchSpec.one()).thenReturn(Mono.fromCallable(() -> mapper.apply(row, null)));
+                    return fetchSpec;
+                });
+        when(databaseClient.sql(anyString())).thenReturn(executeSpec);
+        when(executeSpec.bind(0, "abc")).thenReturn(executeSpec);
+    }
+
+    private void queryReturns(Mono<CachedShortLink> result) {
+        when(databaseClient.sql(anyString())).thenReturn(executeSpec);
+        when(executeSpec.bind(0, "abc")).thenReturn(executeSpec);
+        when(executeSpec.<CachedShortLink>map(ArgumentMatchers.<BiFunction<Row, RowMetadata, CachedShortLink>>any()))
+                .thenReturn(fetchSpec);
+        when(fetchSpec.one()).thenReturn(result);
+    }
+
+    private void cacheInRedis(LinkStatus status, Instant expiresAt) {
+        CachedShortLink cached = new CachedShortLink(1L, "abc", "https://example.com", Instant.now(), expiresAt,
+                status, null);
+        when(valueOperations.get(CompactShortLinkCacheStore.KEY_PREFIX + "abc"))
+                .thenReturn(Mono.just(ShortLinkCacheCodec.encode(cached)));
+    }
+}
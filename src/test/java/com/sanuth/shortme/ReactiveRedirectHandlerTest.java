@@ -0,0 +1,74 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.controller.ReactiveRedirectHandler;
+import com.sanuth.shortme.service.ClickRecorder;
+import com.sanuth.shortme.service.ReactiveLinkResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.reactive.function.server.MockServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReactiveRedirectHandlerTest {
+
+    @Mock
+    private ReactiveLinkResolver linkResolver;
+
+    @Mock
+    private ClickRecorder clickRecorder;
+
+    private ReactiveRedirectHandler handler;
+
+    @BeforeEach
+    void createHandler() {
+        handler = new ReactiveRedirectHandler(linkResolver, clickRecorder);
+    }
+
+    @Test
+    void redirect_knownCode_foundWithLocationAndClickRecorded() {
+        when(linkResolver.resolve("abc")).thenReturn(Mono.just("https://example.com/page"));
+
+        ServerResponse response = handler.redirect(MockServerRequest.builder()
+                .pathVariable("code", "abc")
+                .remoteAddress(new InetSocketAddress("203.0.113.7", 443))
+                .build()).block();
+
+        assertEquals(HttpStatus.FOUND, response.statusCode());
+        assertEquals(URI.create("https://example.com/page"), response.headers().getLocation());
+        verify(clickRecorder).recordWithoutBlocking(eq("abc"), eq("203.0.113.7"), any());
+    }
+
+    @Test
+    void redirect_noRemoteAddress_clickRecordedWithoutIt() {
+        when(linkResolver.resolve("abc")).thenReturn(Mono.just("https://example.com/page"));
+
+        handler.redirect(MockServerRequest.builder().pathVariable("code", "abc").build()).block();
+
+        verify(clickRecorder).recordWithoutBlocking(eq("abc"), isNull(), any());
+    }
+
+    @Test
+    void redirect_unknownCode_notFoundAndNoClick() {
+        when(linkResolver.resolve("nope")).thenReturn(Mono.empty());
+
+        ServerResponse response = handler.redirect(MockServerRequest.builder()
+                .pathVariable("code", "nope")
+                .build()).block();
+
+        assertEquals(HttpStatus.NOT_FOUND, response.statusCode());
+        verifyNoInteractions(clickRecorder);
+    }
+}
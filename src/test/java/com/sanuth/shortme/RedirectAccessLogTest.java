@@ -0,0 +1,62 @@
+package com.sanuth.shortme;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.sanuth.shortme.service.RedirectAccessLog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RedirectAccessLogTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger("shortme.access");
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+    @BeforeEach
+    void attach() {
+        logger.setLevel(Level.INFO);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void detach() {
+        logger.detachAppender(appender);
+        logger.setLevel(null);
+    }
+
+    @Test
+    void record_overCap_nextLineCarriesSuppressedCount() throws InterruptedException {
+        RedirectAccessLog accessLog = new RedirectAccessLog(1.0, 1);
+
+        for (int i = 0; i < 6; i++) {
+            accessLog.record("abc", "hit", 12_000);
+        }
+        // First redirect of a new second is written and carries everything skipped before it
+        Thread.sleep(1005 - System.currentTimeMillis() % 1000);
+        accessLog.record("abc", "hit", 12_000);
+
+        List<String> lines = appender.list.stream().map(ILoggingEvent::getFormattedMessage).toList();
+        assertTrue(lines.get(0).startsWith("code=abc outcome=hit micros=12 suppressed="));
+        long represented = 0;
+        for (String line : lines) {
+            represented += 1 + Long.parseLong(line.substring(line.lastIndexOf('=') + 1));
+        }
+        assertEquals(7, represented);
+    }
+
+    @Test
+    void record_zeroSampleRate_writesNothing() {
+        new RedirectAccessLog(0, 100).record("abc", "hit", 12_000);
+
+        assertEquals(0, appender.list.size());
+    }
+}
@@ -1,34 +1,65 @@
 package com.sanuth.shortme;
 
+import com.sanuth.shortme.model.event.ClickBreakdown;
 import com.sanuth.shortme.service.RedisService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.HyperLogLogOperations;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.SetOperations;
 import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.ZSetOperations;
 
 import java.time.Duration;
-import java.time.LocalDate;
-
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 public class RedisServiceTest {
 
+    private static final LocalDateTime FLUSHED_AT = LocalDateTime.of(2026, 2, 5, 13, 20);
+
     @Mock
     private RedisTemplate<String, String> redisTemplate;
 
     @Mock
     private ValueOperations<String, String> valueOps;
 
+    @Mock
+    private SetOperations<String, String> setOps;
+
+    @Mock
+    private HyperLogLogOperations<String, String> hllOps;
+
+    @Mock
+    private ZSetOperations<String, String> zSetOps;
+
     private RedisService redisService;
 
+    // Runs the pipelined callback directly against the mocked template
+    @SuppressWarnings("unchecked")
     private void setup() {
         when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        lenient().when(redisTemplate.opsForSet()).thenReturn(setOps);
+        lenient().when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+        when(redisTemplate.executePipelined(any(SessionCallback.class))).thenAnswer(invocation -> {
+            SessionCallback<Object> callback = invocation.getArgument(0);
+            callback.execute(redisTemplate);
+            return List.of();
+        });
         redisService = new RedisService(redisTemplate);
     }
 
@@ -37,20 +68,82 @@ public class RedisServiceTest {
     // ---------------------------------------------------------------
 
     @Test
-    void incrementClick_callsIncrementOnTotalKey() {
+    void incrementClicks_incrementsTotalKeyByCount() {
+        setup();
+        redisService.incrementClicks(Map.of("abc", 3L), FLUSHED_AT);
+
+        verify(valueOps).increment("clicks:code:abc:total", 3L);
+    }
+
+    @Test
+    void incrementClicks_incrementsDailyKeyByCount() {
         setup();
-        redisService.incrementClick("abc");
+        redisService.incrementClicks(Map.of("abc", 3L), FLUSHED_AT);
 
-        verify(valueOps).increment("clicks:code:abc:total");
+        verify(valueOps).increment("clicks:code:abc:day:2026-02-05", 3L);
     }
 
     @Test
-    void incrementClick_callsIncrementOnDailyKey() {
+    void incrementClicks_incrementsHourlyKeyByCount() {
         setup();
-        redisService.incrementClick("abc");
+        redisService.incrementClicks(Map.of("abc", 3L), FLUSHED_AT);
 
-        String expectedDailyKey = "clicks:code:abc:day:" + LocalDate.now();
-        verify(valueOps).increment(expectedDailyKey);
+        verify(valueOps).increment("clicks:code:abc:hour:2026-02-05T13", 3L);
+        verify(redisTemplate).expire("clicks:code:abc:hour:2026-02-05T13", Duration.ofHours(48));
+    }
+
+    @Test
+    void incrementClicks_recordsCodesClickedThatDay() {
+        setup();
+        redisService.incrementClicks(Map.of("abc", 1L), FLUSHED_AT);
+
+        verify(setOps).add("clicks:day:2026-02-05:codes", "abc");
+        verify(redisTemplate).expire("clicks:day:2026-02-05:codes", Duration.ofDays(30));
+    }
+
+    @Test
+    void incrementClicks_attributedClicks_boundedPerLinkDay() {
+        setup();
+        when(redisTemplate.opsForHyperLogLog()).thenReturn(hllOps);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOps);
+        ClickBreakdown breakdown = new ClickBreakdown();
+        breakdown.getVisitors().add(0xabcL);
+        breakdown.getReferrers().put("news.example.org", 2L);
+
+        redisService.incrementClicks(Map.of("abc", 2L), Map.of("abc", breakdown), FLUSHED_AT);
+
+        verify(hllOps).add("clicks:code:abc:uv:2026-02-05", "abc");
+        verify(zSetOps).incrementScore("clicks:code:abc:ref:2026-02-05", "news.example.org", 2.0);
+        verify(zSetOps).removeRange("clicks:code:abc:ref:2026-02-05", 0, -101);
+        verify(redisTemplate).expire("clicks:code:abc:uv:2026-02-05", Duration.ofDays(30));
+        verify(zSetOps, never()).incrementScore(eq("clicks:code:abc:country:2026-02-05"), anyString(), anyDouble());
+    }
+
+    @Test
+    void incrementClicks_addsClicksToTrendingBuckets() {
+        setup();
+        redisService.incrementClicks(Map.of("abc", 3L), FLUSHED_AT);
+
+        verify(zSetOps).incrementScore("trending:minute:2026-02-05T13:20", "abc", 3.0);
+        verify(zSetOps).incrementScore("trending:hour:2026-02-05T13", "abc", 3.0);
+        verify(zSetOps).removeRange("trending:minute:2026-02-05T13:20", 0, -1001);
+        verify(zSetOps).removeRange("trending:hour:2026-02-05T13", 0, -2001);
+        verify(redisTemplate).expire("trending:minute:2026-02-05T13:20", Duration.ofMinutes(90));
+    }
+
+    // ---------------------------------------------------------------
+    // Reads
+    // ---------------------------------------------------------------
+
+    @Test
+    void getClickCounts_singleMgetMissingKeysAsZero() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOps);
+        redisService = new RedisService(redisTemplate);
+        List<String> keys = List.of("clicks:code:abc:total", "clicks:code:abc:day:2026-02-05");
+        when(valueOps.multiGet(keys)).thenReturn(Arrays.asList("7", null));
+
+        assertArrayEquals(new long[] {7, 0}, redisService.getClickCounts(keys));
+        verify(valueOps, times(1)).multiGet(keys);
     }
 
     // ---------------------------------------------------------------
@@ -58,15 +151,12 @@ public class RedisServiceTest {
     // ---------------------------------------------------------------
 
     @Test
-    void incrementClick_setsTTLOnDailyKeyOnly() {
+    void incrementClicks_setsTTLOnDailyKeyOnly() {
         setup();
-        redisService.incrementClick("abc");
+        redisService.incrementClicks(Map.of("abc", 1L), FLUSHED_AT);
 
-        String totalKey = "clicks:code:abc:total";
-        String dailyKey = "clicks:code:abc:day:" + LocalDate.now();
-
-        verify(redisTemplate).expire(dailyKey, Duration.ofDays(30));
-        verify(redisTemplate, never()).expire(totalKey, any(Duration.class));
+        verify(redisTemplate, times(1)).expire("clicks:code:abc:day:2026-02-05", Duration.ofDays(30));
+        verify(redisTemplate, never()).expire(eq("clicks:code:abc:total"), any(Duration.class));
     }
 
     // ---------------------------------------------------------------
@@ -74,28 +164,50 @@ public class RedisServiceTest {
     // ---------------------------------------------------------------
 
     @Test
-    void incrementClick_incrementsBeforeSettingExpiry() {
+    void incrementClicks_incrementsBeforeSettingExpiry() {
         setup();
-        String dailyKey = "clicks:code:abc:day:" + LocalDate.now();
+        String dailyKey = "clicks:code:abc:day:2026-02-05";
 
-        redisService.incrementClick("abc");
+        redisService.incrementClicks(Map.of("abc", 1L), FLUSHED_AT);
 
         InOrder inOrder = inOrder(valueOps, redisTemplate);
-        inOrder.verify(valueOps).increment("clicks:code:abc:total");
-        inOrder.verify(valueOps).increment(dailyKey);
+        inOrder.verify(valueOps).increment("clicks:code:abc:total", 1L);
+        inOrder.verify(valueOps).increment(dailyKey, 1L);
         inOrder.verify(redisTemplate).expire(dailyKey, Duration.ofDays(30));
     }
 
     // ---------------------------------------------------------------
-    // Redis failure is swallowed
+    // Batching: one pipeline per flush
     // ---------------------------------------------------------------
 
     @Test
-    void incrementClick_redisThrows_doesNotPropagate() {
-        when(redisTemplate.opsForValue()).thenReturn(valueOps);
-        doThrow(new RuntimeException("connection refused")).when(valueOps).increment(any());
+    @SuppressWarnings("unchecked")
+    void incrementClicks_usesSinglePipelineForAllCodes() {
+        setup();
+        redisService.incrementClicks(Map.of("abc", 1L, "def", 2L), FLUSHED_AT);
+
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        verify(valueOps).increment("clicks:code:def:total", 2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void incrementClicks_emptyBatch_skipsRedis() {
         redisService = new RedisService(redisTemplate);
+        redisService.incrementClicks(Map.of(), FLUSHED_AT);
+
+        verify(redisTemplate, never()).executePipelined(any(SessionCallback.class));
+    }
+
+    // ---------------------------------------------------------------
+    // Redis failure is surfaced to the aggregator
+    // ---------------------------------------------------------------
+
+    @Test
+    void incrementClicks_redisThrows_propagates() {
+        setup();
+        doThrow(new RuntimeException("connection refused")).when(valueOps).increment(anyString(), anyLong());
 
-        assertDoesNotThrow(() -> redisService.incrementClick("abc"));
+        assertThrows(RuntimeException.class, () -> redisService.incrementClicks(Map.of("abc", 1L), FLUSHED_AT));
     }
 }
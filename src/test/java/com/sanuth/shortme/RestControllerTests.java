@@ -4,28 +4,48 @@ import com.sanuth.shortme.controller.ApiController;
 import com.sanuth.shortme.controller.RedirectController;
 import com.sanuth.shortme.model.db.LinkStatus;
 import com.sanuth.shortme.model.db.ShortLink;
+import com.sanuth.shortme.model.dto.BulkCreateResult;
+import com.sanuth.shortme.model.dto.LinkAnalyticsResponse;
+import com.sanuth.shortme.model.dto.LinkImportResult;
 import com.sanuth.shortme.model.dto.ShortLinkResponse;
+import com.sanuth.shortme.model.dto.TrendingLink;
+import com.sanuth.shortme.service.ClickRecorder;
+import com.sanuth.shortme.service.LinkAnalyticsService;
 import com.sanuth.shortme.service.LinkService;
-import com.sanuth.shortme.service.RedisService;
+import com.sanuth.shortme.service.LinkTransferService;
+import com.sanuth.shortme.service.TrendingService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.OutputStream;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@WebMvcTest(controllers = {ApiController.class, RedirectController.class})
+// Low bulk limit so the NDJSON size check can be exercised with a few lines
+@WebMvcTest(controllers = {ApiController.class, RedirectController.class},
+        properties = "shortme.links.bulk.max-items=2")
 public class RestControllerTests {
 
     @Autowired
@@ -35,7 +55,16 @@ public class RestControllerTests {
     private LinkService linkService;
 
     @MockitoBean
-    private RedisService redisService;
+    private LinkTransferService linkTransferService;
+
+    @MockitoBean
+    private ClickRecorder clickRecorder;
+
+    @MockitoBean
+    private LinkAnalyticsService linkAnalyticsService;
+
+    @MockitoBean
+    private TrendingService trendingService;
 
     private ShortLinkResponse sampleResponse;
 
@@ -206,6 +235,161 @@ public class RestControllerTests {
                 .andExpect(jsonPath("$.success").value(false));
     }
 
+    // ---------------------------------------------------------------
+    // POST /api/links/bulk
+    // ---------------------------------------------------------------
+
+    @Test
+    void createBulk_jsonArray_returnsPerItemResults() throws Exception {
+        when(linkService.createShortLinks(any())).thenReturn(List.of(
+                BulkCreateResult.success(0, sampleResponse),
+                BulkCreateResult.failure(1, "Invalid URL: missing domain")));
+
+        mockMvc.perform(post("/api/links/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [
+                                  { "longUrl": "https://example.com" },
+                                  { "longUrl": "https://example" }
+                                ]
+                                """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Created 1 of 2 short links"))
+                .andExpect(jsonPath("$.data[0].success").value(true))
+                .andExpect(jsonPath("$.data[0].data.shortCode").value("abc123"))
+                .andExpect(jsonPath("$.data[1].success").value(false))
+                .andExpect(jsonPath("$.data[1].error").value("Invalid URL: missing domain"));
+    }
+
+    @Test
+    void createBulk_ndjson_parsesEachLine() throws Exception {
+        when(linkService.createShortLinks(argThat(requests -> requests.size() == 2)))
+                .thenReturn(List.of(BulkCreateResult.success(0, sampleResponse), BulkCreateResult.success(1, sampleResponse)));
+
+        mockMvc.perform(post("/api/links/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"longUrl\": \"https://example.com\"}\n{\"longUrl\": \"https://example.org\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Created 2 of 2 short links"));
+    }
+
+    @Test
+    void createBulk_malformedNdjson_returns400() throws Exception {
+        mockMvc.perform(post("/api/links/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"longUrl\": \"https://example.com\"}\n{not json\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Malformed NDJSON at item 2"));
+    }
+
+    @Test
+    void createBulk_ndjsonOverLimit_rejectedBeforeReadingTheRest() throws Exception {
+        String line = "{\"longUrl\": \"https://example.com\"}\n";
+        mockMvc.perform(post("/api/links/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(line + line + line + "{not json\n"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Too many links in one request (max 2)"));
+
+        verify(linkService, never()).createShortLinks(any());
+    }
+
+    // ---------------------------------------------------------------
+    // GET /api/links/export, POST /api/links/import
+    // ---------------------------------------------------------------
+
+    @Test
+    void export_streamsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(0);
+            out.write("{\"id\":1,\"shortCode\":\"abc123\"}\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(linkTransferService).exportLinks(any());
+
+        var result = mockMvc.perform(get("/api/links/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        // No timeout for the export, whatever spring.mvc.async.request-timeout says
+        assertEquals(-1L, result.getRequest().getAsyncContext().getTimeout());
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"id\":1,\"shortCode\":\"abc123\"}\n"));
+    }
+
+    @Test
+    void import_ndjson_returnsSummary() throws Exception {
+        when(linkTransferService.importLinks(any(), eq(true))).thenReturn(new LinkImportResult(2, 1, 0, 10));
+
+        mockMvc.perform(post("/api/links/import?warmCache=true")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"id\":1,\"shortCode\":\"a\",\"longUrl\":\"https://example.com\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Imported 2 short links"))
+                .andExpect(jsonPath("$.data.skipped").value(1))
+                .andExpect(jsonPath("$.data.linksPerSecond").value(200));
+    }
+
+    // ---------------------------------------------------------------
+    // GET /api/links/{code}/analytics
+    // ---------------------------------------------------------------
+
+    @Test
+    void analytics_knownCode_returnsSeries() throws Exception {
+        LinkAnalyticsResponse analytics = new LinkAnalyticsResponse("abc123",
+                LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 5), 42,
+                List.of(new LinkAnalyticsResponse.ClickCount("2026-02-05", 7)), List.of(),
+                List.of(new LinkAnalyticsResponse.ClickCount("2026-02", 42)));
+        when(linkAnalyticsService.getAnalytics("abc123", LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 5)))
+                .thenReturn(Optional.of(analytics));
+
+        mockMvc.perform(get("/api/links/abc123/analytics?from=2026-02-01&to=2026-02-05"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.total").value(42))
+                .andExpect(jsonPath("$.data.daily[0].period").value("2026-02-05"))
+                .andExpect(jsonPath("$.data.monthly[0].clicks").value(42));
+    }
+
+    @Test
+    void analytics_unknownCode_returns404() throws Exception {
+        when(linkAnalyticsService.getAnalytics(eq("missing"), any(), any())).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/api/links/missing/analytics"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.success").value(false));
+    }
+
+    @Test
+    void analytics_invalidRange_returns400() throws Exception {
+        when(linkAnalyticsService.getAnalytics(eq("abc123"), any(), any()))
+                .thenThrow(new IllegalArgumentException("from must not be after to"));
+
+        mockMvc.perform(get("/api/links/abc123/analytics?from=2026-02-05&to=2026-02-01"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // ---------------------------------------------------------------
+    // GET /api/links/trending
+    // ---------------------------------------------------------------
+
+    @Test
+    void trending_returnsLeaderboardForWindow() throws Exception {
+        when(trendingService.getTrending(TrendingService.Window.FIVE_MINUTES, 3))
+                .thenReturn(List.of(new TrendingLink("abc123", 90), new TrendingLink("xyz", 12)));
+
+        mockMvc.perform(get("/api/links/trending?window=5m&limit=3"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data[0].shortCode").value("abc123"))
+                .andExpect(jsonPath("$.data[1].clicks").value(12));
+    }
+
+    @Test
+    void trending_unknownWindow_returns400() throws Exception {
+        mockMvc.perform(get("/api/links/trending?window=7d"))
+                .andExpect(status().isBadRequest());
+    }
+
     // ---------------------------------------------------------------
     // GET /api/links/{id}
     // ---------------------------------------------------------------
@@ -266,7 +450,7 @@ public class RestControllerTests {
     // ---------------------------------------------------------------
 
     @Test
-    void redirect_validCode_returns302_andIncrementClick() throws Exception {
+    void redirect_validCode_returns302_andRecordsClick() throws Exception {
         when(linkService.getTarget("abc123"))
                 .thenReturn(URI.create("https://example.com"));
 
@@ -274,7 +458,21 @@ public class RestControllerTests {
                 .andExpect(status().isFound())
                 .andExpect(header().string("Location", "https://example.com"));
 
-        verify(redisService).incrementClick("abc123");
+        verify(clickRecorder).record(eq("abc123"), any(), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void redirect_passesRequestHeadersForAttribution() throws Exception {
+        when(linkService.getTarget("abc123"))
+                .thenReturn(URI.create("https://example.com"));
+
+        mockMvc.perform(get("/abc123").header("Referer", "https://news.example.org/item"))
+                .andExpect(status().isFound());
+
+        ArgumentCaptor<UnaryOperator<String>> headers = ArgumentCaptor.forClass(UnaryOperator.class);
+        verify(clickRecorder).record(eq("abc123"), eq("127.0.0.1"), headers.capture());
+        assertEquals("https://news.example.org/item", headers.getValue().apply("Referer"));
     }
 
     @Test
@@ -286,7 +484,7 @@ public class RestControllerTests {
                 .andExpect(status().isFound())
                 .andExpect(header().string("Location", "/error"));
 
-        verify(redisService, never()).incrementClick("missing");
+        verify(clickRecorder, never()).record(eq("missing"), any(), any());
     }
 
     @Test
@@ -0,0 +1,77 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.service.FeistelShortCodeGenerator;
+import com.sanuth.shortme.service.SequentialShortCodeGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShortCodeGeneratorTest {
+
+    @Test
+    void feistel_isBijectiveOverItsDomain() {
+        FeistelShortCodeGenerator generator = new FeistelShortCodeGenerator(42L, 16, 4, new SimpleMeterRegistry());
+        Set<String> codes = new HashSet<>();
+        for (long id = 0; id < (1 << 16); id++) {
+            String code = generator.generate(id);
+            assertEquals(3, code.length());
+            assertTrue(codes.add(code), "duplicate code " + code);
+            assertEquals(OptionalLong.of(id), generator.decode(code));
+        }
+    }
+
+    @Test
+    void feistel_scattersConsecutiveIds() {
+        FeistelShortCodeGenerator generator = new FeistelShortCodeGenerator(42L, 40, 4, new SimpleMeterRegistry());
+        String first = generator.generate(1000);
+        String second = generator.generate(1001);
+
+        assertEquals(7, first.length());
+        assertNotEquals(first.substring(0, 4), second.substring(0, 4));
+        assertNotEquals(first, new FeistelShortCodeGenerator(43L, 40, 4, new SimpleMeterRegistry()).generate(1000));
+    }
+
+    @Test
+    void feistel_rejectsForeignCodesAndIdsOutsideDomain() {
+        FeistelShortCodeGenerator generator = new FeistelShortCodeGenerator(42L, 16, 4, new SimpleMeterRegistry());
+
+        assertTrue(generator.decode("my-sale").isEmpty());
+        assertTrue(generator.decode("zzz").isEmpty());
+        assertThrows(IllegalStateException.class, () -> generator.generate(1 << 16));
+        assertThrows(IllegalArgumentException.class, () -> new FeistelShortCodeGenerator(42L, 15, 4, new SimpleMeterRegistry()));
+    }
+
+    @Test
+    void feistel_reportsCapacityUsed() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        FeistelShortCodeGenerator generator = new FeistelShortCodeGenerator(42L, 16, 4, registry);
+
+        generator.generate(65535);
+        generator.generate(10);
+
+        assertEquals(1.0, registry.get("shortme.codes.capacity.used").gauge().value());
+    }
+
+    @Test
+    void sequential_roundTrips() {
+        SequentialShortCodeGenerator generator = new SequentialShortCodeGenerator(0);
+
+        assertEquals("10", generator.generate(62));
+        assertEquals(OptionalLong.of(62), generator.decode("10"));
+        assertTrue(generator.decode("my-sale").isEmpty());
+    }
+
+    @Test
+    void sequential_idsPastWidthGetLongerCodes() {
+        SequentialShortCodeGenerator generator = new SequentialShortCodeGenerator(2);
+
+        assertEquals("zz", generator.generate(3843));
+        assertEquals("100", generator.generate(3844));
+        assertEquals(OptionalLong.of(3844), generator.decode("100"));
+    }
+}
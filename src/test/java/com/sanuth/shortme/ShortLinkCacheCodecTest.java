@@ -0,0 +1,64 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.model.cache.CachedShortLink;
+import com.sanuth.shortme.model.db.LinkStatus;
+import com.sanuth.shortme.util.ShortLinkCacheCodec;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShortLinkCacheCodecTest {
+
+    @Test
+    void roundTrip_withoutExpiry() {
+        CachedShortLink cached = new CachedShortLink(1L, "abc", "https://example.com/a|b", Instant.now(),
+                null, LinkStatus.ACTIVE);
+
+        String encoded = ShortLinkCacheCodec.encode(cached);
+        CachedShortLink decoded = ShortLinkCacheCodec.decode("abc", encoded);
+
+        assertEquals("10|https://example.com/a|b", encoded);
+        assertEquals("abc", decoded.getShortCode());
+        assertEquals("https://example.com/a|b", decoded.getLongUrl());
+        assertNull(decoded.getExpiresAt());
+        assertEquals(LinkStatus.ACTIVE, decoded.getStatus());
+    }
+
+    @Test
+    void roundTrip_withExpiryAndStatus() {
+        Instant expiresAt = Instant.parse("2026-03-05T10:00:00Z");
+        CachedShortLink cached = new CachedShortLink(1L, "abc", "https://example.com", Instant.now(),
+                expiresAt, LinkStatus.DISABLED);
+
+        CachedShortLink decoded = ShortLinkCacheCodec.decode("abc", ShortLinkCacheCodec.encode(cached));
+
+        assertEquals(expiresAt, decoded.getExpiresAt());
+        assertEquals(LinkStatus.DISABLED, decoded.getStatus());
+    }
+
+    @Test
+    void roundTrip_withCacheTtl() {
+        Instant expiresAt = Instant.parse("2026-03-05T10:00:00Z");
+        CachedShortLink cached = new CachedShortLink(1L, "abc", "https://example.com", Instant.now(),
+                expiresAt, LinkStatus.ACTIVE, 600L);
+
+        String encoded = ShortLinkCacheCodec.encode(cached);
+        CachedShortLink decoded = ShortLinkCacheCodec.decode("abc", encoded);
+
+        assertEquals("20" + expiresAt.getEpochSecond() + ";600|https://example.com", encoded);
+        assertEquals(600L, decoded.getCacheTtlSeconds());
+        assertEquals(expiresAt, decoded.getExpiresAt());
+        assertNull(ShortLinkCacheCodec.decode("abc", "20;600|https://example.com").getExpiresAt());
+    }
+
+    @Test
+    void decode_rejectsUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> ShortLinkCacheCodec.decode("abc", "https://example.com"));
+        assertThrows(IllegalArgumentException.class, () -> ShortLinkCacheCodec.decode("abc", "19|https://example.com"));
+        assertThrows(IllegalArgumentException.class, () -> ShortLinkCacheCodec.decode("abc", "10x1|https://example.com"));
+        assertThrows(IllegalArgumentException.class, () -> ShortLinkCacheCodec.decode("abc", "20|https://example.com"));
+        assertThrows(IllegalArgumentException.class, () -> ShortLinkCacheCodec.decode("abc", "10;600|https://example.com"));
+    }
+}
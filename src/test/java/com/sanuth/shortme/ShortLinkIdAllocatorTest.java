@@ -0,0 +1,126 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.service.ShortLinkIdAllocator;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ShortLinkIdAllocatorTest {
+
+    private static final int BLOCK_SIZE = 50;
+
+    @Test
+    void nextId_handsOutLeasedBlockBeforeLeasingAnother() {
+        FakeSequence sequence = new FakeSequence();
+        ShortLinkIdAllocator allocator = new ShortLinkIdAllocator(sequence, BLOCK_SIZE);
+
+        assertEquals(1, allocator.nextId());
+        for (int i = 2; i <= BLOCK_SIZE; i++) {
+            assertEquals(i, allocator.nextId());
+        }
+        assertEquals(1, sequence.nextvalCalls);
+
+        assertEquals(BLOCK_SIZE + 1, allocator.nextId());
+        assertEquals(2, sequence.nextvalCalls);
+    }
+
+    @Test
+    void reserveThrough_movesSequencePastImportedIds() {
+        FakeSequence sequence = new FakeSequence();
+        ShortLinkIdAllocator allocator = new ShortLinkIdAllocator(sequence, BLOCK_SIZE);
+        allocator.nextId();
+
+        allocator.reserveThrough(10_000);
+
+        assertTrue(allocator.nextId() > 10_000);
+        assertFalse(sequence.setvalCalled);
+    }
+
+    @Test
+    void reserveThrough_otherNodesLeasingMeanwhile_neverShareABlock() {
+        FakeSequence sequence = new FakeSequence();
+        sequence.interleavedLeases = 3;
+        ShortLinkIdAllocator allocator = new ShortLinkIdAllocator(sequence, BLOCK_SIZE);
+
+        allocator.reserveThrough(1_000);
+        long first = allocator.nextId();
+
+        assertTrue(first > 1_000);
+        Set<Long> starts = new HashSet<>(sequence.otherNodeLeases);
+        assertEquals(sequence.otherNodeLeases.size(), starts.size());
+        assertFalse(starts.contains(first));
+    }
+
+    @Test
+    void reserveThrough_belowSequence_stillKeepsItMovingForward() {
+        FakeSequence sequence = new FakeSequence();
+        ShortLinkIdAllocator allocator = new ShortLinkIdAllocator(sequence, BLOCK_SIZE);
+        long before = allocator.nextId();
+
+        allocator.reserveThrough(0);
+
+        assertEquals(before + 1, allocator.nextId());
+    }
+
+    /** A Postgres sequence incrementing by the block size; optionally another node leases before each bump. */
+    private static class FakeSequence extends JdbcTemplate {
+        long lastValue = 1 - BLOCK_SIZE;
+        int nextvalCalls;
+        int interleavedLeases;
+        boolean setvalCalled;
+        final List<Long> otherNodeLeases = new ArrayList<>();
+
+        private long nextval() {
+            lastValue += BLOCK_SIZE;
+            return lastValue;
+        }
+
+        @Override
+        public void execute(String sql) {
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> List<T> queryForList(String sql, Class<T> elementType, Object... args) {
+            return (List<T>) List.of((long) BLOCK_SIZE);
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType) {
+            if (sql.startsWith("select nextval")) {
+                nextvalCalls++;
+                return requiredType.cast(nextval());
+            }
+            if (sql.startsWith("select last_value")) {
+                return requiredType.cast(lastValue);
+            }
+            throw new UnsupportedOperationException(sql);
+        }
+
+        @Override
+        public <T> T queryForObject(String sql, Class<T> requiredType, Object... args) {
+            if (sql.contains("setval")) {
+                setvalCalled = true;
+                throw new UnsupportedOperationException(sql);
+            }
+            if (sql.contains("generate_series")) {
+                if (interleavedLeases > 0) {
+                    interleavedLeases--;
+                    otherNodeLeases.add(nextval());
+                }
+                long value = 0;
+                for (long i = 0; i < (Long) args[0]; i++) {
+                    value = nextval();
+                }
+                return requiredType.cast(value);
+            }
+            throw new UnsupportedOperationException(sql);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.model.dto.TrendingLink;
+import com.sanuth.shortme.service.RedisCacheService;
+import com.sanuth.shortme.service.RedisService;
+import com.sanuth.shortme.service.TrendingService;
+import com.sanuth.shortme.service.TrendingService.Window;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TrendingServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 2, 5, 13, 20, 42);
+
+    @Mock
+    private RedisService redisService;
+
+    @Mock
+    private RedisCacheService redisCacheService;
+
+    private TrendingService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new TrendingService(redisService, redisCacheService, new SimpleMeterRegistry(), false, 100, 2);
+    }
+
+    private static Map<String, Long> ranked(Object... codesAndClicks) {
+        Map<String, Long> ranked = new LinkedHashMap<>();
+        for (int i = 0; i < codesAndClicks.length; i += 2) {
+            ranked.put((String) codesAndClicks[i], ((Number) codesAndClicks[i + 1]).longValue());
+        }
+        return ranked;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void refresh_mergesBucketsOfEachWindow() {
+        when(redisService.mergeTrending(anyMap(), eq(100), any())).thenReturn(List.of(ranked(), ranked(), ranked()));
+
+        service.refresh(NOW);
+
+        ArgumentCaptor<Map<String, List<String>>> buckets = ArgumentCaptor.forClass(Map.class);
+        verify(redisService).mergeTrending(buckets.capture(), eq(100), any());
+        List<String> fiveMinutes = buckets.getValue().get("trending:5m");
+        assertEquals(List.of("trending:minute:2026-02-05T13:20", "trending:minute:2026-02-05T13:19",
+                "trending:minute:2026-02-05T13:18", "trending:minute:2026-02-05T13:17",
+                "trending:minute:2026-02-05T13:16"), fiveMinutes);
+        assertEquals(60, buckets.getValue().get("trending:1h").size());
+        List<String> day = buckets.getValue().get("trending:24h");
+        assertEquals(24, day.size());
+        assertEquals("trending:hour:2026-02-05T13", day.get(0));
+        assertEquals("trending:hour:2026-02-04T14", day.get(23));
+    }
+
+    @Test
+    void refresh_servesLeaderboardFromMemory() {
+        when(redisService.mergeTrending(anyMap(), eq(100), any())).thenReturn(List.of(
+                ranked("hot", 50, "warm", 20, "cool", 5), ranked("hot", 400), ranked("old", 9000)));
+
+        service.refresh(NOW);
+
+        List<TrendingLink> top = service.getTrending(Window.FIVE_MINUTES, 2);
+        assertEquals(2, top.size());
+        assertEquals("hot", top.get(0).getShortCode());
+        assertEquals(50, top.get(0).getClicks());
+        assertEquals("warm", top.get(1).getShortCode());
+        assertEquals("old", service.getTrending(Window.ONE_DAY, 10).get(0).getShortCode());
+        verify(redisService, times(1)).mergeTrending(anyMap(), anyInt(), any());
+    }
+
+    @Test
+    void refresh_warmsLocalCacheWithHottestCodes() {
+        when(redisService.mergeTrending(anyMap(), eq(100), any())).thenReturn(List.of(
+                ranked("hot", 50, "warm", 20, "cool", 5), ranked(), ranked()));
+
+        service.refresh(NOW);
+
+        verify(redisCacheService).warmLocal(List.of("hot", "warm"));
+    }
+
+    @Test
+    void refresh_redisFailure_keepsPreviousLeaderboard() {
+        when(redisService.mergeTrending(anyMap(), eq(100), any()))
+                .thenReturn(List.of(ranked("hot", 50), ranked(), ranked()))
+                .thenThrow(new QueryTimeoutException("Redis down"));
+
+        service.refresh(NOW);
+        assertThrows(QueryTimeoutException.class, () -> service.refresh(NOW.plusSeconds(10)));
+
+        assertEquals("hot", service.getTrending(Window.FIVE_MINUTES, 10).get(0).getShortCode());
+    }
+
+    @Test
+    void getTrending_beforeFirstRefresh_isEmpty() {
+        assertTrue(service.getTrending(Window.ONE_HOUR, 10).isEmpty());
+    }
+
+    @Test
+    void getTrending_limitOutOfRange_throws() {
+        assertThrows(IllegalArgumentException.class, () -> service.getTrending(Window.ONE_HOUR, 0));
+        assertThrows(IllegalArgumentException.class, () -> service.getTrending(Window.ONE_HOUR, 101));
+    }
+
+    @Test
+    void window_fromLabel() {
+        assertEquals(Window.ONE_DAY, Window.fromLabel("24h"));
+        assertThrows(IllegalArgumentException.class, () -> Window.fromLabel("7d"));
+    }
+}
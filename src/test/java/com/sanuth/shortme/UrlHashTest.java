@@ -0,0 +1,39 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.util.UrlHash;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UrlHashTest {
+
+    @Test
+    void of_isSixteenBytes() {
+        assertEquals(UrlHash.LENGTH, UrlHash.of("https://example.com/" + "a".repeat(2000)).length);
+        assertNull(UrlHash.of(null));
+    }
+
+    @Test
+    void of_ignoresCaseOfSchemeAndHostOnly() {
+        assertArrayEquals(UrlHash.of("https://example.com/Path"), UrlHash.of("HTTPS://Example.COM/Path"));
+        assertFalse(Arrays.equals(UrlHash.of("https://example.com/Path"), UrlHash.of("https://example.com/path")));
+    }
+
+    @Test
+    void of_hashesNormalizedUrl() {
+        assertArrayEquals(UrlHash.of("https://example.com/x"), UrlHash.of("example.com:443/x"));
+    }
+
+    @Test
+    void canonical_leavesUserInfoAndQueryAlone() {
+        assertEquals("https://User:Pw@example.com/x", UrlHash.canonical("HTTPS://User:Pw@Example.com/x"));
+        assertEquals("https://example.com?Q=A", UrlHash.canonical("https://EXAMPLE.com?Q=A"));
+    }
+
+    @Test
+    void canonical_urlThatDoesNotNormalize_keptAsIs() {
+        assertEquals("https://exa_mple.com/X", UrlHash.canonical("https://exa_mple.com/X"));
+    }
+}
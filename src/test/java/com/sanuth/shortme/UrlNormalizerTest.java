@@ -0,0 +1,172 @@
+package com.sanuth.shortme;
+
+import com.sanuth.shortme.util.UrlNormalizer;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UrlNormalizerTest {
+
+    @Test
+    void normalize_alreadyNormal_returnsSameInstance() {
+        String url = "https://example.com/a/b?utm_source=x#top";
+        assertSame(url, UrlNormalizer.normalize(url));
+    }
+
+    @Test
+    void normalize_lowercasesSchemeAndHostOnly() {
+        assertEquals("https://example.com/Path?Q=A", UrlNormalizer.normalize("HTTPS://Example.COM/Path?Q=A"));
+        assertEquals("http://User:Pw@example.com/", UrlNormalizer.normalize("http://User:Pw@EXAMPLE.com/"));
+    }
+
+    @Test
+    void normalize_lowercasesHostIndependentOfDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr"));
+        try {
+            assertEquals("https://india.example/", UrlNormalizer.normalize("https://INDIA.example/"));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void normalize_dropsDefaultAndEmptyPorts() {
+        assertEquals("https://example.com/x", UrlNormalizer.normalize("https://example.com:443/x"));
+        assertEquals("http://example.com/x", UrlNormalizer.normalize("http://example.com:0080/x"));
+        assertEquals("https://example.com/x", UrlNormalizer.normalize("https://example.com:/x"));
+        assertEquals("https://example.com:8443/x", UrlNormalizer.normalize("https://example.com:08443/x"));
+        assertEquals("http://example.com:443", UrlNormalizer.normalize("http://example.com:443"));
+    }
+
+    @Test
+    void normalize_internationalizedHost_convertedToPunycode() {
+        assertEquals("https://xn--bcher-kva.example/b%C3%BCcher",
+                UrlNormalizer.normalize("https://Bücher.example/b%C3%BCcher"));
+        assertEquals("https://xn--bcher-kva.example/bücher", UrlNormalizer.normalize("https://bücher.example/bücher"));
+    }
+
+    @Test
+    void normalize_missingScheme_defaultsToHttps() {
+        assertEquals("https://example.com/x", UrlNormalizer.normalize("example.com/x"));
+        assertEquals("https://example.com:8080/x", UrlNormalizer.normalize("example.com:8080/x"));
+    }
+
+    @Test
+    void normalize_rejectsWithClientMessages() {
+        assertMessage("URL cannot be empty", null);
+        assertMessage("URL cannot be empty", " ");
+        assertMessage("URL too long (max 2048 characters)", "https://example.com/" + "a".repeat(2048));
+        assertMessage("URL must start with http:// or https://", "ftp://example.com");
+        assertMessage("Invalid URL: double protocol prefix", "https://HTTP://example.com");
+        assertMessage("Invalid URL: missing domain", "https://localhost:8080/x");
+        assertMessage("Invalid URL format", "https://example.com/a b");
+        assertMessage("Invalid URL format", "https://example.com/%zz");
+        assertMessage("Invalid URL format", "https://exa_mple.com/");
+        assertMessage("Invalid URL format", "https://example.com:99999/");
+        assertMessage("Invalid URL format", "https://[::ffff:1.2.3.4]/");
+    }
+
+    private static void assertMessage(String expected, String url) {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> UrlNormalizer.normalize(url));
+        assertEquals(expected, e.getMessage());
+    }
+
+    // ---------------------------------------------------------------
+    // Equivalence with java.net.URI over random http(s) URLs
+    // ---------------------------------------------------------------
+
+    private static final String[] SCHEMES = {"http://", "https://", "HTTPS://", "Http://"};
+    private static final String[] USER_INFO = {"", "", "", "user@", "u:p@", "a%41b@", "x y@", "a@b@", "é@", "[@"};
+    private static final String[] HOSTS = {
+            "example.com", "Example.COM", "a.b", "a-b.c-d", "sub.example.co.uk", "example.com.", "localhost.",
+            "1.2.3.4", "255.255.255.255", "256.1.1.1", "01.2.3.004", "1.2.3", "1.2.3.4.", "1.2.3.4.5", "a.1",
+            "a.b1", "-a.com", "a-.com", "a..com", ".com", "exa_mple.com", "ex%41mple.com", "localhost", "",
+            "[::1]", "a.b!", "a.b~"};
+    private static final String[] PORTS = {"", "", "", ":", ":80", ":443", ":8080", ":0", ":00443", ":65535",
+            ":65536", ":99999999999", ":8a", ":-1"};
+    private static final String LEGAL = "abcXYZ019-._~!$&'()*+,;=:@/?#%é";
+    // Allowed in some components only, or nowhere
+    private static final String RARE = "[] \"<>\\^`{|}\u0001\u00a0";
+
+    @Test
+    void normalize_agreesWithJavaNetUriOnRandomUrls() {
+        SplittableRandom random = new SplittableRandom(20260205);
+        for (int i = 0; i < 200_000; i++) {
+            String url = SCHEMES[random.nextInt(SCHEMES.length)]
+                    + USER_INFO[random.nextInt(USER_INFO.length)]
+                    + HOSTS[random.nextInt(HOSTS.length)]
+                    + PORTS[random.nextInt(PORTS.length)]
+                    + randomTail(random);
+            assertEquivalent(url);
+        }
+    }
+
+    private static String randomTail(SplittableRandom random) {
+        StringBuilder sb = new StringBuilder();
+        if (random.nextBoolean()) {
+            sb.append('/');
+        }
+        int length = random.nextInt(12);
+        boolean inAuthority = sb.isEmpty();
+        for (int i = 0; i < length; i++) {
+            char c = random.nextInt(20) == 0 ? RARE.charAt(random.nextInt(RARE.length()))
+                    : LEGAL.charAt(random.nextInt(LEGAL.length()));
+            inAuthority &= "/?#".indexOf(c) < 0;
+            // Non-ASCII hosts are converted to punycode, where java.net.URI rejects them; covered above
+            if (inAuthority && c > 0x7F) {
+                c = 'e';
+            }
+            sb.append(c);
+            if (c == '%' && random.nextInt(3) > 0) {
+                sb.append("0123456789abcdefABCDEFgz".charAt(random.nextInt(24)))
+                        .append("0123456789abcdefABCDEFgz".charAt(random.nextInt(24)));
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void assertEquivalent(String url) {
+        URI reference = parseAsReference(url);
+        String normalized;
+        try {
+            normalized = UrlNormalizer.normalize(url);
+        } catch (IllegalArgumentException e) {
+            assertNull(reference, () -> "rejected but java.net.URI accepts: " + url + " (" + e.getMessage() + ")");
+            return;
+        }
+        assertNotNull(reference, () -> "accepted but java.net.URI rejects: " + url + " -> " + normalized);
+
+        URI result = URI.create(normalized);
+        String scheme = reference.getScheme().toLowerCase();
+        int defaultPort = scheme.equals("https") ? 443 : 80;
+        assertEquals(scheme, result.getScheme(), url);
+        assertEquals(reference.getHost().toLowerCase(), result.getHost(), url);
+        assertEquals(reference.getPort() == defaultPort ? -1 : reference.getPort(), result.getPort(), url);
+        assertEquals(reference.getRawUserInfo(), result.getRawUserInfo(), url);
+        assertEquals(reference.getRawPath(), result.getRawPath(), url);
+        assertEquals(reference.getRawQuery(), result.getRawQuery(), url);
+        assertEquals(reference.getRawFragment(), result.getRawFragment(), url);
+        assertEquals(normalized, UrlNormalizer.normalize(normalized), url);
+    }
+
+    // What the normalizer is specified to accept, in terms of java.net.URI
+    private static URI parseAsReference(String url) {
+        try {
+            URI uri = new URI(url);
+            String host = uri.getHost();
+            if (host == null || host.startsWith("[") || host.indexOf('.') < 0 || uri.getPort() > 65535
+                    || url.length() > UrlNormalizer.MAX_LENGTH) {
+                return null;
+            }
+            return uri;
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.sanuth.shortme.config;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Same package as VirtualThreadConfig, whose version checks are package-private
+public class VirtualThreadConfigTest {
+
+    @Test
+    void parseMajorMinor_readsReleaseAndSnapshotVersions() {
+        assertArrayEquals(new int[] {6, 8}, VirtualThreadConfig.parseMajorMinor("6.8.1.RELEASE"));
+        assertArrayEquals(new int[] {7, 0}, VirtualThreadConfig.parseMajorMinor("7.0-SNAPSHOT"));
+        assertArrayEquals(new int[] {42, 7}, VirtualThreadConfig.parseMajorMinor("42.7.4"));
+    }
+
+    @Test
+    void parseMajorMinor_rejectsUnrecognisedVersions() {
+        assertThrows(IllegalArgumentException.class, () -> VirtualThreadConfig.parseMajorMinor("6"));
+        assertThrows(NumberFormatException.class, () -> VirtualThreadConfig.parseMajorMinor("six.three"));
+    }
+
+    @Test
+    void requireAtLeast_acceptsMinimumAndNewer() {
+        assertDoesNotThrow(() -> VirtualThreadConfig.requireAtLeast("pgjdbc", new int[] {42, 6}, VirtualThreadConfig.MIN_PGJDBC));
+        assertDoesNotThrow(() -> VirtualThreadConfig.requireAtLeast("pgjdbc", new int[] {42, 7}, VirtualThreadConfig.MIN_PGJDBC));
+        assertDoesNotThrow(() -> VirtualThreadConfig.requireAtLeast("Lettuce", new int[] {7, 0}, VirtualThreadConfig.MIN_LETTUCE));
+    }
+
+    @Test
+    void requireAtLeast_rejectsOlderRelease() {
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> VirtualThreadConfig.requireAtLeast("Lettuce", new int[] {6, 2}, VirtualThreadConfig.MIN_LETTUCE));
+        assertTrue(e.getMessage().startsWith("Lettuce 6.2 pins virtual threads"));
+        assertThrows(IllegalStateException.class,
+                () -> VirtualThreadConfig.requireAtLeast("pgjdbc", new int[] {41, 9}, VirtualThreadConfig.MIN_PGJDBC));
+    }
+}
@@ -0,0 +1,40 @@
+package com.sanuth.shortme.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+// Same package as VirtualThreadPinningMonitor, whose site key is package-private
+public class VirtualThreadPinningMonitorTest {
+
+    private static final String PARK = "java.lang.VirtualThread.parkOnCarrierThread:675";
+
+    @Test
+    void site_isFirstFrameOutsideTheJdk() {
+        List<String> frames = List.of(PARK, "java.lang.VirtualThread.park:582",
+                "jdk.internal.misc.Unsafe.park:-1",
+                "com.sanuth.shortme.service.LinkService.getTarget:120",
+                "com.sanuth.shortme.controller.RedirectController.redirect:40");
+
+        assertEquals("com.sanuth.shortme.service.LinkService.getTarget:120", VirtualThreadPinningMonitor.site(frames));
+    }
+
+    @Test
+    void site_differsForDifferentCallers() {
+        String first = VirtualThreadPinningMonitor.site(List.of(PARK, "org.postgresql.core.PGStream.receive:1"));
+        String second = VirtualThreadPinningMonitor.site(List.of(PARK, "io.lettuce.core.RedisClient.connect:2"));
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void site_onlyJdkFrames_isWholeStack() {
+        String site = VirtualThreadPinningMonitor.site(List.of(PARK, "java.lang.Thread.sleep:500"));
+
+        assertEquals(PARK + "\njava.lang.Thread.sleep:500", site);
+        assertNotEquals(site, VirtualThreadPinningMonitor.site(List.of(PARK, "java.lang.Object.wait:10")));
+    }
+}